@@ -29,6 +29,7 @@ import com.plotsquared.bukkit.generator.BukkitHybridUtils;
 import com.plotsquared.bukkit.generator.BukkitPlotGenerator;
 import com.plotsquared.bukkit.listener.BlockEventListener;
 import com.plotsquared.bukkit.listener.ChunkListener;
+import com.plotsquared.bukkit.listener.EntityCountListener;
 import com.plotsquared.bukkit.listener.EntityEventListener;
 import com.plotsquared.bukkit.listener.EntitySpawnListener;
 import com.plotsquared.bukkit.listener.PaperListener;
@@ -148,6 +149,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -186,6 +188,8 @@ public final class BukkitMain extends JavaPlugin implements Listener, IPlotMain<
     private final BukkitPlayerManager playerManager = new BukkitPlayerManager();
     private EconHandler econ;
     private PermHandler perm;
+    private PaperListener paperListener;
+    private ChunkListener chunkListener;
 
     @Override public int[] getServerVersion() {
         if (this.version == null) {
@@ -903,12 +907,29 @@ public final class BukkitMain extends JavaPlugin implements Listener, IPlotMain<
         getServer().getPluginManager().registerEvents(new EntityEventListener(), this);
         getServer().getPluginManager().registerEvents(new ProjectileEventListener(), this);
         getServer().getPluginManager().registerEvents(new EntitySpawnListener(), this);
+        getServer().getPluginManager().registerEvents(new EntityCountListener(), this);
         if (PaperLib.isPaper() && Settings.Paper_Components.PAPER_LISTENERS) {
-            getServer().getPluginManager().registerEvents(new PaperListener(), this);
+            this.paperListener = new PaperListener();
+            getServer().getPluginManager().registerEvents(this.paperListener, this);
         }
         PlotListener.startRunnable();
     }
 
+    @Override public Map<String, Object> getListenerStatistics() {
+        final Map<String, Object> statistics = new LinkedHashMap<>();
+        if (this.paperListener != null) {
+            final long[] pathChecks = this.paperListener.getPathChecks();
+            final long[] spawnChecks = this.paperListener.getSpawnChecks();
+            statistics.put("Path checks (evaluated/cached)", pathChecks[0] + "/" + pathChecks[1]);
+            statistics.put("Spawn checks (evaluated/cached)", spawnChecks[0] + "/" + spawnChecks[1]);
+        }
+        if (this.chunkListener != null) {
+            statistics.put("Chunks trimmed", this.chunkListener.getTrimmedChunks());
+            statistics.put("Chunks saved by the trim task", this.chunkListener.getSavedChunks());
+        }
+        return statistics;
+    }
+
     @Override public void registerForceFieldEvents() {
     }
 
@@ -1046,7 +1067,8 @@ public final class BukkitMain extends JavaPlugin implements Listener, IPlotMain<
     }
 
     @Override public void registerChunkProcessor() {
-        getServer().getPluginManager().registerEvents(new ChunkListener(), this);
+        this.chunkListener = new ChunkListener();
+        getServer().getPluginManager().registerEvents(this.chunkListener, this);
     }
 
     @Override public void registerWorldEvents() {
@@ -27,14 +27,18 @@ package com.plotsquared.bukkit.listener;
 
 import com.plotsquared.bukkit.player.BukkitPlayer;
 import com.plotsquared.bukkit.util.BukkitUtil;
+import com.plotsquared.bukkit.util.ExplosionFilter;
+import com.plotsquared.bukkit.util.PlotLookup;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.database.DBFunc;
 import com.plotsquared.core.location.Location;
 import com.plotsquared.core.player.PlotPlayer;
+import com.plotsquared.core.plot.ChunkPlotRaster;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
+import com.plotsquared.core.plot.PlotOccupants;
 import com.plotsquared.core.plot.flag.implementations.BlockBurnFlag;
 import com.plotsquared.core.plot.flag.implementations.BlockIgnitionFlag;
 import com.plotsquared.core.plot.flag.implementations.BreakFlag;
@@ -62,8 +66,10 @@ import com.plotsquared.core.util.task.TaskManager;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.world.block.BlockType;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.BlockData;
@@ -91,12 +97,12 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.block.BlockRedstoneEvent;
 import org.bukkit.event.block.BlockSpreadEvent;
 import org.bukkit.event.block.EntityBlockFormEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.material.Directional;
 import org.bukkit.projectiles.BlockProjectileSource;
-import org.bukkit.util.Vector;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -124,14 +130,26 @@ public class BlockEventListener implements Listener {
         }, 3);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        final Chunk chunk = event.getChunk();
+        ChunkPlotRaster.unloadChunk(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        ChunkPlotRaster.unloadWorld(event.getWorld().getName());
+        PlotLookup.unloadWorld(event.getWorld());
+    }
+
     @EventHandler public void onRedstoneEvent(BlockRedstoneEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        PlotArea area = location.getPlotArea();
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        PlotArea area = raster.getPlotArea(block.getX(), block.getZ());
         if (area == null) {
             return;
         }
-        Plot plot = location.getOwnedPlot();
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             if (area.isRoadFlags() && !area.getRoadFlag(RedstoneFlag.class)) {
                 event.setNewCurrent(0);
@@ -176,12 +194,9 @@ public class BlockEventListener implements Listener {
             }
         }
         if (Settings.Redstone.DISABLE_UNOCCUPIED) {
-            for (final PlotPlayer<?> player : PlotSquared.imp().getPlayerManager().getPlayers()) {
-                if (plot.equals(player.getCurrentPlot())) {
-                    return;
-                }
+            if (PlotOccupants.getPlayersInConnectedPlots(plot).isEmpty()) {
+                event.setNewCurrent(0);
             }
-            event.setNewCurrent(0);
         }
     }
 
@@ -190,11 +205,11 @@ public class BlockEventListener implements Listener {
         switch (event.getChangedType()) {
             case COMPARATOR: {
                 Block block = event.getBlock();
-                Location location = BukkitUtil.getLocation(block.getLocation());
-                if (location.isPlotArea()) {
+                ChunkPlotRaster raster = PlotLookup.getRaster(block);
+                if (raster.getPlotArea(block.getX(), block.getZ()) != null) {
                     return;
                 }
-                Plot plot = location.getOwnedPlotAbs();
+                Plot plot = raster.getOwnedPlotAbs(block.getX(), block.getZ());
                 if (plot == null) {
                     return;
                 }
@@ -212,12 +227,7 @@ public class BlockEventListener implements Listener {
             case TURTLE_HELMET:
             case TURTLE_SPAWN_EGG: {
                 Block block = event.getBlock();
-                Location location = BukkitUtil.getLocation(block.getLocation());
-                PlotArea area = location.getPlotArea();
-                if (area == null) {
-                    return;
-                }
-                Plot plot = area.getOwnedPlotAbs(location);
+                Plot plot = PlotLookup.getRaster(block).getOwnedPlotAbs(block.getX(), block.getZ());
                 if (plot == null) {
                     return;
                 }
@@ -235,30 +245,28 @@ public class BlockEventListener implements Listener {
                         case STICKY_PISTON:
                             org.bukkit.block.data.Directional piston =
                                 (org.bukkit.block.data.Directional) block.getBlockData();
-                            Location location = BukkitUtil.getLocation(block.getLocation());
-                            PlotArea area = location.getPlotArea();
-                            if (area == null) {
-                                return;
-                            }
-                            Plot plot = area.getOwnedPlotAbs(location);
+                            Plot plot = PlotLookup.getRaster(block).getOwnedPlotAbs(block.getX(), block.getZ());
                             if (plot == null) {
                                 return;
                             }
+                            int x = block.getX();
+                            int z = block.getZ();
                             switch (piston.getFacing()) {
                                 case EAST:
-                                    location.setX(location.getX() + 1);
+                                    x++;
                                     break;
                                 case SOUTH:
-                                    location.setX(location.getX() - 1);
+                                    x--;
                                     break;
                                 case WEST:
-                                    location.setZ(location.getZ() + 1);
+                                    z++;
                                     break;
                                 case NORTH:
-                                    location.setZ(location.getZ() - 1);
+                                    z--;
                                     break;
                             }
-                            Plot newPlot = area.getOwnedPlotAbs(location);
+                            Plot newPlot = ChunkPlotRaster.get(block.getWorld().getName(), x, z)
+                                .getOwnedPlotAbs(x, z);
                             if (!plot.equals(newPlot)) {
                                 event.setCancelled(true);
                                 plot.debug(
@@ -412,16 +420,12 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockSpread(BlockSpreadEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        if (location.isPlotRoad()) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.isPlotRoad(block.getX(), block.getZ())) {
             event.setCancelled(true);
             return;
         }
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
-            return;
-        }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             return;
         }
@@ -458,16 +462,12 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockForm(BlockFormEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        if (location.isPlotRoad()) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.isPlotRoad(block.getX(), block.getZ())) {
             event.setCancelled(true);
             return;
         }
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
-            return;
-        }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             return;
         }
@@ -491,16 +491,12 @@ public class BlockEventListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onEntityBlockForm(EntityBlockFormEvent event) {
-        String world = event.getBlock().getWorld().getName();
-        if (!PlotSquared.get().hasPlotArea(world)) {
-            return;
-        }
-        Location location = BukkitUtil.getLocation(event.getBlock().getLocation());
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
+        Block block = event.getBlock();
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.getPlotArea(block.getX(), block.getZ()) == null) {
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             event.setCancelled(true);
             return;
@@ -594,12 +590,11 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onFade(BlockFadeEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.getPlotArea(block.getX(), block.getZ()) == null) {
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             event.setCancelled(true);
             return;
@@ -654,31 +649,31 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onChange(BlockFromToEvent event) {
         Block from = event.getBlock();
+        World world = from.getWorld();
+        int fx = from.getX();
+        int fz = from.getZ();
 
         // Check liquid flow flag inside of origin plot too
-        final Location fLocation = BukkitUtil.getLocation(from.getLocation());
-        final PlotArea fromArea = fLocation.getPlotArea();
-        if (fromArea != null) {
-            final Plot plot = fromArea.getOwnedPlot(fLocation);
-            if (plot != null
-                && plot.getFlag(LiquidFlowFlag.class) == LiquidFlowFlag.FlowStatus.DISABLED && event
-                .getBlock().isLiquid()) {
-                plot.debug("Liquid could not flow because liquid-flow = disabled");
-                event.setCancelled(true);
-                return;
-            }
+        final ChunkPlotRaster fromRaster = PlotLookup.getRaster(from);
+        final PlotArea fromArea = fromRaster.getPlotArea(fx, fz);
+        final Plot fromPlot = fromRaster.getOwnedPlot(fx, fz);
+        if (fromPlot != null
+            && fromPlot.getFlag(LiquidFlowFlag.class) == LiquidFlowFlag.FlowStatus.DISABLED && event
+            .getBlock().isLiquid()) {
+            fromPlot.debug("Liquid could not flow because liquid-flow = disabled");
+            event.setCancelled(true);
+            return;
         }
 
         Block to = event.getToBlock();
-        Location tLocation = BukkitUtil.getLocation(to.getLocation());
-        PlotArea area = tLocation.getPlotArea();
+        ChunkPlotRaster toRaster = PlotLookup.getRaster(to);
+        PlotArea area = toRaster.getPlotArea(to.getX(), to.getZ());
         if (area == null) {
             return;
         }
-        Plot plot = area.getOwnedPlot(tLocation);
+        Plot plot = toRaster.getOwnedPlot(to.getX(), to.getZ());
         if (plot != null) {
-            if (!area.contains(fLocation.getX(), fLocation.getZ()) || !Objects
-                .equals(plot, area.getOwnedPlot(fLocation))) {
+            if (fromArea != area || !Objects.equals(plot, fromPlot)) {
                 event.setCancelled(true);
                 return;
             }
@@ -697,12 +692,9 @@ public class BlockEventListener implements Listener {
                 plot.debug("Liquid could not flow because liquid-flow = disabled");
                 event.setCancelled(true);
             }
-        } else if (!area.contains(fLocation.getX(), fLocation.getZ()) || !Objects
-            .equals(null, area.getOwnedPlot(fLocation))) {
+        } else if (fromArea != area || fromPlot != null) {
             event.setCancelled(true);
         } else if (event.getBlock().isLiquid()) {
-            final org.bukkit.Location location = event.getBlock().getLocation();
-
             /*
                 X = block location
                 A-H = potential plot locations
@@ -715,15 +707,14 @@ public class BlockEventListener implements Listener {
                v
                 <-----O-----> x
              */
-            if (BukkitUtil.getPlot(location.clone().add(-1, 0, 1)  /* A */) != null
-                || BukkitUtil.getPlot(location.clone().add(1, 0, 0)   /* B */) != null
-                || BukkitUtil.getPlot(location.clone().add(1, 0, 1)   /* C */) != null
-                || BukkitUtil.getPlot(location.clone().add(-1, 0, 0)  /* D */) != null
-                || BukkitUtil.getPlot(location.clone().add(1, 0, 0)   /* E */) != null
-                || BukkitUtil.getPlot(location.clone().add(-1, 0, -1) /* F */) != null
-                || BukkitUtil.getPlot(location.clone().add(0, 0, -1)  /* G */) != null
-                || BukkitUtil.getPlot(location.clone().add(1, 0, 1)   /* H */) != null) {
-                event.setCancelled(true);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if ((dx != 0 || dz != 0) && PlotLookup.getRaster(world, fx + dx, fz + dz)
+                        .getPlotId(fx + dx, fz + dz) != null) {
+                        event.setCancelled(true);
+                        return;
+                    }
+                }
             }
         }
     }
@@ -731,8 +722,9 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onGrow(BlockGrowEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        if (location.isUnownedPlotArea()) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.getPlotArea(block.getX(), block.getZ()) != null
+            && raster.getOwnedPlotAbs(block.getX(), block.getZ()) == null) {
             event.setCancelled(true);
         }
     }
@@ -740,51 +732,40 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockPistonExtend(BlockPistonExtendEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
+        World world = block.getWorld();
         BlockFace face = event.getDirection();
-        Vector relative = new Vector(face.getModX(), face.getModY(), face.getModZ());
-        PlotArea area = location.getPlotArea();
+        int dx = face.getModX();
+        int dz = face.getModZ();
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        PlotArea area = raster.getPlotArea(block.getX(), block.getZ());
         if (area == null) {
-            if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+            if (!PlotSquared.get().hasPlotArea(world.getName())) {
                 return;
             }
             for (Block block1 : event.getBlocks()) {
-                Location bloc = BukkitUtil.getLocation(block1.getLocation());
-                if (bloc.isPlotArea() || bloc
-                    .add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())
-                    .isPlotArea()) {
+                if (PlotLookup.getPlotArea(world, block1.getX(), block1.getZ()) != null
+                    || PlotLookup.getPlotArea(world, block1.getX() + dx, block1.getZ() + dz) != null) {
                     event.setCancelled(true);
                     return;
                 }
             }
-            if (location.add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())
-                .isPlotArea()) {
+            if (PlotLookup.getPlotArea(world, block.getX() + dx, block.getZ() + dz) != null) {
                 // Prevent pistons from extending if they are: bordering a plot
                 // area, facing inside plot area, and not pushing any blocks
                 event.setCancelled(true);
             }
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null) {
             event.setCancelled(true);
             return;
         }
-        for (Block block1 : event.getBlocks()) {
-            Location bloc = BukkitUtil.getLocation(block1.getLocation());
-            if (!area.contains(bloc.getX(), bloc.getZ()) || !area
-                .contains(bloc.getX() + relative.getBlockX(), bloc.getZ() + relative.getBlockZ())) {
-                event.setCancelled(true);
-                return;
-            }
-            if (!plot.equals(area.getOwnedPlot(bloc)) || !plot.equals(area.getOwnedPlot(
-                bloc.add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())))) {
-                event.setCancelled(true);
-                return;
-            }
+        if (!this.canMoveBlocks(world, area, plot, event.getBlocks(), dx, dz)) {
+            event.setCancelled(true);
+            return;
         }
-        if (!plot.equals(area.getOwnedPlot(
-            location.add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())))) {
+        if (!plot.equals(PlotLookup.getOwnedPlot(world, block.getX() + dx, block.getZ() + dz))) {
             // This branch is only necessary to prevent pistons from extending
             // if they are: on a plot edge, facing outside the plot, and not
             // pushing any blocks
@@ -795,43 +776,48 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockPistonRetract(BlockPistonRetractEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
+        World world = block.getWorld();
         BlockFace face = event.getDirection();
-        Vector relative = new Vector(face.getModX(), face.getModY(), face.getModZ());
-        PlotArea area = location.getPlotArea();
+        int dx = face.getModX();
+        int dz = face.getModZ();
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        PlotArea area = raster.getPlotArea(block.getX(), block.getZ());
         if (area == null) {
-            if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+            if (!PlotSquared.get().hasPlotArea(world.getName())) {
                 return;
             }
             for (Block block1 : event.getBlocks()) {
-                Location bloc = BukkitUtil.getLocation(block1.getLocation());
-                if (bloc.isPlotArea() || bloc
-                    .add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())
-                    .isPlotArea()) {
+                if (PlotLookup.getPlotArea(world, block1.getX(), block1.getZ()) != null
+                    || PlotLookup.getPlotArea(world, block1.getX() + dx, block1.getZ() + dz) != null) {
                     event.setCancelled(true);
                     return;
                 }
             }
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
-        if (plot == null) {
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
+        if (plot == null || !this.canMoveBlocks(world, area, plot, event.getBlocks(), dx, dz)) {
             event.setCancelled(true);
-            return;
         }
-        for (Block block1 : event.getBlocks()) {
-            Location bloc = BukkitUtil.getLocation(block1.getLocation());
-            if (!area.contains(bloc.getX(), bloc.getZ()) || !area
-                .contains(bloc.getX() + relative.getBlockX(), bloc.getZ() + relative.getBlockZ())) {
-                event.setCancelled(true);
-                return;
+    }
+
+    /**
+     * Check whether all blocks moved by a piston stay within the plot of the piston
+     */
+    private boolean canMoveBlocks(World world, PlotArea area, Plot plot, List<Block> blocks,
+        int dx, int dz) {
+        for (Block block : blocks) {
+            int x = block.getX();
+            int z = block.getZ();
+            if (!area.contains(x, z) || !area.contains(x + dx, z + dz)) {
+                return false;
             }
-            if (!plot.equals(area.getOwnedPlot(bloc)) || !plot.equals(area.getOwnedPlot(
-                bloc.add(relative.getBlockX(), relative.getBlockY(), relative.getBlockZ())))) {
-                event.setCancelled(true);
-                return;
+            if (!plot.equals(PlotLookup.getOwnedPlot(world, x, z)) || !plot
+                .equals(PlotLookup.getOwnedPlot(world, x + dx, z + dz))) {
+                return false;
             }
         }
+        return true;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
@@ -874,9 +860,8 @@ public class BlockEventListener implements Listener {
                 }
                 BlockFace targetFace =
                     ((Directional) event.getBlock().getState().getData()).getFacing();
-                Location location =
-                    BukkitUtil.getLocation(event.getBlock().getRelative(targetFace).getLocation());
-                if (location.isPlotRoad()) {
+                Block target = event.getBlock().getRelative(targetFace);
+                if (PlotLookup.getRaster(target).isPlotRoad(target.getX(), target.getZ())) {
                     event.setCancelled(true);
                 }
             }
@@ -944,44 +929,37 @@ public class BlockEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBigBoom(BlockExplodeEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        String world = location.getWorld();
-        if (!PlotSquared.get().hasPlotArea(world)) {
+        World world = block.getWorld();
+        if (!PlotSquared.get().hasPlotArea(world.getName())) {
             return;
         }
-        PlotArea area = location.getPlotArea();
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        PlotArea area = raster.getPlotArea(block.getX(), block.getZ());
         if (area == null) {
-            Iterator<Block> iterator = event.blockList().iterator();
-            while (iterator.hasNext()) {
-                location = BukkitUtil.getLocation(iterator.next().getLocation());
-                if (location.isPlotArea()) {
-                    iterator.remove();
-                }
-            }
+            ExplosionFilter.removePlotAreas(world, event.blockList());
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null || !plot.getFlag(ExplosionFlag.class)) {
             event.setCancelled(true);
             if (plot != null) {
                 plot.debug("Explosion was cancelled because explosion = false");
             }
         }
-        event.blockList().removeIf(blox -> plot != null && !plot
-            .equals(area.getOwnedPlot(BukkitUtil.getLocation(blox.getLocation()))));
+        if (plot != null) {
+            ExplosionFilter.retainPlot(world, event.blockList(), area, plot);
+        }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockBurn(BlockBurnEvent event) {
         Block block = event.getBlock();
-        Location location = BukkitUtil.getLocation(block.getLocation());
-
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.getPlotArea(block.getX(), block.getZ()) == null) {
             return;
         }
 
-        Plot plot = location.getOwnedPlot();
+        Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
         if (plot == null || !plot.getFlag(BlockBurnFlag.class)) {
             if (plot != null) {
                 plot.debug("Block burning was cancelled because block-burn = false");
@@ -27,8 +27,8 @@ package com.plotsquared.bukkit.listener;
 
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Settings;
-import com.plotsquared.core.location.Location;
-import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.ChunkPlotRaster;
+import com.plotsquared.core.util.MathMan;
 import com.plotsquared.core.util.ReflectionUtils.RefClass;
 import com.plotsquared.core.util.ReflectionUtils.RefField;
 import com.plotsquared.core.util.ReflectionUtils.RefMethod;
@@ -49,21 +49,49 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPhysicsEvent;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.plotsquared.core.util.ReflectionUtils.getRefClass;
 
 @SuppressWarnings("unused")
 public class ChunkListener implements Listener {
 
+    /**
+     * Maximum time (in milliseconds) spent trimming chunks per tick
+     */
+    private static final long TRIM_BUDGET = 5;
+    /**
+     * Interval (in ticks) after which all loaded chunks are checked again,
+     * e.g. for chunks kept loaded by something other than players
+     */
+    private static final int RESCAN_INTERVAL = 1200;
+
+    private final Map<String, TrimQueue> trimQueues = new HashMap<>();
+    private final AtomicLong trimmedChunks = new AtomicLong();
+    private final AtomicLong savedChunks = new AtomicLong();
     private RefMethod methodGetHandleChunk;
     private RefField mustSave;
+    private MethodHandle methodGetHandleWorld;
+    private MethodHandle methodGetPlayerChunkMap;
+    private MethodHandle methodIsChunkInUse;
     private Chunk lastChunk;
     private boolean ignoreUnload = false;
+    private int ticks;
 
     public ChunkListener() {
         if (Settings.Chunk_Processor.AUTO_TRIM) {
@@ -72,6 +100,16 @@ public class ChunkListener implements Listener {
                 RefClass classCraftChunk = getRefClass("{cb}.CraftChunk");
                 this.mustSave = classChunk.getField("mustSave");
                 this.methodGetHandleChunk = classCraftChunk.getMethod("getHandle");
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                Method methodGetHandleWorld =
+                    getRefClass("{cb}.CraftWorld").getRealClass().getDeclaredMethod("getHandle");
+                Method methodGetPlayerChunkMap = methodGetHandleWorld.getReturnType()
+                    .getDeclaredMethod("getPlayerChunkMap");
+                Method methodIsChunkInUse = methodGetPlayerChunkMap.getReturnType()
+                    .getDeclaredMethod("isChunkInUse", int.class, int.class);
+                this.methodGetHandleWorld = lookup.unreflect(methodGetHandleWorld);
+                this.methodGetPlayerChunkMap = lookup.unreflect(methodGetPlayerChunkMap);
+                this.methodIsChunkInUse = lookup.unreflect(methodIsChunkInUse);
             } catch (Throwable ignored) {
                 PlotSquared.debug(PlotSquared.get().IMP.getPluginName()
                     + "/Server not compatible for chunk processor trim/gc");
@@ -87,47 +125,122 @@ public class ChunkListener implements Listener {
         }
         TaskManager.runTaskRepeat(() -> {
             try {
-                HashSet<Chunk> toUnload = new HashSet<>();
-                for (World world : Bukkit.getWorlds()) {
-                    String worldName = world.getName();
-                    if (!PlotSquared.get().hasPlotArea(worldName)) {
-                        continue;
-                    }
-                    Object w = world.getClass().getDeclaredMethod("getHandle").invoke(world);
-                    Object chunkMap = w.getClass().getDeclaredMethod("getPlayerChunkMap").invoke(w);
-                    Method methodIsChunkInUse =
-                        chunkMap.getClass().getDeclaredMethod("isChunkInUse", int.class, int.class);
-                    Chunk[] chunks = world.getLoadedChunks();
-                    for (Chunk chunk : chunks) {
-                        if ((boolean) methodIsChunkInUse
-                            .invoke(chunkMap, chunk.getX(), chunk.getZ())) {
-                            continue;
-                        }
-                        int x = chunk.getX();
-                        int z = chunk.getZ();
-                        if (!shouldSave(worldName, x, z)) {
-                            unloadChunk(worldName, chunk, false);
-                            continue;
-                        }
-                        toUnload.add(chunk);
-                    }
-                }
-                if (toUnload.isEmpty()) {
-                    return;
-                }
-                long start = System.currentTimeMillis();
-                for (Chunk chunk : toUnload) {
-                    if (System.currentTimeMillis() - start > 5) {
-                        return;
-                    }
-                    chunk.unload(true);
+                if (this.ticks++ % RESCAN_INTERVAL == 0) {
+                    this.rescan();
                 }
+                this.trim();
             } catch (Throwable e) {
                 e.printStackTrace();
             }
         }, 1);
     }
 
+    /**
+     * Get the number of chunks that were unloaded without saving
+     *
+     * @return Number of trimmed chunks
+     */
+    public long getTrimmedChunks() {
+        return this.trimmedChunks.get();
+    }
+
+    /**
+     * Get the number of chunks that were unloaded by the trim task and
+     * saved because they contain owned plots
+     *
+     * @return Number of saved chunks
+     */
+    public long getSavedChunks() {
+        return this.savedChunks.get();
+    }
+
+    private void rescan() {
+        for (World world : Bukkit.getWorlds()) {
+            String worldName = world.getName();
+            if (!PlotSquared.get().hasPlotArea(worldName)) {
+                this.trimQueues.remove(worldName);
+                continue;
+            }
+            TrimQueue queue = this.getTrimQueue(worldName);
+            queue.parked.clear();
+            for (Chunk chunk : world.getLoadedChunks()) {
+                queue.candidates.add(MathMan.pairInt(chunk.getX(), chunk.getZ()));
+            }
+        }
+    }
+
+    private void trim() throws Throwable {
+        long start = System.currentTimeMillis();
+        Iterator<Map.Entry<String, TrimQueue>> queues = this.trimQueues.entrySet().iterator();
+        while (queues.hasNext()) {
+            Map.Entry<String, TrimQueue> entry = queues.next();
+            TrimQueue queue = entry.getValue();
+            if (queue.candidates.isEmpty()) {
+                continue;
+            }
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) {
+                queues.remove();
+                continue;
+            }
+            Object chunkMap = this.methodGetPlayerChunkMap
+                .invoke(this.methodGetHandleWorld.invoke(world));
+            Iterator<Long> candidates = queue.candidates.iterator();
+            while (candidates.hasNext()) {
+                if (System.currentTimeMillis() - start > TRIM_BUDGET) {
+                    return;
+                }
+                long key = candidates.next();
+                candidates.remove();
+                int x = MathMan.unpairIntX(key);
+                int z = MathMan.unpairIntY(key);
+                if (!world.isChunkLoaded(x, z)) {
+                    continue;
+                }
+                if ((boolean) this.methodIsChunkInUse.invoke(chunkMap, x, z)) {
+                    queue.parked.add(key);
+                    continue;
+                }
+                Chunk chunk = world.getChunkAt(x, z);
+                if (!shouldSave(entry.getKey(), x, z)) {
+                    unloadChunk(entry.getKey(), chunk, false);
+                    continue;
+                }
+                if (chunk.unload(true)) {
+                    this.savedChunks.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check the parked chunks within view distance of a location
+     * again, once a player may no longer be using them
+     *
+     * @param location Previous location of the player
+     */
+    private void release(org.bukkit.Location location) {
+        TrimQueue queue = this.trimQueues.get(location.getWorld().getName());
+        if (queue == null || queue.parked.isEmpty()) {
+            return;
+        }
+        int radius = Bukkit.getViewDistance();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        for (int x = chunkX - radius; x <= chunkX + radius; x++) {
+            for (int z = chunkZ - radius; z <= chunkZ + radius; z++) {
+                long key = MathMan.pairInt(x, z);
+                if (queue.parked.remove(key)) {
+                    queue.candidates.add(key);
+                }
+            }
+        }
+    }
+
+    private TrimQueue getTrimQueue(String world) {
+        return this.trimQueues.computeIfAbsent(world, key -> new TrimQueue());
+    }
+
     public boolean unloadChunk(String world, Chunk chunk, boolean safe) {
         if (safe && shouldSave(world, chunk.getX(), chunk.getZ())) {
             return false;
@@ -136,6 +249,7 @@ public class ChunkListener implements Listener {
         RefField.RefExecutor field = this.mustSave.of(c);
         if ((Boolean) field.get()) {
             field.set(false);
+            this.trimmedChunks.incrementAndGet();
             if (chunk.isLoaded()) {
                 ignoreUnload = true;
                 chunk.unload(false);
@@ -146,35 +260,22 @@ public class ChunkListener implements Listener {
     }
 
     public boolean shouldSave(String world, int chunkX, int chunkZ) {
-        int x = chunkX << 4;
-        int z = chunkZ << 4;
-        int x2 = x + 15;
-        int z2 = z + 15;
-        Plot plot = new Location(world, x, 1, z).getOwnedPlotAbs();
-        if (plot != null && plot.hasOwner()) {
-            return true;
-        }
-        plot = new Location(world, x2, 1, z2).getOwnedPlotAbs();
-        if (plot != null && plot.hasOwner()) {
-            return true;
-        }
-        plot = new Location(world, x2, 1, z).getOwnedPlotAbs();
-        if (plot != null && plot.hasOwner()) {
-            return true;
-        }
-        plot = new Location(world, x, 1, z2).getOwnedPlotAbs();
-        if (plot != null && plot.hasOwner()) {
-            return true;
-        }
-        plot = new Location(world, x + 7, 1, z + 7).getOwnedPlotAbs();
-        return plot != null && plot.hasOwner();
+        return ChunkPlotRaster.get(world, chunkX << 4, chunkZ << 4).hasOwnedPlot();
     }
 
     @EventHandler public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        if (Settings.Chunk_Processor.AUTO_TRIM) {
+            TrimQueue queue = this.trimQueues.get(chunk.getWorld().getName());
+            if (queue != null) {
+                long key = MathMan.pairInt(chunk.getX(), chunk.getZ());
+                queue.candidates.remove(key);
+                queue.parked.remove(key);
+            }
+        }
         if (ignoreUnload) {
             return;
         }
-        Chunk chunk = event.getChunk();
         if (Settings.Chunk_Processor.AUTO_TRIM) {
             String world = chunk.getWorld().getName();
             if (PlotSquared.get().hasPlotArea(world)) {
@@ -189,7 +290,45 @@ public class ChunkListener implements Listener {
     }
 
     @EventHandler public void onChunkLoad(ChunkLoadEvent event) {
-        processChunk(event.getChunk(), false);
+        Chunk chunk = event.getChunk();
+        if (Settings.Chunk_Processor.AUTO_TRIM) {
+            String world = chunk.getWorld().getName();
+            if (PlotSquared.get().hasPlotArea(world)) {
+                getTrimQueue(world).candidates.add(MathMan.pairInt(chunk.getX(), chunk.getZ()));
+            }
+        }
+        processChunk(chunk, false);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (!Settings.Chunk_Processor.AUTO_TRIM) {
+            return;
+        }
+        org.bukkit.Location from = event.getFrom();
+        org.bukkit.Location to = event.getTo();
+        if (to == null || from.getWorld() != to.getWorld()
+            || from.getBlockX() >> 4 != to.getBlockX() >> 4
+            || from.getBlockZ() >> 4 != to.getBlockZ() >> 4) {
+            release(from);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        if (Settings.Chunk_Processor.AUTO_TRIM) {
+            TrimQueue queue = this.trimQueues.get(event.getFrom().getName());
+            if (queue != null) {
+                queue.candidates.addAll(queue.parked);
+                queue.parked.clear();
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR) public void onPlayerQuit(PlayerQuitEvent event) {
+        if (Settings.Chunk_Processor.AUTO_TRIM) {
+            release(event.getPlayer().getLocation());
+        }
     }
 
     @EventHandler(priority = EventPriority.LOWEST) public void onItemSpawn(ItemSpawnEvent event) {
@@ -316,4 +455,18 @@ public class ChunkListener implements Listener {
         }
         return false;
     }
+
+    private static final class TrimQueue {
+
+        /**
+         * Loaded chunks that have yet to be checked
+         */
+        private final Set<Long> candidates = new LinkedHashSet<>();
+        /**
+         * Loaded chunks that were in use by a player when they were checked
+         */
+        private final Set<Long> parked = new HashSet<>();
+
+    }
+
 }
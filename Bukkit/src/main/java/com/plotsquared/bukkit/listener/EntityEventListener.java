@@ -27,9 +27,12 @@ package com.plotsquared.bukkit.listener;
 
 import com.plotsquared.bukkit.util.BukkitEntityUtil;
 import com.plotsquared.bukkit.util.BukkitUtil;
+import com.plotsquared.bukkit.util.ExplosionFilter;
+import com.plotsquared.bukkit.util.PlotLookup;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.location.Location;
+import com.plotsquared.core.plot.ChunkPlotRaster;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.flag.implementations.DisablePhysicsFlag;
@@ -37,7 +40,6 @@ import com.plotsquared.core.plot.flag.implementations.ExplosionFlag;
 import com.plotsquared.core.plot.flag.implementations.InvincibleFlag;
 import com.plotsquared.core.plot.flag.implementations.MobPlaceFlag;
 import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Ageable;
 import org.bukkit.entity.Entity;
@@ -60,7 +62,6 @@ import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.plugin.Plugin;
 
-import java.util.Iterator;
 import java.util.List;
 
 @SuppressWarnings("unused")
@@ -113,8 +114,9 @@ public class EntityEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void creatureSpawnEvent(CreatureSpawnEvent event) {
         Entity entity = event.getEntity();
-        Location location = BukkitUtil.getLocation(entity.getLocation());
-        PlotArea area = location.getPlotArea();
+        org.bukkit.Location location = event.getLocation();
+        ChunkPlotRaster raster = PlotLookup.getRaster(location);
+        PlotArea area = raster.getPlotArea(location.getBlockX(), location.getBlockZ());
         if (area == null) {
             return;
         }
@@ -169,7 +171,7 @@ public class EntityEventListener implements Listener {
                 }
                 break;
         }
-        Plot plot = area.getOwnedPlotAbs(location);
+        Plot plot = raster.getOwnedPlotAbs(location.getBlockX(), location.getBlockZ());
         if (plot == null) {
             if (!area.isMobSpawning()) {
                 event.setCancelled(true);
@@ -187,17 +189,11 @@ public class EntityEventListener implements Listener {
             return;
         }
         Block block = event.getBlock();
-        World world = block.getWorld();
-        String worldName = world.getName();
-        if (!PlotSquared.get().hasPlotArea(worldName)) {
+        ChunkPlotRaster raster = PlotLookup.getRaster(block);
+        if (raster.getPlotArea(block.getX(), block.getZ()) == null) {
             return;
         }
-        Location location = BukkitUtil.getLocation(block.getLocation());
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
-            return;
-        }
-        Plot plot = area.getOwnedPlotAbs(location);
+        Plot plot = raster.getOwnedPlotAbs(block.getX(), block.getZ());
         if (plot == null || plot.getFlag(DisablePhysicsFlag.class)) {
             event.setCancelled(true);
             if (plot != null) {
@@ -226,12 +222,13 @@ public class EntityEventListener implements Listener {
         if (event.getEntityType() != EntityType.PLAYER) {
             return;
         }
-        Location location = BukkitUtil.getLocation(event.getEntity());
-        PlotArea area = location.getPlotArea();
+        org.bukkit.Location location = event.getEntity().getLocation();
+        ChunkPlotRaster raster = PlotLookup.getRaster(location);
+        PlotArea area = raster.getPlotArea(location.getBlockX(), location.getBlockZ());
         if (area == null) {
             return;
         }
-        Plot plot = location.getOwnedPlot();
+        Plot plot = raster.getOwnedPlot(location.getBlockX(), location.getBlockZ());
         if (plot == null) {
             if (area.isRoadFlags() && area.getRoadFlag(InvincibleFlag.class)) {
                 event.setCancelled(true);
@@ -247,16 +244,13 @@ public class EntityEventListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBigBoom(EntityExplodeEvent event) {
-        Location location = BukkitUtil.getLocation(event.getLocation());
-        PlotArea area = location.getPlotArea();
-        boolean plotArea = location.isPlotArea();
-        if (!plotArea) {
-            if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
-                return;
-            }
+        org.bukkit.Location location = event.getLocation();
+        ChunkPlotRaster raster = PlotLookup.getRaster(location);
+        PlotArea area = raster.getPlotArea(location.getBlockX(), location.getBlockZ());
+        if (area == null) {
             return;
         }
-        Plot plot = area.getOwnedPlot(location);
+        Plot plot = raster.getOwnedPlot(location.getBlockX(), location.getBlockZ());
         if (plot != null) {
             if (plot.getFlag(ExplosionFlag.class)) {
                 List<MetadataValue> meta = event.getEntity().getMetadata("plot");
@@ -280,15 +274,7 @@ public class EntityEventListener implements Listener {
                     }
                     this.lastRadius = 0;
                 }
-                Iterator<Block> iterator = event.blockList().iterator();
-                while (iterator.hasNext()) {
-                    Block block = iterator.next();
-                    location = BukkitUtil.getLocation(block.getLocation());
-                    if (!area.contains(location.getX(), location.getZ()) || (origin != null
-                        && !origin.equals(area.getOwnedPlot(location)))) {
-                        iterator.remove();
-                    }
-                }
+                ExplosionFilter.retainPlot(location.getWorld(), event.blockList(), area, origin);
                 return;
             } else {
                 plot.debug("Explosion was cancelled because explosion = false");
@@ -301,10 +287,10 @@ public class EntityEventListener implements Listener {
     public void onPeskyMobsChangeTheWorldLikeWTFEvent(EntityChangeBlockEvent event) {
         Entity e = event.getEntity();
         if (!(e instanceof FallingBlock)) {
-            Location location = BukkitUtil.getLocation(event.getBlock().getLocation());
-            PlotArea area = location.getPlotArea();
-            if (area != null) {
-                Plot plot = area.getOwnedPlot(location);
+            Block block = event.getBlock();
+            ChunkPlotRaster raster = PlotLookup.getRaster(block);
+            if (raster.getPlotArea(block.getX(), block.getZ()) != null) {
+                Plot plot = raster.getOwnedPlot(block.getX(), block.getZ());
                 if (plot != null && plot.getFlag(MobPlaceFlag.class)) {
                     return;
                 }
@@ -323,12 +309,12 @@ public class EntityEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onVehicleCreate(VehicleCreateEvent event) {
         Vehicle entity = event.getVehicle();
-        Location location = BukkitUtil.getLocation(entity);
-        PlotArea area = location.getPlotArea();
-        if (area == null) {
+        org.bukkit.Location location = entity.getLocation();
+        ChunkPlotRaster raster = PlotLookup.getRaster(location);
+        if (raster.getPlotArea(location.getBlockX(), location.getBlockZ()) == null) {
             return;
         }
-        Plot plot = area.getOwnedPlotAbs(location);
+        Plot plot = raster.getOwnedPlotAbs(location.getBlockX(), location.getBlockZ());
         if (plot == null || BukkitEntityUtil.checkEntity(entity, plot)) {
             entity.remove();
             return;
@@ -25,35 +25,60 @@
  */
 package com.plotsquared.bukkit.listener;
 
-import com.google.common.collect.Iterables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.plotsquared.bukkit.player.BukkitPlayer;
-import com.plotsquared.bukkit.util.BukkitUtil;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.location.Location;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotOccupants;
 import com.plotsquared.core.plot.flag.implementations.ForcefieldFlag;
 import com.plotsquared.core.util.Permissions;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("unused")
 public class ForceFieldListener {
 
+    private static final double RADIUS = 5d;
+    /**
+     * The same player is pushed away from the same player at most once per interval,
+     * as movement events fire for every block that is crossed
+     */
+    private static final Cache<Push, Boolean> recentPushes =
+        CacheBuilder.newBuilder().expireAfterWrite(250, TimeUnit.MILLISECONDS).build();
+
+    /**
+     * Players inside the plot are looked up through the occupant index rather than
+     * scanning the world for nearby entities
+     */
+    private static boolean isNearby(Player player, PlotPlayer<?> other) {
+        if (!(other instanceof BukkitPlayer)) {
+            return false;
+        }
+        final Player otherPlayer = ((BukkitPlayer) other).player;
+        if (otherPlayer == player || otherPlayer.getWorld() != player.getWorld()) {
+            return false;
+        }
+        final org.bukkit.Location location = player.getLocation();
+        final org.bukkit.Location otherLocation = otherPlayer.getLocation();
+        return Math.abs(location.getX() - otherLocation.getX()) <= RADIUS
+            && Math.abs(location.getY() - otherLocation.getY()) <= RADIUS
+            && Math.abs(location.getZ() - otherLocation.getZ()) <= RADIUS;
+    }
+
     private static Set<PlotPlayer> getNearbyPlayers(Player player, Plot plot) {
         Set<PlotPlayer> players = new HashSet<>();
-        for (Player nearPlayer : Iterables
-            .filter(player.getNearbyEntities(5d, 5d, 5d), Player.class)) {
-            PlotPlayer plotPlayer;
-            if ((plotPlayer = BukkitUtil.getPlayer(nearPlayer)) == null || !plot
-                .equals(plotPlayer.getCurrentPlot())) {
-                continue;
-            }
-            if (!plot.isAdded(plotPlayer.getUUID())) {
+        for (PlotPlayer<?> plotPlayer : PlotOccupants.getPlayersInPlot(plot)) {
+            if (isNearby(player, plotPlayer) && !plot.isAdded(plotPlayer.getUUID())) {
                 players.add(plotPlayer);
             }
         }
@@ -61,20 +86,19 @@ public class ForceFieldListener {
     }
 
     private static PlotPlayer hasNearbyPermitted(Player player, Plot plot) {
-        for (Player nearPlayer : Iterables
-            .filter(player.getNearbyEntities(5d, 5d, 5d), Player.class)) {
-            PlotPlayer plotPlayer;
-            if ((plotPlayer = BukkitUtil.getPlayer(nearPlayer)) == null || !plot
-                .equals(plotPlayer.getCurrentPlot())) {
-                continue;
-            }
-            if (plot.isAdded(plotPlayer.getUUID())) {
+        for (PlotPlayer<?> plotPlayer : PlotOccupants.getPlayersInPlot(plot)) {
+            if (isNearby(player, plotPlayer) && plot.isAdded(plotPlayer.getUUID())) {
                 return plotPlayer;
             }
         }
         return null;
     }
 
+    private static boolean shouldPush(PlotPlayer<?> pusher, PlotPlayer<?> pushed) {
+        return recentPushes.asMap()
+            .putIfAbsent(new Push(pusher.getUUID(), pushed.getUUID()), Boolean.TRUE) == null;
+    }
+
     private static Vector calculateVelocity(PlotPlayer player, PlotPlayer e) {
         Location playerLocation = player.getLocationFull();
         Location oPlayerLocation = e.getLocation();
@@ -112,7 +136,8 @@ public class ForceFieldListener {
                 Set<PlotPlayer> players = getNearbyPlayers(player, plot);
                 for (PlotPlayer oPlayer : players) {
                     if (!Permissions
-                        .hasPermission(oPlayer, Captions.PERMISSION_ADMIN_ENTRY_FORCEFIELD)) {
+                        .hasPermission(oPlayer, Captions.PERMISSION_ADMIN_ENTRY_FORCEFIELD)
+                        && shouldPush(plotPlayer, oPlayer)) {
                         ((BukkitPlayer) oPlayer).player
                             .setVelocity(calculateVelocity(plotPlayer, oPlayer));
                     }
@@ -123,10 +148,20 @@ public class ForceFieldListener {
                     return;
                 }
                 if (!Permissions
-                    .hasPermission(plotPlayer, Captions.PERMISSION_ADMIN_ENTRY_FORCEFIELD)) {
+                    .hasPermission(plotPlayer, Captions.PERMISSION_ADMIN_ENTRY_FORCEFIELD)
+                    && shouldPush(oPlayer, plotPlayer)) {
                     player.setVelocity(calculateVelocity(oPlayer, plotPlayer));
                 }
             }
         }
     }
+
+
+    @EqualsAndHashCode @RequiredArgsConstructor private static final class Push {
+
+        private final UUID pusher;
+        private final UUID pushed;
+
+    }
+
 }
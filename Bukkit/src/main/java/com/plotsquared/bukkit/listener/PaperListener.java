@@ -33,17 +33,23 @@ import com.destroystokyo.paper.event.entity.SlimePathfindEvent;
 import com.destroystokyo.paper.event.player.PlayerLaunchProjectileEvent;
 import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
 import com.plotsquared.bukkit.util.BukkitUtil;
+import com.plotsquared.bukkit.util.PlotLookup;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.command.Command;
 import com.plotsquared.core.command.MainCommand;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.Settings;
-import com.plotsquared.core.location.Location;
 import com.plotsquared.core.player.PlotPlayer;
+import com.plotsquared.core.plot.ChunkPlotRaster;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
+import com.plotsquared.core.plot.PlotId;
+import com.plotsquared.core.plot.flag.FlagContainer;
 import com.plotsquared.core.plot.flag.implementations.DoneFlag;
+import com.plotsquared.core.util.MathMan;
+import com.plotsquared.core.util.task.TaskManager;
 import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.TileState;
 import org.bukkit.entity.Entity;
@@ -58,11 +64,16 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.projectiles.ProjectileSource;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 /**
@@ -71,39 +82,139 @@ import java.util.regex.Pattern;
 @SuppressWarnings("unused")
 public class PaperListener implements Listener {
 
+    /**
+     * Time (in milliseconds) for which pathfinding and spawn decisions are reused
+     */
+    private static final long CACHE_TTL = 1000;
+
+    private final Map<Integer, PathDecision> pathDecisions = new HashMap<>();
+    private final Map<World, Map<Long, SpawnDecisions>> spawnDecisions = new HashMap<>();
+    private final LongAdder pathChecksEvaluated = new LongAdder();
+    private final LongAdder pathChecksCached = new LongAdder();
+    private final LongAdder spawnChecksEvaluated = new LongAdder();
+    private final LongAdder spawnChecksCached = new LongAdder();
     private Chunk lastChunk;
 
-    @EventHandler public void onEntityPathfind(EntityPathfindEvent event) {
-        if (!Settings.Paper_Components.ENTITY_PATHING) {
-            return;
+    public PaperListener() {
+        TaskManager.runTaskRepeat(this::pruneDecisions, 200);
+    }
+
+    /**
+     * Get the number of pathfinding checks that were evaluated and that were
+     * served from the cache
+     *
+     * @return Evaluated and cached check counts
+     */
+    public long[] getPathChecks() {
+        return new long[] {this.pathChecksEvaluated.sum(), this.pathChecksCached.sum()};
+    }
+
+    /**
+     * Get the number of pre-spawn checks that were evaluated and that were
+     * served from the cache
+     *
+     * @return Evaluated and cached check counts
+     */
+    public long[] getSpawnChecks() {
+        return new long[] {this.spawnChecksEvaluated.sum(), this.spawnChecksCached.sum()};
+    }
+
+    private void pruneDecisions() {
+        long now = System.currentTimeMillis();
+        this.pathDecisions.values().removeIf(decision -> decision.expires < now);
+        Iterator<Map<Long, SpawnDecisions>> worlds = this.spawnDecisions.values().iterator();
+        while (worlds.hasNext()) {
+            Map<Long, SpawnDecisions> chunks = worlds.next();
+            chunks.values().removeIf(decisions -> decisions.expires < now);
+            if (chunks.isEmpty()) {
+                worlds.remove();
+            }
         }
-        Location toLoc = BukkitUtil.getLocation(event.getLoc());
-        Location fromLoc = BukkitUtil.getLocation(event.getEntity().getLocation());
-        PlotArea tarea = toLoc.getPlotArea();
+    }
+
+    /**
+     * Check whether an entity may path between two block columns, which is
+     * the case outside of plot areas and within the same (merged) plot or road
+     */
+    private static boolean canPath(ChunkPlotRaster fraster, int fx, int fz,
+        ChunkPlotRaster traster, int tx, int tz) {
+        PlotArea tarea = traster.getPlotArea(tx, tz);
         if (tarea == null) {
-            return;
+            return true;
         }
-        PlotArea farea = fromLoc.getPlotArea();
+        PlotArea farea = fraster.getPlotArea(fx, fz);
         if (farea == null) {
-            return;
+            return true;
         }
         if (tarea != farea) {
-            event.setCancelled(true);
-            return;
+            return false;
         }
-        Plot tplot = toLoc.getPlot();
-        Plot fplot = fromLoc.getPlot();
-        if (tplot == null ^ fplot == null) {
-            event.setCancelled(true);
-            return;
+        PlotId tid = traster.getPlotId(tx, tz);
+        PlotId fid = fraster.getPlotId(fx, fz);
+        if (tid == null ^ fid == null) {
+            return false;
         }
-        if (tplot == null || tplot.getId().hashCode() == fplot.getId().hashCode()) {
-            return;
+        if (tid == null) {
+            return true;
+        }
+        Plot tplot = traster.getOwnedPlot(tx, tz);
+        Plot fplot = fraster.getOwnedPlot(fx, fz);
+        if (tplot != null) {
+            tid = tplot.getId();
+        }
+        if (fplot != null) {
+            fid = fplot.getId();
         }
-        if (fplot.isMerged() && fplot.getConnectedPlots().contains(fplot)) {
+        return tid.equals(fid) || fplot != null && fplot.isMerged();
+    }
+
+    /**
+     * Check whether an entity may path between two locations, reusing the
+     * previous decision for the entity while it is still valid
+     */
+    private boolean canPath(Entity entity, org.bukkit.Location from, org.bukkit.Location to) {
+        int fx = from.getBlockX();
+        int fz = from.getBlockZ();
+        int tx = to.getBlockX();
+        int tz = to.getBlockZ();
+        long now = System.currentTimeMillis();
+        // Rasters are replaced when their plots change, so an identical raster
+        // means the same chunk with unchanged plots
+        ChunkPlotRaster fraster = PlotLookup.getRaster(from);
+        ChunkPlotRaster traster = from.getWorld() == to.getWorld() && fx >> 4 == tx >> 4
+            && fz >> 4 == tz >> 4 ? fraster : PlotLookup.getRaster(to);
+        PathDecision decision = this.pathDecisions.get(entity.getEntityId());
+        if (decision != null && decision.expires >= now && decision.fromRaster == fraster
+            && decision.toRaster == traster && (decision.uniform || decision.fromX == fx
+            && decision.fromZ == fz && decision.toX == tx && decision.toZ == tz)) {
+            this.pathChecksCached.increment();
+            return decision.allowed;
+        }
+        if (decision == null) {
+            decision = new PathDecision();
+            this.pathDecisions.put(entity.getEntityId(), decision);
+        }
+        decision.fromRaster = fraster;
+        decision.toRaster = traster;
+        decision.fromX = fx;
+        decision.fromZ = fz;
+        decision.toX = tx;
+        decision.toZ = tz;
+        decision.uniform = fraster.isUniform() && traster.isUniform();
+        decision.expires = now + CACHE_TTL;
+        decision.allowed = canPath(fraster, fx, fz, traster, tx, tz);
+        this.pathChecksEvaluated.increment();
+        return decision.allowed;
+    }
+
+    @EventHandler public void onEntityPathfind(EntityPathfindEvent event) {
+        if (!Settings.Paper_Components.ENTITY_PATHING) {
             return;
         }
-        event.setCancelled(true);
+        Entity entity = event.getEntity();
+        if (!canPath(entity, entity.getLocation(), event.getLoc())) {
+            event.setCancelled(true);
+        }
     }
 
     @EventHandler public void onEntityPathfind(SlimePathfindEvent event) {
@@ -117,62 +228,87 @@ public class PaperListener implements Listener {
             return;
         }
 
-        Location toLoc = BukkitUtil.getLocation(b.getLocation());
-        Location fromLoc = BukkitUtil.getLocation(event.getEntity().getLocation());
-        PlotArea tarea = toLoc.getPlotArea();
-        if (tarea == null) {
-            return;
-        }
-        PlotArea farea = fromLoc.getPlotArea();
-        if (farea == null) {
-            return;
-        }
-
-        if (tarea != farea) {
+        if (!canPath(slime, slime.getLocation(), b.getLocation())) {
             event.setCancelled(true);
-            return;
         }
-        Plot tplot = toLoc.getPlot();
-        Plot fplot = fromLoc.getPlot();
-        if (tplot == null ^ fplot == null) {
-            event.setCancelled(true);
-            return;
-        }
-        if (tplot == null || tplot.getId().hashCode() == fplot.getId().hashCode()) {
-            return;
-        }
-        if (fplot.isMerged() && fplot.getConnectedPlots().contains(fplot)) {
-            return;
-        }
-        event.setCancelled(true);
     }
 
     @EventHandler public void onPreCreatureSpawnEvent(PreCreatureSpawnEvent event) {
         if (!Settings.Paper_Components.CREATURE_SPAWN) {
             return;
         }
-        Location location = BukkitUtil.getLocation(event.getSpawnLocation());
-        PlotArea area = location.getPlotArea();
-        if (!location.isPlotArea()) {
+        org.bukkit.Location location = event.getSpawnLocation();
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        ChunkPlotRaster raster = PlotLookup.getRaster(location);
+        PlotArea area = raster.getPlotArea(x, z);
+        if (area == null) {
             return;
         }
+        // The entity count changes with every allowed spawn, so it is never cached
         //If entities are spawning... the chunk should be loaded?
-        Entity[] entities = event.getSpawnLocation().getChunk().getEntities();
-        if (entities.length > Settings.Chunk_Processor.MAX_ENTITIES) {
+        if (location.getChunk().getEntities().length > Settings.Chunk_Processor.MAX_ENTITIES) {
             event.setShouldAbortSpawn(true);
             event.setCancelled(true);
             return;
         }
-        CreatureSpawnEvent.SpawnReason reason = event.getReason();
+        long now = System.currentTimeMillis();
+        SpawnDecisions decisions = this.spawnDecisions
+            .computeIfAbsent(location.getWorld(), key -> new HashMap<>())
+            .computeIfAbsent(MathMan.pairInt(x >> 4, z >> 4), key -> new SpawnDecisions());
+        if (decisions.expires < now) {
+            decisions.expires = now + CACHE_TTL;
+            decisions.allowed.clear();
+        }
+        long flags = FlagContainer.getModificationCount();
+        if (decisions.raster != raster || decisions.flags != flags) {
+            decisions.raster = raster;
+            decisions.flags = flags;
+            decisions.allowed.clear();
+        }
+        boolean allowed;
+        if (raster.isUniform()) {
+            // The decision only depends on the plot, which is the same for the entire chunk
+            int key = event.getReason().ordinal() << 16 | event.getType().ordinal();
+            Boolean cached = decisions.allowed.get(key);
+            if (cached == null) {
+                allowed = canSpawn(area, raster.getOwnedPlotAbs(x, z), event.getReason(),
+                    event.getType());
+                decisions.allowed.put(key, allowed);
+                this.spawnChecksEvaluated.increment();
+            } else {
+                allowed = cached;
+                this.spawnChecksCached.increment();
+            }
+        } else {
+            allowed = canSpawn(area, raster.getOwnedPlotAbs(x, z), event.getReason(),
+                event.getType());
+            this.spawnChecksEvaluated.increment();
+        }
+        if (!allowed) {
+            event.setShouldAbortSpawn(true);
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Check whether an entity may spawn in a plot area
+     *
+     * @param area   Plot area
+     * @param plot   Owned plot that contains the spawn location, or null
+     * @param reason Spawn reason
+     * @param type   Entity type
+     * @return true if the entity may spawn
+     */
+    private static boolean canSpawn(PlotArea area, @Nullable Plot plot,
+        CreatureSpawnEvent.SpawnReason reason, EntityType type) {
         switch (reason.toString()) {
             case "DISPENSE_EGG":
             case "EGG":
             case "OCELOT_BABY":
             case "SPAWNER_EGG":
                 if (!area.isSpawnEggs()) {
-                    event.setShouldAbortSpawn(true);
-                    event.setCancelled(true);
-                    return;
+                    return false;
                 }
                 break;
             case "REINFORCEMENTS":
@@ -189,66 +325,49 @@ public class PaperListener implements Listener {
             case "BEEHIVE":
             case "CHUNK_GEN":
                 if (!area.isMobSpawning()) {
-                    event.setShouldAbortSpawn(true);
-                    event.setCancelled(true);
-                    return;
+                    return false;
                 }
                 break;
             case "BREEDING":
                 if (!area.isSpawnBreeding()) {
-                    event.setShouldAbortSpawn(true);
-                    event.setCancelled(true);
-                    return;
+                    return false;
                 }
                 break;
             case "BUILD_IRONGOLEM":
             case "BUILD_SNOWMAN":
             case "BUILD_WITHER":
             case "CUSTOM":
-                if (!area.isSpawnCustom() && event.getType() != EntityType.ARMOR_STAND) {
-                    event.setShouldAbortSpawn(true);
-                    event.setCancelled(true);
-                    return;
+                if (!area.isSpawnCustom() && type != EntityType.ARMOR_STAND) {
+                    return false;
                 }
                 break;
             case "SPAWNER":
                 if (!area.isMobSpawnerSpawning()) {
-                    event.setShouldAbortSpawn(true);
-                    event.setCancelled(true);
-                    return;
+                    return false;
                 }
                 break;
         }
-        Plot plot = location.getOwnedPlotAbs();
         if (plot == null) {
             if (!area.isMobSpawning()) {
-                EntityType type = event.getType();
                 switch (type) {
                     case DROPPED_ITEM:
                         if (Settings.Enabled_Components.KILL_ROAD_ITEMS) {
-                            event.setShouldAbortSpawn(true);
-                            event.setCancelled(true);
-                            break;
+                            return false;
                         }
                     case PLAYER:
-                        return;
+                        return true;
                 }
-                event.setShouldAbortSpawn(true);
-                event.setCancelled(true);
+                return false;
             }
-            return;
-        }
-        if (Settings.Done.RESTRICT_BUILDING && DoneFlag.isDone(plot)) {
-            event.setShouldAbortSpawn(true);
-            event.setCancelled(true);
+            return true;
         }
+        return !(Settings.Done.RESTRICT_BUILDING && DoneFlag.isDone(plot));
     }
 
     @EventHandler
     public void onPlayerNaturallySpawnCreaturesEvent(PlayerNaturallySpawnCreaturesEvent event) {
         if (Settings.Paper_Components.CANCEL_CHUNK_SPAWN) {
-            Location location = BukkitUtil.getLocation(event.getPlayer().getLocation());
-            PlotArea area = location.getPlotArea();
+            PlotArea area = PlotLookup.getPlotArea(event.getPlayer().getLocation());
             if (area != null && !area.isMobSpawning()) {
                 event.setCancelled(true);
             }
@@ -257,8 +376,7 @@ public class PaperListener implements Listener {
 
     @EventHandler public void onPreSpawnerSpawnEvent(PreSpawnerSpawnEvent event) {
         if (Settings.Paper_Components.SPAWNER_SPAWN) {
-            Location location = BukkitUtil.getLocation(event.getSpawnerLocation());
-            PlotArea area = location.getPlotArea();
+            PlotArea area = PlotLookup.getPlotArea(event.getSpawnerLocation());
             if (area != null && !area.isMobSpawnerSpawning()) {
                 event.setCancelled(true);
                 event.setShouldAbortSpawn(true);
@@ -273,8 +391,7 @@ public class PaperListener implements Listener {
         if (!(event.getBlock().getState(false) instanceof TileState)) {
             return;
         }
-        final Location location = BukkitUtil.getLocation(event.getBlock().getLocation());
-        final PlotArea plotArea = location.getPlotArea();
+        final PlotArea plotArea = PlotLookup.getPlotArea(event.getBlock());
         if (plotArea == null) {
             return;
         }
@@ -305,12 +422,11 @@ public class PaperListener implements Listener {
         if (!(shooter instanceof Player)) {
             return;
         }
-        Location location = BukkitUtil.getLocation(entity);
-        if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+        if (!PlotSquared.get().hasPlotArea(entity.getWorld().getName())) {
             return;
         }
         PlotPlayer<?> pp = BukkitUtil.getPlayer((Player) shooter);
-        Plot plot = location.getOwnedPlot();
+        Plot plot = PlotLookup.getOwnedPlot(entity.getLocation());
         if (plot != null && !plot.isAdded(pp.getUUID())) {
             entity.remove();
             event.setCancelled(true);
@@ -355,4 +471,32 @@ public class PaperListener implements Listener {
         } catch (final Exception ignored) {}
     }
 
+
+    private static final class PathDecision {
+
+        private ChunkPlotRaster fromRaster;
+        private ChunkPlotRaster toRaster;
+        private int fromX;
+        private int fromZ;
+        private int toX;
+        private int toZ;
+        /**
+         * Whether both chunks are covered by a single plot or road, so the
+         * decision holds for any columns in them
+         */
+        private boolean uniform;
+        private long expires;
+        private boolean allowed;
+
+    }
+
+    private static final class SpawnDecisions {
+
+        private final Map<Integer, Boolean> allowed = new HashMap<>();
+        private long expires;
+        private ChunkPlotRaster raster;
+        private long flags;
+
+    }
+
 }
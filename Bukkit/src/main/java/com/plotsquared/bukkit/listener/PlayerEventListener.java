@@ -30,10 +30,12 @@ import com.google.common.base.Charsets;
 import com.plotsquared.bukkit.player.BukkitPlayer;
 import com.plotsquared.bukkit.util.BukkitEntityUtil;
 import com.plotsquared.bukkit.util.BukkitUtil;
+import com.plotsquared.bukkit.util.PlotLookup;
 import com.plotsquared.bukkit.util.UpdateUtility;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.Settings;
+import com.plotsquared.core.database.PersistentMetaBuffer;
 import com.plotsquared.core.listener.PlayerBlockEventType;
 import com.plotsquared.core.listener.PlotListener;
 import com.plotsquared.core.location.Location;
@@ -140,6 +142,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
@@ -174,8 +179,7 @@ public class PlayerEventListener extends PlotListener implements Listener {
 
     @EventHandler public void onVehicleEntityCollision(VehicleEntityCollisionEvent e) {
         if (e.getVehicle().getType() == EntityType.BOAT) {
-            Location location = BukkitUtil.getLocation(e.getEntity());
-            if (location.isPlotArea()) {
+            if (PlotLookup.getPlotArea(e.getEntity().getLocation()) != null) {
                 if (e.getEntity() instanceof Player) {
                     PlotPlayer<Player> player = BukkitUtil.getPlayer((Player) e.getEntity());
                     Plot plot = player.getCurrentPlot();
@@ -305,6 +309,18 @@ public class PlayerEventListener extends PlotListener implements Listener {
             uuid = event.getUniqueId();
         }
         PlotSquared.get().getImpromptuUUIDPipeline().storeImmediately(event.getName(), uuid);
+        if (Settings.Enabled_Components.PERSISTENT_META) {
+            // Players joining together share one query. The login waits for it for up to
+            // LOAD_TIMEOUT milliseconds, so that the metadata is ready when the player joins
+            try {
+                PersistentMetaBuffer.preload(uuid)
+                    .get(Settings.Persistent_Meta.LOAD_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ignored) {
+                // The player's metadata is loaded on join instead
+            }
+        }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
@@ -361,7 +377,7 @@ public class PlayerEventListener extends PlotListener implements Listener {
         }
         Player player = event.getPlayer();
         BukkitPlayer pp = BukkitUtil.getPlayer(player);
-        Plot lastPlot = pp.getMeta(PlotPlayer.META_LAST_PLOT);
+        Plot lastPlot = pp.getMeta(PlotPlayer.LAST_PLOT);
         org.bukkit.Location to = event.getTo();
         //noinspection ConstantConditions
         if (to != null) {
@@ -370,9 +386,9 @@ public class PlayerEventListener extends PlotListener implements Listener {
             if (area == null) {
                 if (lastPlot != null) {
                     plotExit(pp, lastPlot);
-                    pp.deleteMeta(PlotPlayer.META_LAST_PLOT);
+                    pp.deleteMeta(PlotPlayer.LAST_PLOT);
                 }
-                pp.deleteMeta(PlotPlayer.META_LOCATION);
+                pp.deleteMeta(PlotPlayer.LOCATION);
                 return;
             }
             Plot plot = area.getPlot(location);
@@ -480,17 +496,17 @@ public class PlayerEventListener extends PlotListener implements Listener {
             }
             // Set last location
             Location location = BukkitUtil.getLocation(to);
-            pp.setMeta(PlotPlayer.META_LOCATION, location);
+            pp.setMeta(PlotPlayer.LOCATION, location);
             PlotArea area = location.getPlotArea();
             if (area == null) {
-                pp.deleteMeta(PlotPlayer.META_LAST_PLOT);
+                pp.deleteMeta(PlotPlayer.LAST_PLOT);
                 return;
             }
             Plot now = area.getPlot(location);
-            Plot lastPlot = pp.getMeta(PlotPlayer.META_LAST_PLOT);
+            Plot lastPlot = pp.getMeta(PlotPlayer.LAST_PLOT);
             if (now == null) {
                 if (lastPlot != null && !plotExit(pp, lastPlot) && this.tmpTeleport && !pp
-                    .getMeta("kick", false)) {
+                    .getMeta(PlotPlayer.KICK, false)) {
                     MainUtil.sendMessage(pp, Captions.NO_PERMISSION_EVENT,
                         Captions.PERMISSION_ADMIN_EXIT_DENIED);
                     this.tmpTeleport = false;
@@ -542,17 +558,17 @@ public class PlayerEventListener extends PlotListener implements Listener {
             }
             // Set last location
             Location location = BukkitUtil.getLocation(to);
-            pp.setMeta(PlotPlayer.META_LOCATION, location);
+            pp.setMeta(PlotPlayer.LOCATION, location);
             PlotArea area = location.getPlotArea();
             if (area == null) {
-                pp.deleteMeta(PlotPlayer.META_LAST_PLOT);
+                pp.deleteMeta(PlotPlayer.LAST_PLOT);
                 return;
             }
             Plot now = area.getPlot(location);
-            Plot lastPlot = pp.getMeta(PlotPlayer.META_LAST_PLOT);
+            Plot lastPlot = pp.getMeta(PlotPlayer.LAST_PLOT);
             if (now == null) {
                 if (lastPlot != null && !plotExit(pp, lastPlot) && this.tmpTeleport && !pp
-                    .getMeta("kick", false)) {
+                    .getMeta(PlotPlayer.KICK, false)) {
                     MainUtil.sendMessage(pp, Captions.NO_PERMISSION_EVENT,
                         Captions.PERMISSION_ADMIN_EXIT_DENIED);
                     this.tmpTeleport = false;
@@ -665,8 +681,8 @@ public class PlayerEventListener extends PlotListener implements Listener {
         Player player = event.getPlayer();
         BukkitPlayer pp = BukkitUtil.getPlayer(player);
         // Delete last location
-        Plot plot = (Plot) pp.deleteMeta(PlotPlayer.META_LAST_PLOT);
-        pp.deleteMeta(PlotPlayer.META_LOCATION);
+        Plot plot = pp.deleteMeta(PlotPlayer.LAST_PLOT);
+        pp.deleteMeta(PlotPlayer.LOCATION);
         if (plot != null) {
             plotExit(pp, plot);
         }
@@ -678,7 +694,7 @@ public class PlayerEventListener extends PlotListener implements Listener {
             }
         }
         if (Settings.Enabled_Components.PERMISSION_CACHE) {
-            pp.deleteMeta("perm");
+            pp.getPermissionCache().invalidate();
         }
         Location location = pp.getLocation();
         PlotArea area = location.getPlotArea();
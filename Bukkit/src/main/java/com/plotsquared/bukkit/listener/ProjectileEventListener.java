@@ -27,6 +27,7 @@ package com.plotsquared.bukkit.listener;
 
 import com.plotsquared.bukkit.util.BukkitEntityUtil;
 import com.plotsquared.bukkit.util.BukkitUtil;
+import com.plotsquared.bukkit.util.PlotLookup;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.location.Location;
@@ -56,8 +57,7 @@ public class ProjectileEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPotionSplash(LingeringPotionSplashEvent event) {
         Projectile entity = event.getEntity();
-        Location location = BukkitUtil.getLocation(entity);
-        if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+        if (!PlotSquared.get().hasPlotArea(entity.getWorld().getName())) {
             return;
         }
         if (!this.onProjectileHit(event)) {
@@ -68,8 +68,7 @@ public class ProjectileEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPotionSplash(PotionSplashEvent event) {
         ThrownPotion damager = event.getPotion();
-        Location location = BukkitUtil.getLocation(damager);
-        if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+        if (!PlotSquared.get().hasPlotArea(damager.getWorld().getName())) {
             return;
         }
         int count = 0;
@@ -93,12 +92,11 @@ public class ProjectileEventListener implements Listener {
         if (!(shooter instanceof Player)) {
             return;
         }
-        Location location = BukkitUtil.getLocation(entity);
-        if (!PlotSquared.get().hasPlotArea(location.getWorld())) {
+        if (!PlotSquared.get().hasPlotArea(entity.getWorld().getName())) {
             return;
         }
         PlotPlayer<Player> pp = BukkitUtil.getPlayer((Player) shooter);
-        Plot plot = location.getOwnedPlot();
+        Plot plot = PlotLookup.getOwnedPlot(entity.getLocation());
         if (plot != null && !plot.isAdded(pp.getUUID())) {
             entity.remove();
             event.setCancelled(true);
@@ -672,6 +672,11 @@ public class BukkitUtil extends WorldUtil {
             .getTileEntities().length;
     }
 
+    @Override public boolean isChunkLoaded(String world, int chunkX, int chunkZ) {
+        final World bukkitWorld = Bukkit.getWorld(world);
+        return bukkitWorld != null && bukkitWorld.isChunkLoaded(chunkX, chunkZ);
+    }
+
     private static void ensureLoaded(final String world, final int x, final int z,
         final Consumer<Chunk> chunkConsumer) {
         PaperLib.getChunkAtAsync(getWorld(world), x >> 4, z >> 4, true)
@@ -0,0 +1,111 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.bukkit.util;
+
+import com.plotsquared.core.plot.ChunkPlotRaster;
+import com.plotsquared.core.plot.ChunkPlotRaster.WorldRasters;
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotArea;
+import com.plotsquared.core.util.MathMan;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Filters the block lists of explosions. Blocks are resolved through the
+ * chunk rasters; chunks covered by a single plot or road are decided once,
+ * and every distinct plot is compared once.
+ */
+public final class ExplosionFilter {
+
+    private ExplosionFilter() {
+    }
+
+    /**
+     * Remove all blocks that are not part of a plot area, or not part of the given plot
+     *
+     * @param world  World
+     * @param blocks Exploded blocks
+     * @param area   Plot area of the explosion
+     * @param plot   Base plot that may be affected, or null to only restrict the blocks to the area
+     */
+    public static void retainPlot(@NotNull final World world, @NotNull final List<Block> blocks,
+        @NotNull final PlotArea area, @Nullable final Plot plot) {
+        final Map<Plot, Boolean> allowed = new HashMap<>();
+        filter(world, blocks, (columnArea, owned) -> {
+            if (columnArea != area) {
+                return false;
+            }
+            if (plot == null) {
+                return true;
+            }
+            return owned != null && allowed
+                .computeIfAbsent(owned, key -> plot.equals(key.getBasePlot(false)));
+        });
+    }
+
+    /**
+     * Remove all blocks that are part of a plot area
+     *
+     * @param world  World
+     * @param blocks Exploded blocks
+     */
+    public static void removePlotAreas(@NotNull final World world,
+        @NotNull final List<Block> blocks) {
+        filter(world, blocks, (columnArea, owned) -> columnArea == null);
+    }
+
+    /**
+     * Remove blocks in a single pass
+     *
+     * @param world  World
+     * @param blocks Blocks to filter
+     * @param keep   Decides, given the plot area and owned (sub-)plot of a column, whether
+     *               blocks in that column are kept
+     */
+    private static void filter(@NotNull final World world, @NotNull final List<Block> blocks,
+        @NotNull final BiPredicate<PlotArea, Plot> keep) {
+        final WorldRasters rasters = PlotLookup.getRasters(world);
+        final Map<Long, Boolean> uniform = new HashMap<>();
+        blocks.removeIf(block -> {
+            final int x = block.getX();
+            final int z = block.getZ();
+            final ChunkPlotRaster raster = rasters.get(x, z);
+            if (raster.isUniform()) {
+                return !uniform.computeIfAbsent(MathMan.pairInt(x >> 4, z >> 4),
+                    key -> keep.test(raster.getPlotArea(x, z), raster.getOwnedPlotAbs(x, z)));
+            }
+            return !keep.test(raster.getPlotArea(x, z), raster.getOwnedPlotAbs(x, z));
+        });
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.bukkit.util;
+
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.util.entity.EntityCategories;
+import com.plotsquared.core.util.entity.EntityCategory;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_ANIMAL;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_ENTITY;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MISC;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MOB;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MONSTER;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_VEHICLE;
+
+/**
+ * Per plot entity counts, by cap category. The counts are updated when
+ * entities spawn and when chunks load or unload. Entities can also
+ * move between plots or be removed without an event, so the counts are
+ * reconciled periodically, see {@link #reconcile()}.
+ */
+public final class PlotEntityCounter {
+
+    private static final Source SOURCE = new Source() {
+        @Override @Nullable public Plot getOwnedPlot(@NotNull final org.bukkit.Location location) {
+            return PlotLookup.getRaster(location)
+                .getOwnedPlotAbs(location.getBlockX(), location.getBlockZ());
+        }
+
+        @Override public boolean isInCategory(@NotNull final EntityType type,
+            @NotNull final EntityCategory category) {
+            return category.contains(BukkitAdapter.adapt(type));
+        }
+    };
+
+    public static final PlotEntityCounter IMP = new PlotEntityCounter(SOURCE);
+
+    private final Map<UUID, Tracked> entities = new HashMap<>();
+    private final Map<Plot, int[]> counts = new HashMap<>();
+    private final Map<EntityType, Integer> categories = new EnumMap<>(EntityType.class);
+    private final Source source;
+
+    PlotEntityCounter(@NotNull final Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Get the number of entities in a (sub-)plot, by cap category
+     *
+     * @param plot Plot
+     * @return New array of entity counts, indexed by the cap numerals in {@link EntityCategories}
+     */
+    @NotNull public synchronized int[] getCount(@NotNull final Plot plot) {
+        final int[] count = this.counts.get(plot);
+        return count == null ? new int[6] : count.clone();
+    }
+
+    /**
+     * Start counting an entity, or update the plot it is counted for
+     *
+     * @param entity Entity
+     */
+    public synchronized void track(@NotNull final Entity entity) {
+        final int mask = this.getCategories(entity.getType());
+        if (mask == 0) {
+            return;
+        }
+        final Plot plot = this.source.getOwnedPlot(entity.getLocation());
+        final Tracked previous = this.entities.get(entity.getUniqueId());
+        if (previous != null) {
+            if (previous.plot.equals(plot)) {
+                return;
+            }
+            this.entities.remove(entity.getUniqueId());
+            this.add(previous.plot, previous.mask, -1);
+        }
+        if (plot != null) {
+            this.entities.put(entity.getUniqueId(), new Tracked(entity, plot, mask));
+            this.add(plot, mask, 1);
+        }
+    }
+
+    /**
+     * Stop counting an entity
+     *
+     * @param entity Entity
+     */
+    public synchronized void untrack(@NotNull final Entity entity) {
+        final Tracked previous = this.entities.remove(entity.getUniqueId());
+        if (previous != null) {
+            this.add(previous.plot, previous.mask, -1);
+        }
+    }
+
+    /**
+     * Count all entities in a loaded chunk
+     *
+     * @param chunk Chunk
+     */
+    public void trackChunk(@NotNull final Chunk chunk) {
+        for (final Entity entity : chunk.getEntities()) {
+            this.track(entity);
+        }
+    }
+
+    /**
+     * Stop counting the entities in an unloading chunk
+     *
+     * @param chunk Chunk
+     */
+    public void untrackChunk(@NotNull final Chunk chunk) {
+        for (final Entity entity : chunk.getEntities()) {
+            this.untrack(entity);
+        }
+    }
+
+    /**
+     * Count the entities in all loaded chunks
+     */
+    public void trackLoadedChunks() {
+        for (final World world : Bukkit.getWorlds()) {
+            for (final Chunk chunk : world.getLoadedChunks()) {
+                this.trackChunk(chunk);
+            }
+        }
+    }
+
+    /**
+     * Remove entities that are no longer valid, and move entities that
+     * left their plot to the plot they are in now
+     */
+    public void reconcile() {
+        final ArrayList<Tracked> tracked;
+        synchronized (this) {
+            tracked = new ArrayList<>(this.entities.values());
+        }
+        for (final Tracked entry : tracked) {
+            if (entry.entity.isValid()) {
+                this.track(entry.entity);
+            } else {
+                this.untrack(entry.entity);
+            }
+        }
+    }
+
+    private void add(@NotNull final Plot plot, final int mask, final int delta) {
+        int[] count = this.counts.get(plot);
+        if (count == null) {
+            count = new int[6];
+            this.counts.put(plot, count);
+        }
+        boolean empty = true;
+        for (int i = 0; i < count.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                count[i] += delta;
+            }
+            empty &= count[i] <= 0;
+        }
+        if (empty) {
+            this.counts.remove(plot);
+        }
+    }
+
+    /**
+     * Get the cap categories that an entity type counts towards
+     *
+     * @param type Entity type
+     * @return Bit mask of cap numerals, 0 if the type is not counted
+     */
+    private int getCategories(@NotNull final EntityType type) {
+        final Integer cached = this.categories.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        int mask = 0;
+        if (!this.isIn(type, EntityCategories.PLAYER)) {
+            mask = 1 << CAP_ENTITY;
+            if (this.isIn(type, EntityCategories.PROJECTILE) || this
+                .isIn(type, EntityCategories.OTHER) || this.isIn(type, EntityCategories.HANGING)) {
+                mask |= 1 << CAP_MISC;
+            } else if (this.isIn(type, EntityCategories.ANIMAL) || this
+                .isIn(type, EntityCategories.VILLAGER) || this
+                .isIn(type, EntityCategories.TAMEABLE)) {
+                mask |= 1 << CAP_MOB | 1 << CAP_ANIMAL;
+            } else if (this.isIn(type, EntityCategories.VEHICLE)) {
+                mask |= 1 << CAP_VEHICLE;
+            } else if (this.isIn(type, EntityCategories.HOSTILE)) {
+                mask |= 1 << CAP_MOB | 1 << CAP_MONSTER;
+            }
+        }
+        this.categories.put(type, mask);
+        return mask;
+    }
+
+    private boolean isIn(@NotNull final EntityType type, @NotNull final EntityCategory category) {
+        return this.source.isInCategory(type, category);
+    }
+
+    /**
+     * Plot and category lookups of the counter, so that it can be used without a server
+     */
+    interface Source {
+
+        /**
+         * Get the owned plot at a location
+         *
+         * @param location Bukkit location
+         * @return Owned (sub-)plot, or null
+         */
+        @Nullable Plot getOwnedPlot(@NotNull org.bukkit.Location location);
+
+        /**
+         * Check whether an entity type belongs to a category
+         *
+         * @param type     Entity type
+         * @param category Entity category
+         * @return True if the type is in the category
+         */
+        boolean isInCategory(@NotNull EntityType type, @NotNull EntityCategory category);
+
+    }
+
+    private static final class Tracked {
+
+        private final Entity entity;
+        private final Plot plot;
+        private final int mask;
+
+        private Tracked(@NotNull final Entity entity, @NotNull final Plot plot, final int mask) {
+            this.entity = entity;
+            this.plot = plot;
+            this.mask = mask;
+        }
+
+    }
+
+}
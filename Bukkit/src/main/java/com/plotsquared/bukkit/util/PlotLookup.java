@@ -0,0 +1,209 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.bukkit.util;
+
+import com.plotsquared.core.plot.ChunkPlotRaster;
+import com.plotsquared.core.plot.ChunkPlotRaster.WorldRasters;
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotArea;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Plot lookups for Bukkit worlds and block coordinates, for listeners that
+ * would otherwise convert every event location to a PlotSquared {@link
+ * com.plotsquared.core.location.Location}. Lookups do not allocate, and the
+ * world rasters are cached per world object, so the world name is not hashed
+ * for every event.
+ */
+public final class PlotLookup {
+
+    private static final Map<World, WorldRasters> WORLDS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+    private static volatile CachedWorld last;
+
+    private PlotLookup() {
+    }
+
+    /**
+     * Get the rasters of a world
+     *
+     * @param world Bukkit world
+     * @return World rasters
+     */
+    @NotNull public static WorldRasters getRasters(@NotNull final World world) {
+        final CachedWorld cached = last;
+        if (cached != null && cached.world == world) {
+            return cached.rasters;
+        }
+        final WorldRasters rasters =
+            WORLDS.computeIfAbsent(world, key -> ChunkPlotRaster.getWorld(key.getName()));
+        last = new CachedWorld(world, rasters);
+        return rasters;
+    }
+
+    /**
+     * Get the raster of the chunk containing a block column
+     *
+     * @param world Bukkit world
+     * @param x     Block x
+     * @param z     Block z
+     * @return Up to date raster
+     */
+    @NotNull public static ChunkPlotRaster getRaster(@NotNull final World world, final int x,
+        final int z) {
+        return getRasters(world).get(x, z);
+    }
+
+    /**
+     * Get the raster of the chunk containing a block
+     *
+     * @param block Block
+     * @return Up to date raster
+     */
+    @NotNull public static ChunkPlotRaster getRaster(@NotNull final Block block) {
+        return getRasters(block.getWorld()).get(block.getX(), block.getZ());
+    }
+
+    /**
+     * Get the raster of the chunk containing a location
+     *
+     * @param location Bukkit location
+     * @return Up to date raster
+     */
+    @NotNull public static ChunkPlotRaster getRaster(@NotNull final org.bukkit.Location location) {
+        return getRasters(location.getWorld())
+            .get(location.getBlockX(), location.getBlockZ());
+    }
+
+    /**
+     * Get the plot area containing a block column
+     *
+     * @param world Bukkit world
+     * @param x     Block x
+     * @param z     Block z
+     * @return Plot area, or null
+     */
+    @Nullable public static PlotArea getPlotArea(@NotNull final World world, final int x,
+        final int z) {
+        return getRaster(world, x, z).getPlotArea(x, z);
+    }
+
+    /**
+     * Get the plot area containing a block
+     *
+     * @param block Block
+     * @return Plot area, or null
+     */
+    @Nullable public static PlotArea getPlotArea(@NotNull final Block block) {
+        return getPlotArea(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    /**
+     * Get the plot area containing a location
+     *
+     * @param location Bukkit location
+     * @return Plot area, or null
+     */
+    @Nullable public static PlotArea getPlotArea(@NotNull final org.bukkit.Location location) {
+        return getPlotArea(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+
+    /**
+     * Get the owned base plot containing a block column
+     *
+     * @param world Bukkit world
+     * @param x     Block x
+     * @param z     Block z
+     * @return Owned base plot, or null
+     */
+    @Nullable public static Plot getOwnedPlot(@NotNull final World world, final int x,
+        final int z) {
+        return getRaster(world, x, z).getOwnedPlot(x, z);
+    }
+
+    /**
+     * Get the owned base plot containing a block
+     *
+     * @param block Block
+     * @return Owned base plot, or null
+     */
+    @Nullable public static Plot getOwnedPlot(@NotNull final Block block) {
+        return getOwnedPlot(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    /**
+     * Get the owned base plot containing a location
+     *
+     * @param location Bukkit location
+     * @return Owned base plot, or null
+     */
+    @Nullable public static Plot getOwnedPlot(@NotNull final org.bukkit.Location location) {
+        return getOwnedPlot(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+
+    /**
+     * Get the owned (sub-)plot containing a block column
+     *
+     * @param world Bukkit world
+     * @param x     Block x
+     * @param z     Block z
+     * @return Owned (sub-)plot, or null
+     */
+    @Nullable public static Plot getOwnedPlotAbs(@NotNull final World world, final int x,
+        final int z) {
+        return getRaster(world, x, z).getOwnedPlotAbs(x, z);
+    }
+
+    /**
+     * Forget the rasters of an unloaded world
+     *
+     * @param world Bukkit world
+     */
+    public static void unloadWorld(@NotNull final World world) {
+        WORLDS.remove(world);
+        last = null;
+    }
+
+    private static final class CachedWorld {
+
+        private final World world;
+        private final WorldRasters rasters;
+
+        private CachedWorld(@NotNull final World world, @NotNull final WorldRasters rasters) {
+            this.world = world;
+            this.rasters = rasters;
+        }
+
+    }
+
+}
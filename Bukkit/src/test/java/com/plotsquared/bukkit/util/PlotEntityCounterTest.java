@@ -0,0 +1,197 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.bukkit.util;
+
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotId;
+import com.plotsquared.core.plot.world.SinglePlotArea;
+import com.plotsquared.core.util.entity.EntityCategories;
+import com.plotsquared.core.util.entity.EntityCategory;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_ANIMAL;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_ENTITY;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MISC;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MOB;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_MONSTER;
+import static com.plotsquared.core.util.entity.EntityCategories.CAP_VEHICLE;
+import static org.junit.Assert.assertArrayEquals;
+
+public class PlotEntityCounterTest {
+
+    private static final Map<EntityType, EntityCategory> CATEGORIES =
+        new EnumMap<>(EntityType.class);
+
+    static {
+        CATEGORIES.put(EntityType.ZOMBIE, EntityCategories.HOSTILE);
+        CATEGORIES.put(EntityType.COW, EntityCategories.ANIMAL);
+        CATEGORIES.put(EntityType.VILLAGER, EntityCategories.VILLAGER);
+        CATEGORIES.put(EntityType.WOLF, EntityCategories.TAMEABLE);
+        CATEGORIES.put(EntityType.MINECART, EntityCategories.VEHICLE);
+        CATEGORIES.put(EntityType.ARROW, EntityCategories.PROJECTILE);
+        CATEGORIES.put(EntityType.ITEM_FRAME, EntityCategories.HANGING);
+        CATEGORIES.put(EntityType.ARMOR_STAND, EntityCategories.OTHER);
+        CATEGORIES.put(EntityType.PLAYER, EntityCategories.PLAYER);
+    }
+
+    private Plot[] plots;
+    private PlotEntityCounter counter;
+
+    /**
+     * Entity whose location and validity can be changed without an event
+     */
+    private static final class TestEntity {
+
+        private final UUID uuid = UUID.randomUUID();
+        private final EntityType type;
+        private Location location;
+        private boolean valid = true;
+        private final Entity entity;
+
+        private TestEntity(EntityType type, int x) {
+            this.type = type;
+            this.location = new Location(null, x, 64, 0);
+            this.entity = (Entity) Proxy.newProxyInstance(Entity.class.getClassLoader(),
+                new Class<?>[] {Entity.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUniqueId":
+                            return this.uuid;
+                        case "getType":
+                            return this.type;
+                        case "getLocation":
+                            return this.location.clone();
+                        case "isValid":
+                            return this.valid;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+    }
+
+    private static int[] count(int... caps) {
+        int[] count = new int[6];
+        for (int cap : caps) {
+            count[cap]++;
+        }
+        return count;
+    }
+
+    @Before public void setUp() {
+        SinglePlotArea area = new SinglePlotArea();
+        this.plots =
+            new Plot[] {new Plot(area, new PlotId(0, 0)), new Plot(area, new PlotId(1, 0))};
+        // Plot 0 spans x 0 to 9 and plot 1 spans x 10 to 19, everything else is road
+        this.counter = new PlotEntityCounter(new PlotEntityCounter.Source() {
+            @Override public Plot getOwnedPlot(Location location) {
+                int index = location.getBlockX() / 10;
+                return location.getBlockX() < 0 || index >= plots.length ? null : plots[index];
+            }
+
+            @Override public boolean isInCategory(EntityType type, EntityCategory category) {
+                return CATEGORIES.get(type) == category;
+            }
+        });
+    }
+
+    @Test public void trackAndUntrack() {
+        TestEntity zombie = new TestEntity(EntityType.ZOMBIE, 5);
+        this.counter.track(zombie.entity);
+        // Tracking twice does not count the entity twice
+        this.counter.track(zombie.entity);
+        assertArrayEquals(count(CAP_ENTITY, CAP_MOB, CAP_MONSTER),
+            this.counter.getCount(this.plots[0]));
+        zombie.location = new Location(null, 15, 64, 0);
+        this.counter.track(zombie.entity);
+        assertArrayEquals(count(), this.counter.getCount(this.plots[0]));
+        assertArrayEquals(count(CAP_ENTITY, CAP_MOB, CAP_MONSTER),
+            this.counter.getCount(this.plots[1]));
+        // Entities on the road are not counted
+        zombie.location = new Location(null, -5, 64, 0);
+        this.counter.track(zombie.entity);
+        assertArrayEquals(count(), this.counter.getCount(this.plots[1]));
+        zombie.location = new Location(null, 5, 64, 0);
+        this.counter.track(zombie.entity);
+        this.counter.untrack(zombie.entity);
+        this.counter.untrack(zombie.entity);
+        assertArrayEquals(count(), this.counter.getCount(this.plots[0]));
+    }
+
+    @Test public void categoryMasks() {
+        EntityType[] types =
+            {EntityType.ZOMBIE, EntityType.COW, EntityType.VILLAGER, EntityType.WOLF,
+                EntityType.MINECART, EntityType.ARROW, EntityType.ITEM_FRAME,
+                EntityType.ARMOR_STAND, EntityType.PLAYER};
+        for (EntityType type : types) {
+            this.counter.track(new TestEntity(type, 5).entity);
+        }
+        int[] expected = new int[6];
+        expected[CAP_ENTITY] = 8;
+        expected[CAP_MONSTER] = 1;
+        expected[CAP_ANIMAL] = 3;
+        expected[CAP_MOB] = 4;
+        expected[CAP_VEHICLE] = 1;
+        expected[CAP_MISC] = 3;
+        assertArrayEquals(expected, this.counter.getCount(this.plots[0]));
+        this.counter.track(new TestEntity(EntityType.MINECART, 15).entity);
+        assertArrayEquals(count(CAP_ENTITY, CAP_VEHICLE), this.counter.getCount(this.plots[1]));
+        this.counter.track(new TestEntity(EntityType.ARROW, 15).entity);
+        assertArrayEquals(count(CAP_ENTITY, CAP_ENTITY, CAP_VEHICLE, CAP_MISC),
+            this.counter.getCount(this.plots[1]));
+    }
+
+    @Test public void reconcile() {
+        TestEntity moved = new TestEntity(EntityType.COW, 5);
+        TestEntity removed = new TestEntity(EntityType.ZOMBIE, 5);
+        TestEntity kept = new TestEntity(EntityType.MINECART, 15);
+        this.counter.track(moved.entity);
+        this.counter.track(removed.entity);
+        this.counter.track(kept.entity);
+        // Neither change fires an event, so the counts drift until they are reconciled
+        moved.location = new Location(null, 12, 64, 0);
+        removed.valid = false;
+        assertArrayEquals(count(CAP_ENTITY, CAP_ENTITY, CAP_MOB, CAP_MOB, CAP_ANIMAL, CAP_MONSTER),
+            this.counter.getCount(this.plots[0]));
+        this.counter.reconcile();
+        assertArrayEquals(count(), this.counter.getCount(this.plots[0]));
+        assertArrayEquals(count(CAP_ENTITY, CAP_ENTITY, CAP_VEHICLE, CAP_MOB, CAP_ANIMAL),
+            this.counter.getCount(this.plots[1]));
+        this.counter.reconcile();
+        assertArrayEquals(count(CAP_ENTITY, CAP_ENTITY, CAP_VEHICLE, CAP_MOB, CAP_ANIMAL),
+            this.counter.getCount(this.plots[1]));
+    }
+
+}
@@ -49,6 +49,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -307,4 +308,13 @@ public interface IPlotMain<P> extends ILogger {
      */
     @NotNull PlayerManager<? extends PlotPlayer<P>, ? extends P> getPlayerManager();
 
+    /**
+     * Get statistics of the platform listeners, shown by {@code /plot debug listeners}
+     *
+     * @return Statistic names and values, in display order
+     */
+    default Map<String, Object> getListenerStatistics() {
+        return Collections.emptyMap();
+    }
+
 }
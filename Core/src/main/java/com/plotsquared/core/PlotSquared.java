@@ -40,6 +40,7 @@ import com.plotsquared.core.configuration.serialization.ConfigurationSerializati
 import com.plotsquared.core.database.DBFunc;
 import com.plotsquared.core.database.Database;
 import com.plotsquared.core.database.MySQL;
+import com.plotsquared.core.database.PersistentMetaBuffer;
 import com.plotsquared.core.database.SQLManager;
 import com.plotsquared.core.database.SQLite;
 import com.plotsquared.core.generator.GeneratorWrapper;
@@ -51,6 +52,7 @@ import com.plotsquared.core.location.Location;
 import com.plotsquared.core.player.ConsolePlayer;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.BlockBucket;
+import com.plotsquared.core.plot.ChunkPlotRaster;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.PlotAreaTerrainType;
@@ -85,6 +87,7 @@ import com.plotsquared.core.util.WorldUtil;
 import com.plotsquared.core.util.logger.ILogger;
 import com.plotsquared.core.util.placeholders.PlaceholderRegistry;
 import com.plotsquared.core.util.query.PlotQuery;
+import com.plotsquared.core.util.task.AsyncPool;
 import com.plotsquared.core.util.task.TaskManager;
 import com.plotsquared.core.uuid.UUIDPipeline;
 import com.sk89q.worldedit.WorldEdit;
@@ -129,6 +132,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -544,6 +548,7 @@ public class PlotSquared {
             }
         }
         plotAreaManager.addPlotArea(plotArea);
+        ChunkPlotRaster.invalidate(plotArea.getWorldName());
         plotArea.setupBorder();
         if (!Settings.Enabled_Components.PERSISTENT_ROAD_REGEN) {
             return;
@@ -591,6 +596,7 @@ public class PlotSquared {
      */
     public void removePlotArea(PlotArea area) {
         plotAreaManager.removePlotArea(area);
+        ChunkPlotRaster.invalidate(area.getWorldName());
         setPlotsTmp(area);
     }
 
@@ -1562,12 +1568,18 @@ public class PlotSquared {
         try {
             eventDispatcher.unregisterAll();
             checkRoadRegenPersistence();
+            // Let queued background work finish before the final database writes,
+            // so that it cannot modify plots that have already been validated.
+            // The timeout covers all pools together
+            AsyncPool.shutdownAll(10, TimeUnit.SECONDS);
+
             // Validate that all data in the db is correct
             final HashSet<Plot> plots = new HashSet<>();
             try {
                 forEachPlotRaw(plots::add);
             } catch (final Exception ignored) {
             }
+            PersistentMetaBuffer.flushAll();
             DBFunc.validatePlots(plots);
 
             // Close the connection
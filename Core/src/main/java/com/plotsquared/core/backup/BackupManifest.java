@@ -0,0 +1,156 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.backup;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a single backup stored in a {@link SectionBackupStore}. The manifest
+ * only references sections by their content hash, the section data itself is
+ * shared between all backups.
+ */
+@Getter public final class BackupManifest {
+
+    private static final int MAGIC = 0x50534246; // PSBF
+    private static final int VERSION = 1;
+
+    private final String world;
+    private final long creationTime;
+    private final List<CuboidRegion> regions;
+    private final List<Entry> entries;
+
+    public BackupManifest(@NotNull final String world, final long creationTime,
+        @NotNull final Collection<CuboidRegion> regions, @NotNull final List<Entry> entries) {
+        this.world = world;
+        this.creationTime = creationTime;
+        this.regions = Collections.unmodifiableList(new ArrayList<>(regions));
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Check whether a column is covered by any of the backed up regions
+     *
+     * @param x Block x coordinate
+     * @param z Block z coordinate
+     * @return True if the column belongs to the backup
+     */
+    public boolean contains(final int x, final int z) {
+        for (final CuboidRegion region : this.regions) {
+            final BlockVector3 min = region.getMinimumPoint();
+            final BlockVector3 max = region.getMaximumPoint();
+            if (x >= min.getX() && x <= max.getX() && z >= min.getZ() && z <= max.getZ()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void write(@NotNull final OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(this.world);
+        out.writeLong(this.creationTime);
+        out.writeInt(this.regions.size());
+        for (final CuboidRegion region : this.regions) {
+            final BlockVector3 min = region.getMinimumPoint();
+            final BlockVector3 max = region.getMaximumPoint();
+            out.writeInt(min.getX());
+            out.writeInt(min.getY());
+            out.writeInt(min.getZ());
+            out.writeInt(max.getX());
+            out.writeInt(max.getY());
+            out.writeInt(max.getZ());
+        }
+        out.writeInt(this.entries.size());
+        for (final Entry entry : this.entries) {
+            out.writeInt(entry.getChunkX());
+            out.writeByte(entry.getSectionY());
+            out.writeInt(entry.getChunkZ());
+            out.writeUTF(entry.getHash());
+        }
+        out.flush();
+    }
+
+    @NotNull public static BackupManifest read(@NotNull final InputStream inputStream)
+        throws IOException {
+        final DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a backup manifest");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported backup manifest version: " + version);
+        }
+        final String world = in.readUTF();
+        final long creationTime = in.readLong();
+        final int regionCount = in.readInt();
+        final List<CuboidRegion> regions = new ArrayList<>(regionCount);
+        for (int i = 0; i < regionCount; i++) {
+            final BlockVector3 min = BlockVector3.at(in.readInt(), in.readInt(), in.readInt());
+            final BlockVector3 max = BlockVector3.at(in.readInt(), in.readInt(), in.readInt());
+            regions.add(new CuboidRegion(min, max));
+        }
+        final int entryCount = in.readInt();
+        final List<Entry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new Entry(in.readInt(), in.readUnsignedByte(), in.readInt(), in.readUTF()));
+        }
+        return new BackupManifest(world, creationTime, regions, entries);
+    }
+
+
+    /**
+     * A chunk section referenced by a manifest
+     */
+    @Getter @RequiredArgsConstructor public static final class Entry {
+
+        private final int chunkX;
+        private final int sectionY;
+        private final int chunkZ;
+        @NotNull private final String hash;
+
+        public boolean isEmpty() {
+            return BackupSection.EMPTY.equals(this.hash);
+        }
+
+    }
+
+}
@@ -0,0 +1,352 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.backup;
+
+import com.google.common.hash.Hashing;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A 16x16x16 chunk section captured for a backup. Sections are
+ * position independent, so identical sections (e.g. untouched terrain)
+ * serialize to identical bytes and are only stored once by the
+ * {@link SectionBackupStore}.
+ */
+public final class BackupSection {
+
+    /**
+     * Hash used for sections that only contain air and carry no biomes.
+     * These are never written to disk.
+     */
+    public static final String EMPTY = "empty";
+
+    static final String AIR = "minecraft:air";
+
+    private static final int VERSION = 1;
+
+    private final String[] palette;
+    private final char[] blocks;
+    private final Map<Integer, CompoundTag> tiles;
+    @Nullable private final String[] biomePalette;
+    @Nullable private final char[] biomes;
+
+    private BackupSection(@NotNull final String[] palette, @NotNull final char[] blocks,
+        @NotNull final Map<Integer, CompoundTag> tiles, @Nullable final String[] biomePalette,
+        @Nullable final char[] biomes) {
+        this.palette = palette;
+        this.blocks = blocks;
+        this.tiles = tiles;
+        this.biomePalette = biomePalette;
+        this.biomes = biomes;
+    }
+
+    /**
+     * Get the index of a block inside a section
+     *
+     * @param x Section relative x coordinate (0-15)
+     * @param y Section relative y coordinate (0-15)
+     * @param z Section relative z coordinate (0-15)
+     * @return Block index
+     */
+    public static int index(final int x, final int y, final int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+
+    /**
+     * Get the block state string stored at the given index
+     *
+     * @param index Block index, see {@link #index(int, int, int)}
+     * @return Block state string
+     */
+    @NotNull public String getBlock(final int index) {
+        return this.palette[this.blocks[index]];
+    }
+
+    /**
+     * Get the palette index stored at the given block index. Palette indices
+     * can be resolved once per section using {@link #getPalette()}
+     *
+     * @param index Block index, see {@link #index(int, int, int)}
+     * @return Palette index
+     */
+    public int getPaletteIndex(final int index) {
+        return this.blocks[index];
+    }
+
+    @NotNull public String[] getPalette() {
+        return this.palette;
+    }
+
+    /**
+     * Get the tile entity data stored at the given index
+     *
+     * @param index Block index, see {@link #index(int, int, int)}
+     * @return Tile entity data, or null
+     */
+    @Nullable public CompoundTag getTile(final int index) {
+        return this.tiles.get(index);
+    }
+
+    /**
+     * Get the biome stored for a column. Biomes are only stored
+     * in the lowest section of a chunk
+     *
+     * @param x Section relative x coordinate (0-15)
+     * @param z Section relative z coordinate (0-15)
+     * @return Biome id, or null if this section does not store biomes
+     */
+    @Nullable public String getBiome(final int x, final int z) {
+        if (this.biomes == null || this.biomePalette == null) {
+            return null;
+        }
+        return this.biomePalette[this.biomes[(z << 4) | x]];
+    }
+
+    public boolean hasBiomes() {
+        return this.biomes != null;
+    }
+
+    /**
+     * Check whether the section only contains air and can be
+     * represented by {@link #EMPTY}
+     *
+     * @return True if the section is empty
+     */
+    public boolean isEmpty() {
+        return this.palette.length == 1 && AIR.equals(this.palette[0]) && this.tiles.isEmpty()
+            && this.biomes == null;
+    }
+
+    /**
+     * Serialize the section. The output is deterministic, so equal
+     * sections always produce equal bytes
+     *
+     * @return Serialized section
+     * @throws IOException If the tile entity data could not be written
+     */
+    @NotNull public byte[] serialize() throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(8192);
+        final DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+        out.writeByte(VERSION);
+        writePalette(out, this.palette, this.blocks);
+        out.writeShort(this.tiles.size());
+        if (!this.tiles.isEmpty()) {
+            final List<Integer> indices = new ArrayList<>(this.tiles.keySet());
+            Collections.sort(indices);
+            final NBTOutputStream nbtOutputStream = new NBTOutputStream(out);
+            for (final Integer index : indices) {
+                out.writeShort(index);
+                nbtOutputStream.writeNamedTag("", this.tiles.get(index));
+            }
+        }
+        out.writeBoolean(this.biomes != null);
+        if (this.biomes != null) {
+            writePalette(out, this.biomePalette, this.biomes);
+        }
+        out.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Read a section previously written by {@link #serialize()}
+     *
+     * @param data Serialized section
+     * @return Deserialized section
+     * @throws IOException If the data is malformed
+     */
+    @NotNull public static BackupSection deserialize(@NotNull final byte[] data) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported backup section version: " + version);
+        }
+        final String[] palette = readPalette(in);
+        final char[] blocks = readIndices(in, 4096);
+        final int tileCount = in.readUnsignedShort();
+        final Map<Integer, CompoundTag> tiles;
+        if (tileCount == 0) {
+            tiles = Collections.emptyMap();
+        } else {
+            tiles = new HashMap<>(tileCount);
+            final NBTInputStream nbtInputStream = new NBTInputStream(in);
+            for (int i = 0; i < tileCount; i++) {
+                final int index = in.readUnsignedShort();
+                final Tag tag = nbtInputStream.readNamedTag().getTag();
+                if (tag instanceof CompoundTag) {
+                    tiles.put(index, (CompoundTag) tag);
+                }
+            }
+        }
+        String[] biomePalette = null;
+        char[] biomes = null;
+        if (in.readBoolean()) {
+            biomePalette = readPalette(in);
+            biomes = readIndices(in, 256);
+        }
+        return new BackupSection(palette, blocks, tiles, biomePalette, biomes);
+    }
+
+    /**
+     * Compute the content hash of serialized section data
+     *
+     * @param data Serialized section
+     * @return Hex encoded hash
+     */
+    @NotNull public static String hash(@NotNull final byte[] data) {
+        return Hashing.sha256().hashBytes(data).toString();
+    }
+
+    private static void writePalette(@NotNull final DataOutputStream out,
+        @NotNull final String[] palette, @NotNull final char[] indices) throws IOException {
+        out.writeShort(palette.length);
+        for (final String entry : palette) {
+            out.writeUTF(entry);
+        }
+        for (final char index : indices) {
+            out.writeChar(index);
+        }
+    }
+
+    private static String[] readPalette(@NotNull final DataInputStream in) throws IOException {
+        final String[] palette = new String[in.readUnsignedShort()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = in.readUTF();
+        }
+        return palette;
+    }
+
+    private static char[] readIndices(@NotNull final DataInputStream in, final int length)
+        throws IOException {
+        final char[] indices = new char[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = in.readChar();
+        }
+        return indices;
+    }
+
+
+    /**
+     * Mutable section used while reading blocks from the world. All
+     * positions that are never set are stored as air.
+     */
+    public static final class Builder {
+
+        private final Map<String, Character> palette = new HashMap<>();
+        private final List<String> paletteEntries = new ArrayList<>();
+        private final char[] blocks = new char[4096];
+        private final Map<Integer, CompoundTag> tiles = new HashMap<>();
+        private Map<String, Character> biomePalette;
+        private List<String> biomePaletteEntries;
+        private char[] biomes;
+
+        public Builder() {
+            this.paletteEntries.add(AIR);
+            this.palette.put(AIR, (char) 0);
+        }
+
+        public Builder setBlock(final int x, final int y, final int z, @NotNull final String block,
+            @Nullable final CompoundTag tile) {
+            final int index = index(x, y, z);
+            this.blocks[index] = this.palette.computeIfAbsent(block, key -> {
+                this.paletteEntries.add(key);
+                return (char) (this.paletteEntries.size() - 1);
+            });
+            if (tile != null) {
+                this.tiles.put(index, tile);
+            }
+            return this;
+        }
+
+        public Builder setBiome(final int x, final int z, @NotNull final String biome) {
+            if (this.biomes == null) {
+                this.biomes = new char[256];
+                this.biomePalette = new HashMap<>();
+                this.biomePaletteEntries = new ArrayList<>();
+            }
+            this.biomes[(z << 4) | x] = this.biomePalette.computeIfAbsent(biome, key -> {
+                this.biomePaletteEntries.add(key);
+                return (char) (this.biomePaletteEntries.size() - 1);
+            });
+            return this;
+        }
+
+        @NotNull public BackupSection build() {
+            // Palette entries are ordered by their first occurrence, so that equal
+            // block data always serializes to equal bytes regardless of capture order
+            final char[] remap = new char[this.paletteEntries.size()];
+            Arrays.fill(remap, Character.MAX_VALUE);
+            final List<String> entries = new ArrayList<>();
+            final char[] blocks = new char[4096];
+            for (int i = 0; i < blocks.length; i++) {
+                final char index = this.blocks[i];
+                if (remap[index] == Character.MAX_VALUE) {
+                    remap[index] = (char) entries.size();
+                    entries.add(this.paletteEntries.get(index));
+                }
+                blocks[i] = remap[index];
+            }
+            String[] biomePalette = null;
+            char[] biomes = null;
+            if (this.biomes != null) {
+                // Biome palettes are ordered the same way
+                final char[] biomeRemap = new char[this.biomePaletteEntries.size()];
+                Arrays.fill(biomeRemap, Character.MAX_VALUE);
+                final List<String> biomeEntries = new ArrayList<>();
+                biomes = new char[256];
+                for (int i = 0; i < biomes.length; i++) {
+                    final char index = this.biomes[i];
+                    if (biomeRemap[index] == Character.MAX_VALUE) {
+                        biomeRemap[index] = (char) biomeEntries.size();
+                        biomeEntries.add(this.biomePaletteEntries.get(index));
+                    }
+                    biomes[i] = biomeRemap[index];
+                }
+                biomePalette = biomeEntries.toArray(new String[0]);
+            }
+            return new BackupSection(entries.toArray(new String[0]), blocks,
+                this.tiles.isEmpty() ? Collections.emptyMap() : new HashMap<>(this.tiles),
+                biomePalette, biomes);
+        }
+
+    }
+
+}
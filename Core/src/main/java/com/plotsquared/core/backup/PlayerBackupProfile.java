@@ -33,6 +33,7 @@ import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.TaskManager;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -57,13 +58,15 @@ public class PlayerBackupProfile implements BackupProfile {
     private final UUID owner;
     private final Plot plot;
     private final BackupManager backupManager;
+    @Nullable private final SectionBackupStore sectionStore;
 
     private volatile List<Backup> backupCache;
     private final Object backupLock = new Object();
 
     private static boolean isValidFile(@NotNull final Path path) {
         final String name = path.getFileName().toString();
-        return name.endsWith(".schem") || name.endsWith(".schematic");
+        return name.endsWith(".schem") || name.endsWith(".schematic") || name
+            .endsWith(SectionBackupStore.MANIFEST_EXTENSION);
     }
 
     @Override @NotNull public CompletableFuture<List<Backup>> listBackups() {
@@ -109,6 +112,9 @@ public class PlayerBackupProfile implements BackupProfile {
            }
            backups.forEach(Backup::delete);
            this.backupCache = null;
+           if (this.sectionStore != null) {
+               this.sectionStore.scheduleGarbageCollection();
+           }
         });
     }
 
@@ -140,12 +146,26 @@ public class PlayerBackupProfile implements BackupProfile {
                 if (backups.size() == backupManager.getBackupLimit()) {
                     backups.get(backups.size() - 1).delete();
                 }
-                final List<Plot> plots = Collections.singletonList(plot);
-                final boolean result = SchematicHandler.manager.exportAll(plots, getBackupDirectory().toFile(),
-                    "%world%-%id%-" + System.currentTimeMillis(), () ->
-                    future.complete(new Backup(this, System.currentTimeMillis(), null)));
-                if (!result) {
-                    future.completeExceptionally(new RuntimeException("Failed to complete the backup"));
+                if (this.sectionStore != null) {
+                    final Path manifest = getBackupDirectory()
+                        .resolve(System.currentTimeMillis() + SectionBackupStore.MANIFEST_EXTENSION);
+                    this.sectionStore.capture(plot, manifest).whenComplete((value, throwable) -> {
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(new Backup(this, value.getCreationTime(), manifest));
+                        }
+                        this.backupCache = null;
+                        this.sectionStore.scheduleGarbageCollection();
+                    });
+                } else {
+                    final List<Plot> plots = Collections.singletonList(plot);
+                    final boolean result = SchematicHandler.manager.exportAll(plots, getBackupDirectory().toFile(),
+                        "%world%-%id%-" + System.currentTimeMillis(), () ->
+                        future.complete(new Backup(this, System.currentTimeMillis(), null)));
+                    if (!result) {
+                        future.completeExceptionally(new RuntimeException("Failed to complete the backup"));
+                    }
                 }
                 this.backupCache = null;
             }
@@ -157,6 +177,25 @@ public class PlayerBackupProfile implements BackupProfile {
         final CompletableFuture<Void> future = new CompletableFuture<>();
         if (backup.getFile() == null || !Files.exists(backup.getFile())) {
             future.completeExceptionally(new IllegalArgumentException("The specific backup does not exist"));
+        } else if (SectionBackupStore.isManifest(backup.getFile())) {
+            if (this.sectionStore == null) {
+                future.completeExceptionally(new IllegalStateException("Deduplicated backups are disabled"));
+                return future;
+            }
+            TaskManager.runTaskAsync(() -> {
+                try {
+                    final BackupManifest manifest = this.sectionStore.readManifest(backup.getFile());
+                    this.sectionStore.restore(plot, manifest).whenComplete((value, throwable) -> {
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(null);
+                        }
+                    });
+                } catch (IOException e) {
+                    future.completeExceptionally(new IllegalArgumentException("The backup is non-existent or not in the correct format", e));
+                }
+            });
         } else {
             TaskManager.runTaskAsync(() -> {
                 Schematic schematic = null;
@@ -0,0 +1,657 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.backup;
+
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotArea;
+import com.plotsquared.core.queue.GlobalBlockQueue;
+import com.plotsquared.core.queue.LocalBlockQueue;
+import com.plotsquared.core.util.BlockUtil;
+import com.plotsquared.core.util.MathMan;
+import com.plotsquared.core.util.WorldUtil;
+import com.plotsquared.core.util.task.AsyncPool;
+import com.plotsquared.core.util.task.TaskManager;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed backup storage. Plots are split into chunk sections,
+ * every unique section is stored once (compressed, addressed by its hash)
+ * and backups are stored as {@link BackupManifest manifests} referencing
+ * these sections. Sections that are no longer referenced by any manifest
+ * are removed by {@link #collectGarbage()}.
+ */
+public class SectionBackupStore {
+
+    public static final String MANIFEST_EXTENSION = ".manifest";
+    private static final String SECTION_EXTENSION = ".section";
+
+    /**
+     * Time (in milliseconds) that may be spent reading blocks per tick
+     */
+    private static final int READ_ALLOCATION = 10;
+    /**
+     * Sections used within this time (in milliseconds) are never collected, as
+     * they may belong to a backup whose manifest hasn't been written yet
+     */
+    private static final long GARBAGE_GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Delay (in ticks) before a scheduled garbage collection runs
+     */
+    private static final int GARBAGE_COLLECTION_DELAY = 20 * 60;
+
+    private static final Map<String, BlockState> PARSED_STATES = new ConcurrentHashMap<>();
+
+    @Getter private final Path backupPath;
+    @Getter private final Path sectionPath;
+    private final Object garbageLock = new Object();
+    private final AtomicBoolean garbageCollectionScheduled = new AtomicBoolean(false);
+
+    public SectionBackupStore(@NotNull final Path backupPath) {
+        this.backupPath = backupPath;
+        this.sectionPath = backupPath.resolve("sections");
+    }
+
+    /**
+     * Check whether a file is a backup manifest
+     *
+     * @param path File
+     * @return True if the file is a manifest
+     */
+    public static boolean isManifest(@NotNull final Path path) {
+        return path.getFileName().toString().endsWith(MANIFEST_EXTENSION);
+    }
+
+    @NotNull Path getSectionFile(@NotNull final String hash) {
+        return this.sectionPath.resolve(hash.substring(0, 2)).resolve(hash + SECTION_EXTENSION);
+    }
+
+    /**
+     * Store a section, if it isn't already stored
+     *
+     * @param section Section to store
+     * @return Hash of the section
+     * @throws IOException If the section could not be written
+     */
+    @NotNull public String storeSection(@NotNull final BackupSection section) throws IOException {
+        if (section.isEmpty()) {
+            return BackupSection.EMPTY;
+        }
+        final byte[] data = section.serialize();
+        final String hash = BackupSection.hash(data);
+        final Path file = this.getSectionFile(hash);
+        if (Files.exists(file)) {
+            // Mark the section as recently used, so that it isn't swept by a
+            // garbage collection that is running concurrently with this backup
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return hash;
+        }
+        Files.createDirectories(file.getParent());
+        final Path temporary = Files.createTempFile(file.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                out.write(data);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return hash;
+    }
+
+    /**
+     * Load a stored section
+     *
+     * @param hash Section hash
+     * @return The section, or null if the hash refers to an empty section
+     * @throws IOException If the section is missing or could not be read
+     */
+    @Nullable public BackupSection loadSection(@NotNull final String hash) throws IOException {
+        if (BackupSection.EMPTY.equals(hash)) {
+            return null;
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(16384);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(this.getSectionFile(hash)))) {
+            final byte[] bytes = new byte[8192];
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                buffer.write(bytes, 0, read);
+            }
+        }
+        return BackupSection.deserialize(buffer.toByteArray());
+    }
+
+    public void writeManifest(@NotNull final Path file, @NotNull final BackupManifest manifest)
+        throws IOException {
+        final Path temporary = Files.createTempFile(file.getParent(), "manifest", ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                manifest.write(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @NotNull public BackupManifest readManifest(@NotNull final Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return BackupManifest.read(in);
+        }
+    }
+
+    /**
+     * Capture the current state of a plot and store it as a new manifest. The
+     * blocks are read on the main thread in small time slices, while
+     * serialization and IO happen in the {@link AsyncPool#IO IO pool}
+     *
+     * @param plot         Plot to capture
+     * @param manifestFile File that the manifest will be written to
+     * @return Future that completes with the written manifest
+     */
+    @NotNull public CompletableFuture<BackupManifest> capture(@NotNull final Plot plot,
+        @NotNull final Path manifestFile) {
+        final CompletableFuture<BackupManifest> future = new CompletableFuture<>();
+        final String world = plot.getWorldName();
+        final List<CuboidRegion> regions = new ArrayList<>(plot.getRegions());
+        final long creationTime = System.currentTimeMillis();
+        final List<CompletableFuture<List<BackupManifest.Entry>>> chunkFutures = new ArrayList<>();
+        final List<BlockVector2> chunks = getChunks(regions);
+        TaskManager.runTask(new Runnable() {
+            private int chunkIndex = 0;
+
+            @Override public void run() {
+                try {
+                    final com.sk89q.worldedit.world.World weWorld = WorldUtil.IMP.getWeWorld(world);
+                    final long start = System.currentTimeMillis();
+                    while (chunkIndex < chunks.size()
+                        && System.currentTimeMillis() - start < READ_ALLOCATION) {
+                        final BlockVector2 chunk = chunks.get(chunkIndex++);
+                        final BackupSection[] sections = readChunk(weWorld, chunk, regions);
+                        chunkFutures.add(CompletableFuture.supplyAsync(() -> {
+                            final List<BackupManifest.Entry> entries = new ArrayList<>(16);
+                            for (int sectionY = 0; sectionY < sections.length; sectionY++) {
+                                try {
+                                    entries.add(new BackupManifest.Entry(chunk.getX(), sectionY,
+                                        chunk.getZ(), storeSection(sections[sectionY])));
+                                } catch (final IOException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                            return entries;
+                        }, AsyncPool.IO::execute));
+                    }
+                } catch (final Exception e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                if (chunkIndex < chunks.size()) {
+                    TaskManager.runTaskLater(this, 1);
+                    return;
+                }
+                CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]))
+                    .thenRunAsync(() -> {
+                        final List<BackupManifest.Entry> entries = new ArrayList<>();
+                        chunkFutures.forEach(chunkFuture -> entries.addAll(chunkFuture.join()));
+                        final BackupManifest manifest =
+                            new BackupManifest(world, creationTime, regions, entries);
+                        try {
+                            synchronized (garbageLock) {
+                                writeManifest(manifestFile, manifest);
+                            }
+                        } catch (final IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                        future.complete(manifest);
+                    }, AsyncPool.IO::execute).exceptionally(throwable -> {
+                        future.completeExceptionally(throwable);
+                        return null;
+                    });
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Restore a manifest by streaming its sections into a block queue. The current
+     * state of every section is read and hashed first, and only sections whose
+     * hash differs from the backed up section are loaded and rewritten
+     *
+     * @param plot     Plot the backup belongs to
+     * @param manifest Manifest to restore
+     * @return Future that completes with the number of rewritten sections,
+     * once all blocks have been set
+     */
+    @NotNull public CompletableFuture<Integer> restore(@NotNull final Plot plot,
+        @NotNull final BackupManifest manifest) {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        final Map<Long, List<BackupManifest.Entry>> entriesByChunk = new LinkedHashMap<>();
+        for (final BackupManifest.Entry entry : manifest.getEntries()) {
+            entriesByChunk.computeIfAbsent(chunkKey(entry), key -> new ArrayList<>()).add(entry);
+        }
+        final List<List<BackupManifest.Entry>> chunks = new ArrayList<>(entriesByChunk.values());
+        final PlotArea area = plot.getArea();
+        final List<CompletableFuture<Integer>> chunkFutures = new ArrayList<>();
+        TaskManager.runTask(new Runnable() {
+            private int chunkIndex = 0;
+
+            @Override public void run() {
+                try {
+                    final com.sk89q.worldedit.world.World weWorld =
+                        WorldUtil.IMP.getWeWorld(manifest.getWorld());
+                    final long start = System.currentTimeMillis();
+                    while (chunkIndex < chunks.size()
+                        && System.currentTimeMillis() - start < READ_ALLOCATION) {
+                        final List<BackupManifest.Entry> entries = chunks.get(chunkIndex++);
+                        final BlockVector2 chunk = BlockVector2
+                            .at(entries.get(0).getChunkX(), entries.get(0).getChunkZ());
+                        final boolean[] mask = getColumnMask(chunk, manifest.getRegions());
+                        final BackupSection[] current = new BackupSection[entries.size()];
+                        for (int i = 0; i < current.length; i++) {
+                            current[i] = readSection(weWorld, chunk, entries.get(i).getSectionY(), mask);
+                        }
+                        chunkFutures.add(CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return restoreChunk(area, manifest, entries, current);
+                            } catch (final IOException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }, AsyncPool.IO::execute));
+                    }
+                } catch (final Exception e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                if (chunkIndex < chunks.size()) {
+                    TaskManager.runTaskLater(this, 1);
+                    return;
+                }
+                CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0]))
+                    .thenRun(() -> {
+                        int changed = 0;
+                        for (final CompletableFuture<Integer> chunkFuture : chunkFutures) {
+                            changed += chunkFuture.join();
+                        }
+                        final int rewritten = changed;
+                        if (rewritten == 0) {
+                            future.complete(0);
+                            return;
+                        }
+                        GlobalBlockQueue.IMP.addEmptyTask(() -> future.complete(rewritten));
+                    }).exceptionally(throwable -> {
+                        future.completeExceptionally(throwable);
+                        return null;
+                    });
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Write all sections of a chunk that differ from their current state to a new
+     * queue. Chunks are restored concurrently, and local queues aren't safe for
+     * concurrent writers, so every chunk gets its own queue
+     *
+     * @param area     Area to get the queue from
+     * @param manifest Manifest that is being restored
+     * @param entries  Manifest entries of the chunk
+     * @param current  Current sections, in the same order as the entries
+     * @return Number of rewritten sections
+     * @throws IOException If a section could not be loaded
+     */
+    private int restoreChunk(@NotNull final PlotArea area,
+        @NotNull final BackupManifest manifest, @NotNull final List<BackupManifest.Entry> entries,
+        @NotNull final BackupSection[] current) throws IOException {
+        final List<BackupManifest.Entry> changed = new ArrayList<>();
+        final List<BackupSection> sections = new ArrayList<>();
+        for (int i = 0; i < current.length; i++) {
+            final BackupManifest.Entry entry = entries.get(i);
+            final String hash = current[i].isEmpty() ?
+                BackupSection.EMPTY :
+                BackupSection.hash(current[i].serialize());
+            if (!hash.equals(entry.getHash())) {
+                changed.add(entry);
+                sections.add(this.loadSection(entry.getHash()));
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        final LocalBlockQueue queue = area.getQueue(false);
+        for (int i = 0; i < changed.size(); i++) {
+            writeSection(queue, manifest, changed.get(i), sections.get(i));
+        }
+        queue.enqueue();
+        return changed.size();
+    }
+
+    /**
+     * Schedule an asynchronous {@link #collectGarbage() garbage collection}. Multiple
+     * requests made before the collection runs are coalesced into a single run
+     */
+    public void scheduleGarbageCollection() {
+        if (this.garbageCollectionScheduled.compareAndSet(false, true)) {
+            TaskManager.runTaskLaterAsync(() -> {
+                this.garbageCollectionScheduled.set(false);
+                this.collectGarbage();
+            }, GARBAGE_COLLECTION_DELAY);
+        }
+    }
+
+    /**
+     * Remove all sections that aren't referenced by any manifest. Sections that
+     * have been written or reused recently are never removed
+     *
+     * @return Number of removed sections
+     */
+    public int collectGarbage() {
+        synchronized (this.garbageLock) {
+            final long threshold = System.currentTimeMillis() - GARBAGE_GRACE_PERIOD;
+            final Set<String> live = new HashSet<>();
+            try {
+                Files.walkFileTree(this.backupPath, new SimpleFileVisitor<Path>() {
+                    @Override public FileVisitResult preVisitDirectory(final Path dir,
+                        final BasicFileAttributes attributes) {
+                        // The section tree is by far the largest and never holds manifests
+                        return dir.equals(sectionPath) ?
+                            FileVisitResult.SKIP_SUBTREE :
+                            FileVisitResult.CONTINUE;
+                    }
+
+                    @Override public FileVisitResult visitFile(final Path file,
+                        final BasicFileAttributes attributes) {
+                        if (isManifest(file)) {
+                            try {
+                                readManifest(file).getEntries()
+                                    .forEach(entry -> live.add(entry.getHash()));
+                            } catch (final IOException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (final IOException e) {
+                e.printStackTrace();
+                return 0;
+            }
+            if (!Files.exists(this.sectionPath)) {
+                return 0;
+            }
+            int removed = 0;
+            try (Stream<Path> files = Files.walk(this.sectionPath)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    final String name = file.getFileName().toString();
+                    if (!name.endsWith(SECTION_EXTENSION) || live.contains(
+                        name.substring(0, name.length() - SECTION_EXTENSION.length()))) {
+                        continue;
+                    }
+                    if (Files.getLastModifiedTime(file).toMillis() >= threshold) {
+                        continue;
+                    }
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+            return removed;
+        }
+    }
+
+    static long chunkKey(@NotNull final BackupManifest.Entry entry) {
+        return MathMan.pairInt(entry.getChunkX(), entry.getChunkZ());
+    }
+
+    /**
+     * Get all chunks that intersect with the given regions
+     *
+     * @param regions Regions
+     * @return Intersecting chunks
+     */
+    @NotNull static List<BlockVector2> getChunks(@NotNull final List<CuboidRegion> regions) {
+        final Set<BlockVector2> chunks = new HashSet<>();
+        final List<BlockVector2> ordered = new ArrayList<>();
+        for (final CuboidRegion region : regions) {
+            final BlockVector3 min = region.getMinimumPoint();
+            final BlockVector3 max = region.getMaximumPoint();
+            for (int x = min.getX() >> 4; x <= max.getX() >> 4; x++) {
+                for (int z = min.getZ() >> 4; z <= max.getZ() >> 4; z++) {
+                    final BlockVector2 chunk = BlockVector2.at(x, z);
+                    if (chunks.add(chunk)) {
+                        ordered.add(chunk);
+                    }
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Compute which columns of a chunk are covered by the given regions
+     *
+     * @param chunk   Chunk
+     * @param regions Regions
+     * @return Column mask, indexed by {@code z << 4 | x}
+     */
+    @NotNull static boolean[] getColumnMask(@NotNull final BlockVector2 chunk,
+        @NotNull final List<CuboidRegion> regions) {
+        final boolean[] mask = new boolean[256];
+        final int bx = chunk.getX() << 4;
+        final int bz = chunk.getZ() << 4;
+        for (final CuboidRegion region : regions) {
+            final BlockVector3 min = region.getMinimumPoint();
+            final BlockVector3 max = region.getMaximumPoint();
+            final int minX = Math.max(min.getX(), bx) - bx;
+            final int maxX = Math.min(max.getX(), bx + 15) - bx;
+            final int minZ = Math.max(min.getZ(), bz) - bz;
+            final int maxZ = Math.min(max.getZ(), bz + 15) - bz;
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    mask[(z << 4) | x] = true;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Read all sections of a chunk from the world. Columns outside of the
+     * given regions are stored as air. This must be called from the main thread
+     *
+     * @param weWorld World to read from
+     * @param chunk   Chunk to read
+     * @param regions Regions that should be read
+     * @return Sections, indexed by section y
+     */
+    @NotNull static BackupSection[] readChunk(@NotNull final com.sk89q.worldedit.world.World weWorld,
+        @NotNull final BlockVector2 chunk, @NotNull final List<CuboidRegion> regions) {
+        final boolean[] mask = getColumnMask(chunk, regions);
+        final BackupSection[] sections = new BackupSection[16];
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            sections[sectionY] = readSection(weWorld, chunk, sectionY, mask);
+        }
+        return sections;
+    }
+
+    /**
+     * Read a single chunk section from the world. This must be called from the main thread
+     *
+     * @param weWorld  World to read from
+     * @param chunk    Chunk to read
+     * @param sectionY Section y coordinate (0-15)
+     * @param mask     Column mask, see {@link #getColumnMask(BlockVector2, List)}
+     * @return Section
+     */
+    @NotNull static BackupSection readSection(@NotNull final com.sk89q.worldedit.world.World weWorld,
+        @NotNull final BlockVector2 chunk, final int sectionY, @NotNull final boolean[] mask) {
+        final int bx = chunk.getX() << 4;
+        final int bz = chunk.getZ() << 4;
+        final BackupSection.Builder builder = new BackupSection.Builder();
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (!mask[(z << 4) | x]) {
+                        continue;
+                    }
+                    final BaseBlock block =
+                        weWorld.getFullBlock(BlockVector3.at(bx + x, (sectionY << 4) + y, bz + z));
+                    if (block.getBlockType() == BlockTypes.AIR) {
+                        continue;
+                    }
+                    builder.setBlock(x, y, z, block.toImmutableState().getAsString(),
+                        getTile(block));
+                }
+            }
+        }
+        if (sectionY == 0) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (mask[(z << 4) | x]) {
+                        builder.setBiome(x, z,
+                            weWorld.getBiome(BlockVector2.at(bx + x, bz + z)).getId());
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the tile entity data of a block without its position, so that
+     * equal tiles in different places produce equal sections
+     *
+     * @param block Block
+     * @return Tile entity data, or null
+     */
+    @Nullable private static CompoundTag getTile(@NotNull final BaseBlock block) {
+        if (!block.hasNbtData() || block.getNbtData() == null) {
+            return null;
+        }
+        final Map<String, Tag> values = new HashMap<>(block.getNbtData().getValue());
+        values.remove("x");
+        values.remove("y");
+        values.remove("z");
+        return new CompoundTag(values);
+    }
+
+    /**
+     * Write a stored section to a queue, limited to the columns covered by the manifest
+     *
+     * @param queue    Queue to write to
+     * @param manifest Manifest the section belongs to
+     * @param entry    Manifest entry of the section
+     * @param section  Section data, or null if the section is empty
+     */
+    static void writeSection(@NotNull final LocalBlockQueue queue,
+        @NotNull final BackupManifest manifest, @NotNull final BackupManifest.Entry entry,
+        @Nullable final BackupSection section) {
+        final int bx = entry.getChunkX() << 4;
+        final int by = entry.getSectionY() << 4;
+        final int bz = entry.getChunkZ() << 4;
+        final BlockState[] palette;
+        if (section == null) {
+            palette = new BlockState[] {BlockTypes.AIR.getDefaultState()};
+        } else {
+            final String[] entries = section.getPalette();
+            palette = new BlockState[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                palette[i] = parseState(entries[i]);
+            }
+        }
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                if (!manifest.contains(bx + x, bz + z)) {
+                    continue;
+                }
+                for (int y = 0; y < 16; y++) {
+                    if (section == null) {
+                        queue.setBlock(bx + x, by + y, bz + z, palette[0]);
+                        continue;
+                    }
+                    final int index = BackupSection.index(x, y, z);
+                    final BlockState state = palette[section.getPaletteIndex(index)];
+                    final CompoundTag tile = section.getTile(index);
+                    queue.setBlock(bx + x, by + y, bz + z,
+                        tile == null ? state.toBaseBlock() : state.toBaseBlock(tile));
+                }
+                if (section != null && section.hasBiomes()) {
+                    final BiomeType biome = BiomeTypes.get(section.getBiome(x, z));
+                    if (biome != null) {
+                        queue.setBiome(bx + x, bz + z, biome);
+                    }
+                }
+            }
+        }
+    }
+
+    @NotNull private static BlockState parseState(@NotNull final String state) {
+        return PARSED_STATES.computeIfAbsent(state, key -> {
+            final BlockState parsed = BlockUtil.get(key);
+            return parsed == null ? BlockTypes.AIR.getDefaultState() : parsed;
+        });
+    }
+
+}
@@ -53,6 +53,7 @@ import java.util.concurrent.TimeUnit;
     @Getter private final Path backupPath;
     private final boolean automaticBackup;
     @Getter private final int backupLimit;
+    @Getter @Nullable private final SectionBackupStore sectionStore;
     private final Cache<PlotCacheKey, BackupProfile> backupProfileCache = CacheBuilder.newBuilder()
         .expireAfterAccess(3, TimeUnit.MINUTES).build();
 
@@ -63,14 +64,15 @@ import java.util.concurrent.TimeUnit;
         }
         this.automaticBackup = Settings.Backup.AUTOMATIC_BACKUPS;
         this.backupLimit = Settings.Backup.BACKUP_LIMIT;
+        this.sectionStore = Settings.Backup.DEDUPLICATE ? new SectionBackupStore(backupPath) : null;
     }
 
     @Override @NotNull public BackupProfile getProfile(@NotNull final Plot plot) {
         if (plot.hasOwner() && !plot.isMerged()) {
             try {
-                return backupProfileCache.get(new PlotCacheKey(plot), () -> new PlayerBackupProfile(plot.getOwnerAbs(), plot, this));
+                return backupProfileCache.get(new PlotCacheKey(plot), () -> new PlayerBackupProfile(plot.getOwnerAbs(), plot, this, this.sectionStore));
             } catch (ExecutionException e) {
-                final BackupProfile profile = new PlayerBackupProfile(plot.getOwnerAbs(), plot, this);
+                final BackupProfile profile = new PlayerBackupProfile(plot.getOwnerAbs(), plot, this, this.sectionStore);
                 this.backupProfileCache.put(new PlotCacheKey(plot), profile);
                 return profile;
             }
@@ -0,0 +1,403 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.collection;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Immutable index of values that cover rectangles on the x/z plane.
+ * <p>
+ * The rectangles are bucketed into a uniform grid that is sized when the
+ * index is built. Rectangles that would span too many cells are kept in a
+ * separate list. Queries do not allocate and do not lock. To change the
+ * contents, build a new index with {@link #with(Object)} or {@link
+ * #without(Object)} and publish it, e.g. through a volatile field.
+ *
+ * @param <T> Value type
+ */
+public final class RectangleIndex<T> {
+
+    /**
+     * Maximum number of grid cells along either axis
+     */
+    private static final int MAX_CELLS_PER_AXIS = 256;
+    /**
+     * Rectangles covering more cells than this are not bucketed
+     */
+    private static final int MAX_CELLS_PER_ENTRY = 64;
+    private static final int MIN_SHIFT = 4;
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private final Function<T, CuboidRegion> regionFunction;
+    private final ImmutableList<T> values;
+    private final int[] minX;
+    private final int[] minZ;
+    private final int[] maxX;
+    private final int[] maxZ;
+    private final int boundsMinX;
+    private final int boundsMinZ;
+    private final int boundsMaxX;
+    private final int boundsMaxZ;
+    private final int shift;
+    private final int width;
+    private final int[] cellStart;
+    private final int[] cellEntries;
+    private final int[] oversized;
+
+    private RectangleIndex(@NotNull final Function<T, CuboidRegion> regionFunction,
+        @NotNull final ImmutableList<T> values) {
+        this.regionFunction = regionFunction;
+        this.values = values;
+        final int size = values.size();
+        this.minX = new int[size];
+        this.minZ = new int[size];
+        this.maxX = new int[size];
+        this.maxZ = new int[size];
+        int boundsMinX = Integer.MAX_VALUE;
+        int boundsMinZ = Integer.MAX_VALUE;
+        int boundsMaxX = Integer.MIN_VALUE;
+        int boundsMaxZ = Integer.MIN_VALUE;
+        long extent = 0;
+        for (int i = 0; i < size; i++) {
+            final CuboidRegion region = regionFunction.apply(values.get(i));
+            final BlockVector3 min = region.getMinimumPoint();
+            final BlockVector3 max = region.getMaximumPoint();
+            this.minX[i] = min.getX();
+            this.minZ[i] = min.getZ();
+            this.maxX[i] = max.getX();
+            this.maxZ[i] = max.getZ();
+            boundsMinX = Math.min(boundsMinX, this.minX[i]);
+            boundsMinZ = Math.min(boundsMinZ, this.minZ[i]);
+            boundsMaxX = Math.max(boundsMaxX, this.maxX[i]);
+            boundsMaxZ = Math.max(boundsMaxZ, this.maxZ[i]);
+            extent += (long) this.maxX[i] - this.minX[i] + this.maxZ[i] - this.minZ[i] + 2;
+        }
+        this.boundsMinX = boundsMinX;
+        this.boundsMinZ = boundsMinZ;
+        this.boundsMaxX = boundsMaxX;
+        this.boundsMaxZ = boundsMaxZ;
+        if (size == 0) {
+            this.shift = MIN_SHIFT;
+            this.width = 0;
+            this.cellStart = new int[1];
+            this.cellEntries = NO_ENTRIES;
+            this.oversized = NO_ENTRIES;
+            return;
+        }
+        // Size the cells after the average rectangle, within the axis limit
+        int shift = MIN_SHIFT;
+        while (1L << shift < extent / (2L * size)) {
+            shift++;
+        }
+        while ((((long) boundsMaxX - boundsMinX) >> shift) >= MAX_CELLS_PER_AXIS
+            || (((long) boundsMaxZ - boundsMinZ) >> shift) >= MAX_CELLS_PER_AXIS) {
+            shift++;
+        }
+        this.shift = shift;
+        this.width = this.cellX(boundsMaxX) + 1;
+        final int height = this.cellZ(boundsMaxZ) + 1;
+        final int[] counts = new int[this.width * height + 1];
+        final List<Integer> oversized = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final int x1 = this.cellX(this.minX[i]);
+            final int x2 = this.cellX(this.maxX[i]);
+            final int z1 = this.cellZ(this.minZ[i]);
+            final int z2 = this.cellZ(this.maxZ[i]);
+            if ((long) (x2 - x1 + 1) * (z2 - z1 + 1) > MAX_CELLS_PER_ENTRY) {
+                oversized.add(i);
+                continue;
+            }
+            for (int z = z1; z <= z2; z++) {
+                for (int x = x1; x <= x2; x++) {
+                    counts[z * this.width + x + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        this.cellStart = counts.clone();
+        this.cellEntries = new int[counts[counts.length - 1]];
+        // Entries are added in index order, so every cell is sorted
+        for (int i = 0; i < size; i++) {
+            final int x1 = this.cellX(this.minX[i]);
+            final int x2 = this.cellX(this.maxX[i]);
+            final int z1 = this.cellZ(this.minZ[i]);
+            final int z2 = this.cellZ(this.maxZ[i]);
+            if ((long) (x2 - x1 + 1) * (z2 - z1 + 1) > MAX_CELLS_PER_ENTRY) {
+                continue;
+            }
+            for (int z = z1; z <= z2; z++) {
+                for (int x = x1; x <= x2; x++) {
+                    this.cellEntries[counts[z * this.width + x]++] = i;
+                }
+            }
+        }
+        this.oversized = oversized.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Create an empty index
+     *
+     * @param regionFunction Function that returns the region covered by a value.
+     *                       Only the x and z coordinates are used
+     * @param <T>            Value type
+     * @return Empty index
+     */
+    @NotNull public static <T> RectangleIndex<T> empty(
+        @NotNull final Function<T, CuboidRegion> regionFunction) {
+        return new RectangleIndex<>(regionFunction, ImmutableList.of());
+    }
+
+    /**
+     * Create an index over a collection of values
+     *
+     * @param regionFunction Function that returns the region covered by a value.
+     *                       Only the x and z coordinates are used
+     * @param values         Values to index
+     * @param <T>            Value type
+     * @return New index
+     */
+    @NotNull public static <T> RectangleIndex<T> of(
+        @NotNull final Function<T, CuboidRegion> regionFunction,
+        @NotNull final Collection<? extends T> values) {
+        return new RectangleIndex<>(regionFunction, ImmutableList.copyOf(values));
+    }
+
+    /**
+     * Create a copy of this index that also contains a value
+     *
+     * @param value Value to add
+     * @return New index
+     */
+    @NotNull public RectangleIndex<T> with(@NotNull final T value) {
+        return new RectangleIndex<>(this.regionFunction,
+            ImmutableList.<T>builder().addAll(this.values).add(value).build());
+    }
+
+    /**
+     * Create a copy of this index without a value
+     *
+     * @param value Value to remove
+     * @return New index, or this index if it does not contain the value
+     */
+    @NotNull public RectangleIndex<T> without(@NotNull final T value) {
+        if (!this.values.contains(value)) {
+            return this;
+        }
+        final ImmutableList.Builder<T> builder = ImmutableList.builder();
+        for (final T current : this.values) {
+            if (!current.equals(value)) {
+                builder.add(current);
+            }
+        }
+        return new RectangleIndex<>(this.regionFunction, builder.build());
+    }
+
+    /**
+     * Create a copy of this index with the current regions of all values,
+     * for use after the region of a value has changed
+     *
+     * @return New index
+     */
+    @NotNull public RectangleIndex<T> rebuild() {
+        return new RectangleIndex<>(this.regionFunction, this.values);
+    }
+
+    /**
+     * Get all values, in the order they were added
+     *
+     * @return Immutable list of values
+     */
+    @NotNull public List<T> values() {
+        return this.values;
+    }
+
+    public int size() {
+        return this.values.size();
+    }
+
+    public boolean isEmpty() {
+        return this.values.isEmpty();
+    }
+
+    /**
+     * Get the first value, in insertion order, whose rectangle contains a point
+     *
+     * @param x X coordinate
+     * @param z Z coordinate
+     * @return Value, or null if no rectangle contains the point
+     */
+    @Nullable public T get(final int x, final int z) {
+        if (x < this.boundsMinX || x > this.boundsMaxX || z < this.boundsMinZ
+            || z > this.boundsMaxZ) {
+            return null;
+        }
+        int best = -1;
+        final int cell = this.cellZ(z) * this.width + this.cellX(x);
+        for (int i = this.cellStart[cell], end = this.cellStart[cell + 1]; i < end; i++) {
+            final int index = this.cellEntries[i];
+            if (this.contains(index, x, z)) {
+                best = index;
+                break;
+            }
+        }
+        for (final int index : this.oversized) {
+            if (best != -1 && index > best) {
+                break;
+            }
+            if (this.contains(index, x, z)) {
+                best = index;
+                break;
+            }
+        }
+        return best == -1 ? null : this.values.get(best);
+    }
+
+    /**
+     * Get the first value, in insertion order, whose rectangle intersects a range
+     *
+     * @param minX Minimum x coordinate (inclusive)
+     * @param minZ Minimum z coordinate (inclusive)
+     * @param maxX Maximum x coordinate (inclusive)
+     * @param maxZ Maximum z coordinate (inclusive)
+     * @return Value, or null if no rectangle intersects the range
+     */
+    @Nullable public T getFirstIntersecting(final int minX, final int minZ, final int maxX,
+        final int maxZ) {
+        if (!this.overlapsBounds(minX, minZ, maxX, maxZ)) {
+            return null;
+        }
+        int best = Integer.MAX_VALUE;
+        final int x1 = this.cellX(Math.max(minX, this.boundsMinX));
+        final int x2 = this.cellX(Math.min(maxX, this.boundsMaxX));
+        final int z1 = this.cellZ(Math.max(minZ, this.boundsMinZ));
+        final int z2 = this.cellZ(Math.min(maxZ, this.boundsMaxZ));
+        for (int z = z1; z <= z2; z++) {
+            for (int x = x1; x <= x2; x++) {
+                final int cell = z * this.width + x;
+                for (int i = this.cellStart[cell], end = this.cellStart[cell + 1]; i < end; i++) {
+                    final int index = this.cellEntries[i];
+                    if (index >= best) {
+                        break;
+                    }
+                    if (this.intersects(index, minX, minZ, maxX, maxZ)) {
+                        best = index;
+                        break;
+                    }
+                }
+            }
+        }
+        for (final int index : this.oversized) {
+            if (index >= best) {
+                break;
+            }
+            if (this.intersects(index, minX, minZ, maxX, maxZ)) {
+                best = index;
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? null : this.values.get(best);
+    }
+
+    /**
+     * Pass every value whose rectangle intersects a range to a consumer.
+     * Every value is passed at most once, in no particular order
+     *
+     * @param minX     Minimum x coordinate (inclusive)
+     * @param minZ     Minimum z coordinate (inclusive)
+     * @param maxX     Maximum x coordinate (inclusive)
+     * @param maxZ     Maximum z coordinate (inclusive)
+     * @param consumer Value consumer
+     */
+    public void forEachIntersecting(final int minX, final int minZ, final int maxX,
+        final int maxZ, @NotNull final Consumer<? super T> consumer) {
+        if (!this.overlapsBounds(minX, minZ, maxX, maxZ)) {
+            return;
+        }
+        final int x1 = this.cellX(Math.max(minX, this.boundsMinX));
+        final int x2 = this.cellX(Math.min(maxX, this.boundsMaxX));
+        final int z1 = this.cellZ(Math.max(minZ, this.boundsMinZ));
+        final int z2 = this.cellZ(Math.min(maxZ, this.boundsMaxZ));
+        for (int z = z1; z <= z2; z++) {
+            for (int x = x1; x <= x2; x++) {
+                final int cell = z * this.width + x;
+                for (int i = this.cellStart[cell], end = this.cellStart[cell + 1]; i < end; i++) {
+                    final int index = this.cellEntries[i];
+                    // A value is reported from the first cell that both it and the range cover
+                    if (x != Math.max(x1, this.cellX(this.minX[index])) || z != Math
+                        .max(z1, this.cellZ(this.minZ[index]))) {
+                        continue;
+                    }
+                    if (this.intersects(index, minX, minZ, maxX, maxZ)) {
+                        consumer.accept(this.values.get(index));
+                    }
+                }
+            }
+        }
+        for (final int index : this.oversized) {
+            if (this.intersects(index, minX, minZ, maxX, maxZ)) {
+                consumer.accept(this.values.get(index));
+            }
+        }
+    }
+
+    private boolean overlapsBounds(final int minX, final int minZ, final int maxX,
+        final int maxZ) {
+        return !this.values.isEmpty() && minX <= this.boundsMaxX && maxX >= this.boundsMinX
+            && minZ <= this.boundsMaxZ && maxZ >= this.boundsMinZ;
+    }
+
+    private boolean contains(final int index, final int x, final int z) {
+        return x >= this.minX[index] && x <= this.maxX[index] && z >= this.minZ[index]
+            && z <= this.maxZ[index];
+    }
+
+    private boolean intersects(final int index, final int minX, final int minZ, final int maxX,
+        final int maxZ) {
+        return minX <= this.maxX[index] && maxX >= this.minX[index] && minZ <= this.maxZ[index]
+            && maxZ >= this.minZ[index];
+    }
+
+    private int cellX(final int x) {
+        return (int) (((long) x - this.boundsMinX) >> this.shift);
+    }
+
+    private int cellZ(final int z) {
+        return (int) (((long) z - this.boundsMinZ) >> this.shift);
+    }
+
+}
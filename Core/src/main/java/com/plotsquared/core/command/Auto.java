@@ -277,35 +277,32 @@ public class Auto extends SubCommand {
                 MainUtil.sendMessage(player, Captions.NO_FREE_PLOTS);
                 return false;
             }
-            while (true) {
-                PlotId start = plotarea.getMeta("lastPlot", new PlotId(0, 0)).getNextId(1);
-                PlotId end = new PlotId(start.x + size_x - 1, start.y + size_z - 1);
-                if (plotarea.canClaim(player, start, end)) {
-                    plotarea.setMeta("lastPlot", start);
-                    for (int i = start.x; i <= end.x; i++) {
-                        for (int j = start.y; j <= end.y; j++) {
-                            Plot plot = plotarea.getPlotAbs(new PlotId(i, j));
-                            boolean teleport = i == end.x && j == end.y;
-                            if (plot == null) {
-                                return false;
-                            }
-                            plot.claim(player, teleport, null);
-                        }
-                    }
-                    ArrayList<PlotId> plotIds = MainUtil.getPlotSelectionIds(start, end);
-                    final PlotId pos1 = plotIds.get(0);
-                    final PlotAutoMergeEvent mergeEvent = PlotSquared.get().getEventDispatcher()
-                        .callAutoMerge(plotarea.getPlotAbs(pos1), plotIds);
-                    if (!force && mergeEvent.getEventResult() == Result.DENY) {
-                        sendMessage(player, Captions.EVENT_DENIED, "Auto merge");
-                        return false;
-                    }
-                    if (!plotarea.mergePlots(mergeEvent.getPlots(), true)) {
+            PlotId start = plotarea.getNextFreeBlock(player, size_x, size_z);
+            if (start == null) {
+                MainUtil.sendMessage(player, Captions.NO_FREE_PLOTS);
+                return false;
+            }
+            PlotId end = new PlotId(start.x + size_x - 1, start.y + size_z - 1);
+            for (int i = start.x; i <= end.x; i++) {
+                for (int j = start.y; j <= end.y; j++) {
+                    Plot plot = plotarea.getPlotAbs(new PlotId(i, j));
+                    boolean teleport = i == end.x && j == end.y;
+                    if (plot == null) {
                         return false;
                     }
-                    break;
+                    plot.claim(player, teleport, null);
                 }
-                plotarea.setMeta("lastPlot", start);
+            }
+            ArrayList<PlotId> plotIds = MainUtil.getPlotSelectionIds(start, end);
+            final PlotId pos1 = plotIds.get(0);
+            final PlotAutoMergeEvent mergeEvent = PlotSquared.get().getEventDispatcher()
+                .callAutoMerge(plotarea.getPlotAbs(pos1), plotIds);
+            if (!force && mergeEvent.getEventResult() == Result.DENY) {
+                sendMessage(player, Captions.EVENT_DENIED, "Auto merge");
+                return false;
+            }
+            if (!plotarea.mergePlots(mergeEvent.getPlots(), true)) {
+                return false;
             }
             return true;
         }
@@ -33,6 +33,7 @@ import com.plotsquared.core.util.RegionManager;
 import com.plotsquared.core.util.StringMan;
 import com.plotsquared.core.util.entity.EntityCategories;
 import com.plotsquared.core.util.entity.EntityCategory;
+import com.plotsquared.core.util.task.AsyncPool;
 import com.plotsquared.core.util.task.TaskManager;
 import com.plotsquared.core.uuid.UUIDMapping;
 import com.sk89q.worldedit.world.entity.EntityType;
@@ -67,6 +68,19 @@ public class Debug extends SubCommand {
                     .currentThread().getName()));
             return true;
         }
+        if (args.length > 0 && "async".equalsIgnoreCase(args[0])) {
+            for (final AsyncPool pool : AsyncPool.values()) {
+                MainUtil.sendMessage(player, pool.toString());
+            }
+            return true;
+        }
+        if (args.length > 0 && "listeners".equalsIgnoreCase(args[0])) {
+            for (final Map.Entry<String, Object> statistic : PlotSquared.get().IMP
+                .getListenerStatistics().entrySet()) {
+                MainUtil.sendMessage(player, statistic.getKey() + ": " + statistic.getValue());
+            }
+            return true;
+        }
         if (args.length > 0 && "uuids".equalsIgnoreCase(args[0])) {
             final Collection<UUIDMapping> mappings = PlotSquared.get().getImpromptuUUIDPipeline().getAllImmediately();
             MainUtil.sendMessage(player, String.format("There are %d cached UUIDs", mappings.size()));
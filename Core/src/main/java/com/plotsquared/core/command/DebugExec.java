@@ -181,7 +181,7 @@ public class DebugExec extends SubCommand {
     @Override public boolean onCommand(final PlotPlayer<?> player, String[] args) {
         List<String> allowed_params = Arrays
             .asList("analyze", "calibrate-analysis", "remove-flag", "stop-expire", "start-expire",
-                "seen", "list-scripts", "start-rgar", "stop-rgar", "help", "addcmd", "runasync",
+                "expire-dry-run", "seen", "list-scripts", "start-rgar", "stop-rgar", "help", "addcmd", "runasync",
                 "run", "allcmd", "all");
         if (args.length > 0) {
             String arg = args[0].toLowerCase();
@@ -295,6 +295,15 @@ public class DebugExec extends SubCommand {
                     } else {
                         return MainUtil.sendMessage(player, "Plot expiry task already started");
                     }
+                case "expire-dry-run":
+                    if (ExpireManager.IMP == null) {
+                        ExpireManager.IMP = new ExpireManager();
+                    }
+                    if (ExpireManager.IMP.runDryRun(report -> MainUtil.sendMessage(player, "$1" + report))) {
+                        return MainUtil.sendMessage(player, "Started plot expiry dry run");
+                    } else {
+                        return MainUtil.sendMessage(player, "Plot expiry dry run already started");
+                    }
                 case "h":
                 case "he":
                 case "?":
@@ -396,22 +405,22 @@ public class DebugExec extends SubCommand {
                     Command cmd = MainCommand.getInstance().getCommand(args[3]);
                     String[] params = Arrays.copyOfRange(args, 4, args.length);
                     if ("true".equals(args[1])) {
-                        Location location = player.getMeta(PlotPlayer.META_LOCATION);
-                        Plot plot = player.getMeta(PlotPlayer.META_LAST_PLOT);
+                        Location location = player.getMeta(PlotPlayer.LOCATION);
+                        Plot plot = player.getMeta(PlotPlayer.LAST_PLOT);
                         for (Plot current : PlotSquared.get().getBasePlots()) {
-                            player.setMeta(PlotPlayer.META_LOCATION, current.getBottomAbs());
-                            player.setMeta(PlotPlayer.META_LAST_PLOT, current);
+                            player.setMeta(PlotPlayer.LOCATION, current.getBottomAbs());
+                            player.setMeta(PlotPlayer.LAST_PLOT, current);
                             cmd.execute(player, params, null, null);
                         }
                         if (location == null) {
-                            player.deleteMeta(PlotPlayer.META_LOCATION);
+                            player.deleteMeta(PlotPlayer.LOCATION);
                         } else {
-                            player.setMeta(PlotPlayer.META_LOCATION, location);
+                            player.setMeta(PlotPlayer.LOCATION, location);
                         }
                         if (plot == null) {
-                            player.deleteMeta(PlotPlayer.META_LAST_PLOT);
+                            player.deleteMeta(PlotPlayer.LAST_PLOT);
                         } else {
-                            player.setMeta(PlotPlayer.META_LAST_PLOT, plot);
+                            player.setMeta(PlotPlayer.LAST_PLOT, plot);
                         }
                         player.sendMessage("&c> " + (System.currentTimeMillis() - start));
                         return true;
@@ -101,7 +101,7 @@ public final class FlagCommand extends Command {
                     int checkRange = PlotSquared.get().getPlatform().equalsIgnoreCase("bukkit") ?
                         numeric :
                         Settings.Limit.MAX_PLOTS;
-                    final boolean result = player.hasPermissionRange(perm, checkRange) >= numeric;
+                    final boolean result = Permissions.hasPermissionRange(player, perm, checkRange) >= numeric;
                     if (!result) {
                         MainUtil.sendMessage(player, Captions.NO_PERMISSION, CaptionUtility
                             .format(player, Captions.PERMISSION_SET_FLAG_KEY_VALUE.getTranslated(),
@@ -294,7 +294,8 @@ public class ListCmd extends SubCommand {
                     term = StringMan.join(Arrays.copyOfRange(args, 1, args.length), " ");
                 }
                 sort[0] = false;
-                plotConsumer.accept(PlotQuery.newQuery().plotsBySearch(term));
+                MainUtil.getPlotsBySearch(term,
+                    plots -> plotConsumer.accept(PlotQuery.newQuery().withPlots(plots)));
                 break;
             default:
                 if (PlotSquared.get().hasPlotArea(args[0])) {
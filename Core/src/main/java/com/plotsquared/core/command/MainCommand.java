@@ -222,7 +222,7 @@ public class MainCommand extends Command {
         RunnableVal3<Command, Runnable, Runnable> confirm,
         RunnableVal2<Command, CommandResult> whenDone) {
         // Clear perm caching //
-        player.deleteMeta("perm");
+        player.getPermissionCache().invalidate();
         // Optional command scope //
         Location location = null;
         Plot plot = null;
@@ -237,12 +237,12 @@ public class MainCommand extends Command {
                 Location newLoc = newPlot.getCenterSynchronous();
                 if (player.canTeleport(newLoc)) {
                     // Save meta
-                    location = player.getMeta(PlotPlayer.META_LOCATION);
-                    plot = player.getMeta(PlotPlayer.META_LAST_PLOT);
+                    location = player.getMeta(PlotPlayer.LOCATION);
+                    plot = player.getMeta(PlotPlayer.LAST_PLOT);
                     tp = true;
                     // Set loc
-                    player.setMeta(PlotPlayer.META_LOCATION, newLoc);
-                    player.setMeta(PlotPlayer.META_LAST_PLOT, newPlot);
+                    player.setMeta(PlotPlayer.LOCATION, newLoc);
+                    player.setMeta(PlotPlayer.LAST_PLOT, newPlot);
                 } else {
                     Captions.BORDER.send(player);
                 }
@@ -296,14 +296,14 @@ public class MainCommand extends Command {
         // Reset command scope //
         if (tp && !(player instanceof ConsolePlayer)) {
             if (location == null) {
-                player.deleteMeta(PlotPlayer.META_LOCATION);
+                player.deleteMeta(PlotPlayer.LOCATION);
             } else {
-                player.setMeta(PlotPlayer.META_LOCATION, location);
+                player.setMeta(PlotPlayer.LOCATION, location);
             }
             if (plot == null) {
-                player.deleteMeta(PlotPlayer.META_LAST_PLOT);
+                player.deleteMeta(PlotPlayer.LAST_PLOT);
             } else {
-                player.setMeta(PlotPlayer.META_LAST_PLOT, plot);
+                player.setMeta(PlotPlayer.LAST_PLOT, plot);
             }
         }
         return CompletableFuture.completedFuture(true);
@@ -33,6 +33,8 @@ import com.plotsquared.core.configuration.file.YamlConfiguration;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.PlotAreaType;
 import com.plotsquared.core.util.MainUtil;
+import com.plotsquared.core.util.PermissionCache;
+import com.plotsquared.core.util.PermissionNode;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -51,6 +53,8 @@ public class Reload extends SubCommand {
             // loaded during startup unfortunately.
             PlotSquared.get().setupConfigs();
             Captions.load(PlotSquared.get().translationFile);
+            PermissionNode.reload();
+            PermissionCache.invalidateAll();
             PlotSquared.get().forEachPlotArea(area -> {
                 ConfigurationSection worldSection = PlotSquared.get().worlds
                     .getConfigurationSection("worlds." + area.getWorldName());
@@ -224,6 +224,15 @@ public class Settings extends Config {
     }
 
 
+    @Comment("Settings for the expiry tasks configured above")
+    public static class Expiry {
+        @Comment("How many plots may be analyzed at the same time")
+        public static int ANALYSIS_PARALLELISM = 2;
+        @Comment("How many plots may wait for analysis or deletion at once")
+        public static int QUEUE_CAPACITY = 64;
+    }
+
+
     @Comment({"Chunk processor related settings",
         "See https://wiki.intellectualsites.com/en/plotsquared/optimization/chunk-processor for more information."})
     public static class Chunk_Processor {
@@ -467,6 +476,9 @@ public class Settings extends Config {
             BACKUP_LIMIT = 3;
         @Comment("Whether or not backups should be deleted when the plot is unclaimed")
         public static boolean DELETE_ON_UNCLAIM = true;
+        @Comment({"Store backups as deduplicated chunk sections instead of full schematics",
+            "Unchanged sections are only stored once, across all backups"})
+        public static boolean DEDUPLICATE = true;
     }
 
 
@@ -543,6 +555,22 @@ public class Settings extends Config {
         public static int TARGET_TIME = 65;
     }
 
+    @Comment("Settings related to the permission cache")
+    public static final class Permission_Cache {
+        @Comment({"The time in seconds how long permission checks should remain in cache.",
+                 "Lower values pick up permission changes sooner but may be less performant."})
+        public static int CACHE_EXPIRATION = 30;
+    }
+
+    @Comment("Settings related to persistent player metadata")
+    public static final class Persistent_Meta {
+        @Comment({"The time in seconds metadata changes are buffered before being written.",
+                 "Changes are always written when the player leaves."})
+        public static int FLUSH_INTERVAL = 30;
+        @Comment("The time in milliseconds a joining player waits for their metadata to load")
+        public static int LOAD_TIMEOUT = 5000;
+    }
+
     @Comment("Settings related to tab completion")
     public static final class Tab_Completions {
         @Comment({"The time in seconds how long tab completions should remain in cache.",
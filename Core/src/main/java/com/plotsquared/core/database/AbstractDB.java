@@ -34,6 +34,7 @@ import com.plotsquared.core.plot.flag.PlotFlag;
 import com.plotsquared.core.util.task.RunnableVal;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -115,6 +116,22 @@ public interface AbstractDB {
 
     void getPersistentMeta(UUID uuid, RunnableVal<Map<String, byte[]>> result);
 
+    /**
+     * Loads the persistent metadata of several players in one batch.
+     *
+     * @param uuids  the players
+     * @param result receives the metadata per player, or null if it could not be loaded
+     */
+    void getPersistentMeta(Collection<UUID> uuids,
+        RunnableVal<Map<UUID, Map<String, byte[]>>> result);
+
+    /**
+     * Writes a batch of persistent metadata changes in one transaction.
+     *
+     * @param changes the changes per player, where a null value removes the key
+     */
+    void updatePersistentMeta(Map<UUID, Map<String, byte[]>> changes);
+
     /**
      * Creates the plot settings.
      *
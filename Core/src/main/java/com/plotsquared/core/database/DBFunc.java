@@ -36,6 +36,7 @@ import com.plotsquared.core.util.task.RunnableVal;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,19 @@ public class DBFunc {
         }
     }
 
+    public static void getPersistentMeta(Collection<UUID> uuids,
+        RunnableVal<Map<UUID, Map<String, byte[]>>> result) {
+        if (dbManager != null) {
+            dbManager.getPersistentMeta(uuids, result);
+        }
+    }
+
+    public static void updatePersistentMeta(Map<UUID, Map<String, byte[]>> changes) {
+        if (dbManager != null) {
+            dbManager.updatePersistentMeta(changes);
+        }
+    }
+
     public static void removePersistentMeta(UUID uuid, String key) {
         if (dbManager != null) {
             dbManager.removePersistentMeta(uuid, key);
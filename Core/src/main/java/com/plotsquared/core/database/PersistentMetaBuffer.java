@@ -0,0 +1,234 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.database;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.plotsquared.core.configuration.Settings;
+import com.plotsquared.core.util.task.RunnableVal;
+import com.plotsquared.core.util.task.TaskManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for persistent player metadata.
+ * <p>
+ * Changes are coalesced per player and key, and written in a single batch
+ * after {@link Settings.Persistent_Meta#FLUSH_INTERVAL} seconds, when the
+ * player leaves, or when the plugin shuts down. Metadata for joining players
+ * is loaded ahead of time, with players joining at the same time sharing a
+ * single query.
+ */
+public final class PersistentMetaBuffer {
+
+    /**
+     * Pending changes per player. A null value removes the key.
+     */
+    private static final Map<UUID, Map<String, byte[]>> pending = new ConcurrentHashMap<>();
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private static final Cache<UUID, CompletableFuture<Map<String, byte[]>>> loads =
+        CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.MINUTES).build();
+    private static final Queue<UUID> loadQueue = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean loadScheduled = new AtomicBoolean();
+
+    private PersistentMetaBuffer() {
+    }
+
+    /**
+     * Buffer a new value for a key.
+     *
+     * @param uuid  the player
+     * @param key   the metadata key
+     * @param value the new value
+     */
+    public static void set(@NotNull final UUID uuid, @NotNull final String key,
+        @NotNull final byte[] value) {
+        put(uuid, key, value);
+    }
+
+    /**
+     * Buffer the removal of a key.
+     *
+     * @param uuid the player
+     * @param key  the metadata key
+     */
+    public static void remove(@NotNull final UUID uuid, @NotNull final String key) {
+        put(uuid, key, null);
+    }
+
+    private static void put(final UUID uuid, final String key, final byte[] value) {
+        pending.compute(uuid, (ignored, changes) -> {
+            if (changes == null) {
+                changes = new HashMap<>();
+            }
+            changes.put(key, value);
+            return changes;
+        });
+        if (flushScheduled.compareAndSet(false, true)) {
+            TaskManager.runTaskLaterAsync(() -> {
+                flushScheduled.set(false);
+                flushAll();
+            }, Math.max(1, Settings.Persistent_Meta.FLUSH_INTERVAL * 20));
+        }
+    }
+
+    /**
+     * Write the pending changes of a single player.
+     *
+     * @param uuid the player
+     */
+    public static void flush(@NotNull final UUID uuid) {
+        final Map<String, byte[]> changes = pending.remove(uuid);
+        if (changes != null) {
+            final Map<UUID, Map<String, byte[]>> batch = new HashMap<>();
+            batch.put(uuid, changes);
+            DBFunc.updatePersistentMeta(batch);
+        }
+    }
+
+    /**
+     * Write the pending changes of all players in one batch.
+     */
+    public static void flushAll() {
+        final Map<UUID, Map<String, byte[]>> batch = new HashMap<>();
+        for (final UUID uuid : pending.keySet()) {
+            final Map<String, byte[]> changes = pending.remove(uuid);
+            if (changes != null) {
+                batch.put(uuid, changes);
+            }
+        }
+        if (!batch.isEmpty()) {
+            DBFunc.updatePersistentMeta(batch);
+        }
+    }
+
+    /**
+     * Apply the pending changes of a player to metadata loaded from the database,
+     * so that values which have not been written yet are not lost.
+     *
+     * @param uuid   the player
+     * @param loaded the loaded metadata, which is modified in place
+     * @return the loaded metadata
+     */
+    @NotNull public static Map<String, byte[]> overlay(@NotNull final UUID uuid,
+        @NotNull final Map<String, byte[]> loaded) {
+        pending.computeIfPresent(uuid, (ignored, changes) -> {
+            for (final Map.Entry<String, byte[]> change : changes.entrySet()) {
+                if (change.getValue() == null) {
+                    loaded.remove(change.getKey());
+                } else {
+                    loaded.put(change.getKey(), change.getValue());
+                }
+            }
+            return changes;
+        });
+        return loaded;
+    }
+
+    /**
+     * Start loading the metadata of a joining player. Requests made within
+     * the same tick are loaded together.
+     *
+     * @param uuid the player
+     * @return a future completed with the loaded metadata
+     */
+    @NotNull public static CompletableFuture<Map<String, byte[]>> preload(
+        @NotNull final UUID uuid) {
+        final CompletableFuture<Map<String, byte[]>> future =
+            loads.asMap().computeIfAbsent(uuid, ignored -> {
+                loadQueue.add(uuid);
+                return new CompletableFuture<>();
+            });
+        if (loadScheduled.compareAndSet(false, true)) {
+            TaskManager.runTaskLaterAsync(PersistentMetaBuffer::load, 1);
+        }
+        return future;
+    }
+
+    /**
+     * Take the preloaded metadata of a player, with pending changes applied.
+     *
+     * @param uuid the player
+     * @return the metadata, or null if it was not preloaded or has not finished loading
+     */
+    @Nullable public static Map<String, byte[]> takePreloaded(@NotNull final UUID uuid) {
+        final CompletableFuture<Map<String, byte[]>> future = loads.asMap().remove(uuid);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return overlay(uuid, future.join());
+    }
+
+    private static void load() {
+        loadScheduled.set(false);
+        final List<UUID> uuids = new ArrayList<>();
+        UUID uuid;
+        while ((uuid = loadQueue.poll()) != null) {
+            uuids.add(uuid);
+        }
+        if (uuids.isEmpty()) {
+            return;
+        }
+        if (DBFunc.dbManager == null) {
+            complete(uuids, null);
+            return;
+        }
+        DBFunc.getPersistentMeta(uuids, new RunnableVal<Map<UUID, Map<String, byte[]>>>() {
+            @Override public void run(Map<UUID, Map<String, byte[]>> value) {
+                complete(uuids, value);
+            }
+        });
+    }
+
+    private static void complete(final List<UUID> uuids,
+        @Nullable final Map<UUID, Map<String, byte[]>> result) {
+        for (final UUID uuid : uuids) {
+            final CompletableFuture<Map<String, byte[]>> future = loads.getIfPresent(uuid);
+            if (future == null) {
+                continue;
+            }
+            if (result == null) {
+                future.completeExceptionally(
+                    new IllegalStateException("Could not load persistent metadata"));
+            } else {
+                future.complete(result.getOrDefault(uuid, new HashMap<>()));
+            }
+        }
+    }
+}
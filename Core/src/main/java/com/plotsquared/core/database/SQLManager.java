@@ -45,6 +45,7 @@ import com.plotsquared.core.plot.flag.PlotFlag;
 import com.plotsquared.core.plot.flag.types.BlockTypeListFlag;
 import com.plotsquared.core.util.MainUtil;
 import com.plotsquared.core.util.StringMan;
+import com.plotsquared.core.util.task.AsyncPool;
 import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.TaskManager;
 import org.jetbrains.annotations.NotNull;
@@ -127,6 +128,8 @@ public class SQLManager implements AbstractDB {
     // Private
     private Connection connection;
     private boolean closed = false;
+    // Notified when a task that a player is waiting for is queued, see wakeUp()
+    private final Object idle = new Object();
 
     /**
      * Constructor
@@ -177,7 +180,8 @@ public class SQLManager implements AbstractDB {
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        TaskManager.runTaskAsync(() -> {
+        // Runs until the connection is closed, so keep it out of the bounded pools
+        TaskManager.IMP.taskAsync(() -> {
             long last = System.currentTimeMillis();
             while (true) {
                 if (SQLManager.this.closed) {
@@ -207,7 +211,11 @@ public class SQLManager implements AbstractDB {
                     }
                 } else {
                     try {
-                        Thread.sleep(1000);
+                        synchronized (SQLManager.this.idle) {
+                            if (globalTasks.isEmpty()) {
+                                SQLManager.this.idle.wait(1000);
+                            }
+                        }
                     } catch (InterruptedException e) {
                         e.printStackTrace();
                     }
@@ -216,6 +224,16 @@ public class SQLManager implements AbstractDB {
         });
     }
 
+    /**
+     * Wake the batch loop if it is idle, so that a queued task does not wait for
+     * the idle sleep to end
+     */
+    private void wakeUp() {
+        synchronized (this.idle) {
+            this.idle.notifyAll();
+        }
+    }
+
     public boolean isValid() {
         try {
             if (connection.isClosed()) {
@@ -2128,7 +2146,7 @@ public class SQLManager implements AbstractDB {
                 return;
             }
             future.complete(true);
-        });
+        }, AsyncPool.DATABASE);
         return future;
     }
 
@@ -2701,6 +2719,75 @@ public class SQLManager implements AbstractDB {
         });
     }
 
+    @Override public void getPersistentMeta(final Collection<UUID> uuids,
+        final RunnableVal<Map<UUID, Map<String, byte[]>>> result) {
+        addGlobalTask(() -> {
+            final Map<UUID, Map<String, byte[]>> metaMaps = new HashMap<>();
+            final List<UUID> list = new ArrayList<>(uuids);
+            try {
+                for (int start = 0; start < list.size(); start += 100) {
+                    final List<UUID> chunk = list.subList(start, Math.min(list.size(), start + 100));
+                    final String placeholders = StringMan.repeat("?,", chunk.size() - 1) + "?";
+                    try (PreparedStatement statement = SQLManager.this.connection.prepareStatement(
+                        "SELECT * FROM `" + SQLManager.this.prefix
+                            + "player_meta` WHERE `uuid` IN (" + placeholders
+                            + ") ORDER BY `meta_id` ASC")) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            statement.setString(i + 1, chunk.get(i).toString());
+                        }
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                UUID uuid = UUID.fromString(resultSet.getString("uuid"));
+                                String key = resultSet.getString("key");
+                                byte[] bytes = resultSet.getBytes("value");
+                                metaMaps.computeIfAbsent(uuid, ignored -> new HashMap<>())
+                                    .put(key, bytes);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                TaskManager.runTaskAsync(() -> result.run(null));
+                return;
+            }
+            TaskManager.runTaskAsync(() -> result.run(metaMaps));
+        });
+        // Joining players wait for this load during the login
+        wakeUp();
+    }
+
+    @Override public void updatePersistentMeta(final Map<UUID, Map<String, byte[]>> changes) {
+        addGlobalTask(() -> {
+            // Replace every changed key, so the batch does not depend on which rows exist
+            try (PreparedStatement delete = SQLManager.this.connection.prepareStatement(
+                "DELETE FROM `" + SQLManager.this.prefix
+                    + "player_meta` WHERE `uuid` = ? AND `key` = ?");
+                PreparedStatement insert = SQLManager.this.connection.prepareStatement(
+                    "INSERT INTO `" + SQLManager.this.prefix
+                        + "player_meta`(`uuid`, `key`, `value`) VALUES(?, ?, ?)")) {
+                for (Entry<UUID, Map<String, byte[]>> entry : changes.entrySet()) {
+                    String uuid = entry.getKey().toString();
+                    for (Entry<String, byte[]> change : entry.getValue().entrySet()) {
+                        delete.setString(1, uuid);
+                        delete.setString(2, change.getKey());
+                        delete.addBatch();
+                        if (change.getValue() != null) {
+                            insert.setString(1, uuid);
+                            insert.setString(2, change.getKey());
+                            insert.setBytes(3, change.getValue());
+                            insert.addBatch();
+                        }
+                    }
+                }
+                delete.executeBatch();
+                insert.executeBatch();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
     @Override public HashMap<String, Set<PlotCluster>> getClusters() {
         LinkedHashMap<String, Set<PlotCluster>> newClusters = new LinkedHashMap<>();
         HashMap<Integer, PlotCluster> clusters = new HashMap<>();
@@ -50,6 +50,7 @@ import com.plotsquared.core.util.RegionManager;
 import com.plotsquared.core.util.RegionUtil;
 import com.plotsquared.core.util.SchematicHandler;
 import com.plotsquared.core.util.WorldUtil;
+import com.plotsquared.core.util.task.AsyncPool;
 import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.TaskManager;
 import com.sk89q.jnbt.CompoundTag;
@@ -224,7 +225,7 @@ public abstract class HybridUtils {
                 System.gc();
                 whenDone.value = analysis;
                 whenDone.run();
-            });
+            }, AsyncPool.CPU);
             System.gc();
             MainUtil.initCache();
             Location botLoc = new Location(world, bot.getX(), bot.getY(), bot.getZ());
@@ -281,6 +282,18 @@ public abstract class HybridUtils {
     }
 
     public void analyzePlot(final Plot origin, final RunnableVal<PlotAnalysis> whenDone) {
+        analyzePlot(origin, whenDone, true);
+    }
+
+    /**
+     * Analyse a plot
+     *
+     * @param origin      Plot to analyse
+     * @param whenDone    Receives the analysis
+     * @param storeResult Whether the analysis should be stored in the plot's analysis flag
+     */
+    public void analyzePlot(final Plot origin, final RunnableVal<PlotAnalysis> whenDone,
+        final boolean storeResult) {
         final ArrayDeque<CuboidRegion> zones = new ArrayDeque<>(origin.getRegions());
         final ArrayList<PlotAnalysis> analysis = new ArrayList<>();
         Runnable run = new Runnable() {
@@ -325,14 +338,15 @@ public abstract class HybridUtils {
                     result.add(whenDone.value.data_sd);
                     result.add(whenDone.value.air_sd);
                     result.add(whenDone.value.variety_sd);
-                    PlotFlag<?, ?> plotFlag =
-                        GlobalFlagContainer.getInstance().getFlag(AnalysisFlag.class)
-                            .createFlagInstance(result);
-                    PlotFlagAddEvent event = new PlotFlagAddEvent(plotFlag, origin);
-                    if (event.getEventResult() == Result.DENY) {
-                        return;
+                    if (storeResult) {
+                        PlotFlag<?, ?> plotFlag =
+                            GlobalFlagContainer.getInstance().getFlag(AnalysisFlag.class)
+                                .createFlagInstance(result);
+                        PlotFlagAddEvent event = new PlotFlagAddEvent(plotFlag, origin);
+                        if (event.getEventResult() != Result.DENY) {
+                            origin.setFlag(event.getFlag());
+                        }
                     }
-                    origin.setFlag(event.getFlag());
                     TaskManager.runTask(whenDone);
                     return;
                 }
@@ -36,6 +36,7 @@ import com.plotsquared.core.util.RegionManager;
 import com.sk89q.worldedit.regions.CuboidRegion;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -52,7 +53,7 @@ public abstract class SquarePlotManager extends GridPlotManager {
     }
 
     @Override public boolean clearPlot(final Plot plot, final Runnable whenDone) {
-        final Set<CuboidRegion> regions = plot.getRegions();
+        final Set<CuboidRegion> regions = new HashSet<>(plot.getRegions());
         Runnable run = new Runnable() {
             @Override public void run() {
                 if (regions.isEmpty()) {
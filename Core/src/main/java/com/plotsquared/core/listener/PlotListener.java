@@ -32,6 +32,7 @@ import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.events.PlotFlagRemoveEvent;
 import com.plotsquared.core.events.Result;
 import com.plotsquared.core.location.Location;
+import com.plotsquared.core.player.MetaDataKey;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
@@ -61,66 +62,64 @@ import com.plotsquared.core.util.StringMan;
 import com.plotsquared.core.util.WorldUtil;
 import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.TaskManager;
+import com.plotsquared.core.util.task.TimingWheel;
 import com.sk89q.worldedit.world.gamemode.GameMode;
 import com.sk89q.worldedit.world.gamemode.GameModes;
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 
 public class PlotListener {
 
-    private static final HashMap<UUID, Interval> feedRunnable = new HashMap<>();
-    private static final HashMap<UUID, Interval> healRunnable = new HashMap<>();
+    private static final MetaDataKey<Location> MUSIC = MetaDataKey.of("music", Location.class);
+    private static final TimingWheel effects = new TimingWheel(256);
+    private static final Map<UUID, TimingWheel.Timeout> feedRunnable = new HashMap<>();
+    private static final Map<UUID, TimingWheel.Timeout> healRunnable = new HashMap<>();
 
     public static void startRunnable() {
-        TaskManager.runTaskRepeat(() -> {
-            if (!healRunnable.isEmpty()) {
-                for (Iterator<Map.Entry<UUID, Interval>> iterator =
-                     healRunnable.entrySet().iterator(); iterator.hasNext(); ) {
-                    Map.Entry<UUID, Interval> entry = iterator.next();
-                    Interval value = entry.getValue();
-                    ++value.count;
-                    if (value.count == value.interval) {
-                        value.count = 0;
-                        PlotPlayer player = WorldUtil.IMP.wrapPlayer(entry.getKey());
-                        if (player == null) {
-                            iterator.remove();
-                            continue;
-                        }
-                        double level = WorldUtil.IMP.getHealth(player);
-                        if (level != value.max) {
-                            WorldUtil.IMP
-                                .setHealth(player, Math.min(level + value.amount, value.max));
-                        }
-                    }
-                }
+        TaskManager.runTaskRepeat(effects::tick, 1);
+    }
+
+    /**
+     * Restore health or food of a player every {@code interval} seconds, replacing
+     * any previously scheduled effect of the same kind
+     */
+    private static void scheduleEffect(final Map<UUID, TimingWheel.Timeout> running,
+        final UUID uuid, final int interval, final int amount, final boolean heal) {
+        cancelEffect(running, uuid);
+        if (interval <= 0) {
+            return;
+        }
+        final int max = 20;
+        running.put(uuid, effects.schedule(() -> {
+            PlotPlayer<?> player = WorldUtil.IMP.wrapPlayer(uuid);
+            if (player == null) {
+                cancelEffect(running, uuid);
+                return;
             }
-            if (!feedRunnable.isEmpty()) {
-                for (Iterator<Map.Entry<UUID, Interval>> iterator =
-                     feedRunnable.entrySet().iterator(); iterator.hasNext(); ) {
-                    Map.Entry<UUID, Interval> entry = iterator.next();
-                    Interval value = entry.getValue();
-                    ++value.count;
-                    if (value.count == value.interval) {
-                        value.count = 0;
-                        PlotPlayer player = WorldUtil.IMP.wrapPlayer(entry.getKey());
-                        if (player == null) {
-                            iterator.remove();
-                            continue;
-                        }
-                        int level = WorldUtil.IMP.getFoodLevel(player);
-                        if (level != value.max) {
-                            WorldUtil.IMP
-                                .setFoodLevel(player, Math.min(level + value.amount, value.max));
-                        }
-                    }
+            if (heal) {
+                double level = WorldUtil.IMP.getHealth(player);
+                if (level != max) {
+                    WorldUtil.IMP.setHealth(player, Math.min(level + amount, max));
+                }
+            } else {
+                int level = WorldUtil.IMP.getFoodLevel(player);
+                if (level != max) {
+                    WorldUtil.IMP.setFoodLevel(player, Math.min(level + amount, max));
                 }
             }
-        }, 20);
+        }, interval * 20, interval * 20));
+    }
+
+    private static void cancelEffect(final Map<UUID, TimingWheel.Timeout> running,
+        final UUID uuid) {
+        final TimingWheel.Timeout timeout = running.remove(uuid);
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
     public static boolean plotEntry(final PlotPlayer<?> player, final Plot plot) {
@@ -128,14 +127,14 @@ public class PlotListener {
             .hasPermission(player, "plots.admin.entry.denied")) {
             return false;
         }
-        Plot last = player.getMeta(PlotPlayer.META_LAST_PLOT);
+        Plot last = player.getMeta(PlotPlayer.LAST_PLOT);
         if ((last != null) && !last.getId().equals(plot.getId())) {
             plotExit(player, last);
         }
         if (ExpireManager.IMP != null) {
             ExpireManager.IMP.handleEntry(player, plot);
         }
-        player.setMeta(PlotPlayer.META_LAST_PLOT, plot);
+        player.setMeta(PlotPlayer.LAST_PLOT, plot);
         PlotSquared.get().getEventDispatcher().callEntry(player, plot);
         if (plot.hasOwner()) {
             // This will inherit values from PlotArea
@@ -214,10 +213,15 @@ public class PlotListener {
                 } catch (Exception ignored) {
                     PlotFlag<?, ?> plotFlag =
                         GlobalFlagContainer.getInstance().getFlag(TimeFlag.class);
-                    PlotFlagRemoveEvent event =
-                        PlotSquared.get().getEventDispatcher().callFlagRemove(plotFlag, plot);
-                    if (event.getEventResult() != Result.DENY) {
-                        plot.removeFlag(event.getFlag());
+                    if (!PlotSquared.get().getEventDispatcher()
+                        .hasListeners(PlotFlagRemoveEvent.class)) {
+                        plot.removeFlag(plotFlag);
+                    } else {
+                        PlotFlagRemoveEvent event =
+                            PlotSquared.get().getEventDispatcher().callFlagRemove(plotFlag, plot);
+                        if (event.getEventResult() != Result.DENY) {
+                            plot.removeFlag(event.getFlag());
+                        }
                     }
                 }
             }
@@ -229,25 +233,25 @@ public class PlotListener {
                 final String rawId = musicFlag.getId();
                 if (rawId.contains("disc") || musicFlag == ItemTypes.AIR) {
                     Location location = player.getLocation();
-                    Location lastLocation = player.getMeta("music");
+                    Location lastLocation = player.getMeta(MUSIC);
                     if (lastLocation != null) {
                         player.playMusic(lastLocation, musicFlag);
                         if (musicFlag == ItemTypes.AIR) {
-                            player.deleteMeta("music");
+                            player.deleteMeta(MUSIC);
                         }
                     }
                     if (musicFlag != ItemTypes.AIR) {
                         try {
-                            player.setMeta("music", location);
+                            player.setMeta(MUSIC, location);
                             player.playMusic(location, musicFlag);
                         } catch (Exception ignored) {
                         }
                     }
                 }
             } else {
-                Location lastLoc = player.getMeta("music");
+                Location lastLoc = player.getMeta(MUSIC);
                 if (lastLoc != null) {
-                    player.deleteMeta("music");
+                    player.deleteMeta(MUSIC);
                     player.playMusic(lastLoc, ItemTypes.AIR);
                 }
             }
@@ -257,7 +261,7 @@ public class PlotListener {
                 if (!Captions.TITLE_ENTERED_PLOT.getTranslated().isEmpty()
                     || !Captions.TITLE_ENTERED_PLOT_SUB.getTranslated().isEmpty()) {
                     TaskManager.runTaskLaterAsync(() -> {
-                        Plot lastPlot = player.getMeta(PlotPlayer.META_LAST_PLOT);
+                        Plot lastPlot = player.getMeta(PlotPlayer.LAST_PLOT);
                         if ((lastPlot != null) && plot.getId().equals(lastPlot.getId())) {
                             Map<String, String> replacements = new HashMap<>();
                             replacements.put("%x%", String.valueOf(lastPlot.getId().x));
@@ -280,13 +284,13 @@ public class PlotListener {
 
             TimedFlag.Timed<Integer> feed = plot.getFlag(FeedFlag.class);
             if (feed != null && feed.getInterval() != 0 && feed.getValue() != 0) {
-                feedRunnable
-                    .put(player.getUUID(), new Interval(feed.getInterval(), feed.getValue(), 20));
+                scheduleEffect(feedRunnable, player.getUUID(), feed.getInterval(),
+                    feed.getValue(), false);
             }
             TimedFlag.Timed<Integer> heal = plot.getFlag(HealFlag.class);
             if (heal != null && heal.getInterval() != 0 && heal.getValue() != 0) {
-                healRunnable
-                    .put(player.getUUID(), new Interval(heal.getInterval(), heal.getValue(), 20));
+                scheduleEffect(healRunnable, player.getUUID(), heal.getInterval(),
+                    heal.getValue(), true);
             }
             return true;
         }
@@ -294,7 +298,7 @@ public class PlotListener {
     }
 
     public static boolean plotExit(final PlotPlayer<?> player, Plot plot) {
-        Object previous = player.deleteMeta(PlotPlayer.META_LAST_PLOT);
+        Plot previous = player.deleteMeta(PlotPlayer.LAST_PLOT);
         PlotSquared.get().getEventDispatcher().callLeave(player, plot);
         if (plot.hasOwner()) {
             PlotArea pw = plot.getArea();
@@ -303,9 +307,9 @@ public class PlotListener {
             }
             if (plot.getFlag(DenyExitFlag.class) && !Permissions
                 .hasPermission(player, Captions.PERMISSION_ADMIN_EXIT_DENIED) && !player
-                .getMeta("kick", false)) {
+                .getMeta(PlotPlayer.KICK, false)) {
                 if (previous != null) {
-                    player.setMeta(PlotPlayer.META_LAST_PLOT, previous);
+                    player.setMeta(PlotPlayer.LAST_PLOT, previous);
                 }
                 return false;
             }
@@ -371,34 +375,20 @@ public class PlotListener {
                 player.setWeather(PlotWeather.RESET);
             }
 
-            Location lastLoc = player.getMeta("music");
+            Location lastLoc = player.getMeta(MUSIC);
             if (lastLoc != null) {
-                player.deleteMeta("music");
+                player.deleteMeta(MUSIC);
                 player.playMusic(lastLoc, ItemTypes.AIR);
             }
 
-            feedRunnable.remove(player.getUUID());
-            healRunnable.remove(player.getUUID());
+            cancelEffect(feedRunnable, player.getUUID());
+            cancelEffect(healRunnable, player.getUUID());
         }
         return true;
     }
 
     public static void logout(UUID uuid) {
-        feedRunnable.remove(uuid);
-        healRunnable.remove(uuid);
-    }
-
-    private static class Interval {
-
-        final int interval;
-        final int amount;
-        final int max;
-        int count = 0;
-
-        Interval(int interval, int amount, int max) {
-            this.interval = interval;
-            this.amount = amount;
-            this.max = max;
-        }
+        cancelEffect(feedRunnable, uuid);
+        cancelEffect(healRunnable, uuid);
     }
 }
@@ -112,8 +112,8 @@ public class ConsolePlayer extends PlotPlayer<Actor> {
     }
 
     @Override public void teleport(Location location, TeleportCause cause) {
-        setMeta(META_LAST_PLOT, location.getPlot());
-        setMeta(META_LOCATION, location);
+        setMeta(LAST_PLOT, location.getPlot());
+        setMeta(LOCATION, location);
     }
 
     @Override public boolean isOnline() {
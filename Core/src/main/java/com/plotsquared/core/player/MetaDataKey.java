@@ -0,0 +1,129 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.player;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pre-registered, typed key for {@link PlotPlayer} session metadata.
+ * <p>
+ * Every key is assigned a dense id when it is created, which players use
+ * as an index into their metadata slot array. Reading or writing a value
+ * through a key therefore avoids hashing the key name on every access.
+ * Values stored under the key's name through the string based metadata
+ * methods share the same slot.
+ * <p>
+ * Keys should be created once and kept in a static field.
+ *
+ * @param <T> the type of the value stored under this key
+ */
+public final class MetaDataKey<T> {
+
+    private static final Map<String, MetaDataKey<?>> keys = new ConcurrentHashMap<>();
+    private static final List<MetaDataKey<?>> byId = new ArrayList<>();
+    private static volatile int idCount;
+
+    @Getter private final String name;
+    @Getter private final Class<T> type;
+    private final int id;
+
+    private MetaDataKey(@NotNull final String name, @NotNull final Class<T> type, final int id) {
+        this.name = name;
+        this.type = type;
+        this.id = id;
+    }
+
+    /**
+     * Get or register the key with the given name.
+     *
+     * @param name the name of the key, as used by the string based metadata methods
+     * @param type the type of the value stored under the key
+     * @param <T>  the value type
+     * @return the key
+     * @throws IllegalArgumentException if the name is already registered with a different type
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull public static synchronized <T> MetaDataKey<T> of(@NotNull final String name,
+        @NotNull final Class<T> type) {
+        MetaDataKey<?> key = keys.get(name);
+        if (key == null) {
+            key = new MetaDataKey<>(name, type, byId.size());
+            byId.add(key);
+            keys.put(name, key);
+            idCount = byId.size();
+        }
+        if (key.type != type) {
+            throw new IllegalArgumentException(String
+                .format("Metadata key %s is already registered with type %s", name,
+                    key.type.getSimpleName()));
+        }
+        return (MetaDataKey<T>) key;
+    }
+
+    /**
+     * Get the registered key with the given name.
+     *
+     * @param name the name of the key
+     * @return the key, or null if no key with that name has been registered
+     */
+    @Nullable static MetaDataKey<?> get(@NotNull final String name) {
+        return keys.get(name);
+    }
+
+    /**
+     * Get the number of registered keys, which is one more than the highest id.
+     *
+     * @return the number of keys
+     */
+    static int getIdCount() {
+        return idCount;
+    }
+
+    /**
+     * Get the name of the key with the given id.
+     *
+     * @param id the key id
+     * @return the key name
+     */
+    @NotNull static synchronized String getName(final int id) {
+        return byId.get(id).name;
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    @Override public String toString() {
+        return this.name;
+    }
+}
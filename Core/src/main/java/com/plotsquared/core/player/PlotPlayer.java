@@ -33,12 +33,14 @@ import com.plotsquared.core.configuration.CaptionUtility;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.database.DBFunc;
+import com.plotsquared.core.database.PersistentMetaBuffer;
 import com.plotsquared.core.events.TeleportCause;
 import com.plotsquared.core.location.Location;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.PlotCluster;
 import com.plotsquared.core.plot.PlotId;
+import com.plotsquared.core.plot.PlotOccupants;
 import com.plotsquared.core.plot.PlotWeather;
 import com.plotsquared.core.plot.expiration.ExpireManager;
 import com.plotsquared.core.plot.flag.implementations.DoneFlag;
@@ -46,6 +48,7 @@ import com.plotsquared.core.plot.world.PlotAreaManager;
 import com.plotsquared.core.plot.world.SinglePlotArea;
 import com.plotsquared.core.plot.world.SinglePlotAreaManager;
 import com.plotsquared.core.util.EconHandler;
+import com.plotsquared.core.util.PermissionCache;
 import com.plotsquared.core.util.Permissions;
 import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.TaskManager;
@@ -66,6 +69,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +79,12 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
 
     public static final String META_LAST_PLOT = "lastplot";
     public static final String META_LOCATION = "location";
+    public static final String META_KICK = "kick";
+
+    public static final MetaDataKey<Plot> LAST_PLOT = MetaDataKey.of(META_LAST_PLOT, Plot.class);
+    public static final MetaDataKey<Location> LOCATION =
+        MetaDataKey.of(META_LOCATION, Location.class);
+    public static final MetaDataKey<Boolean> KICK = MetaDataKey.of(META_KICK, Boolean.class);
 
     // Used to track debug mode
     private static final Set<PlotPlayer<?>> debugModeEnabled = Collections.synchronizedSet(new HashSet<>());
@@ -82,9 +92,15 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
     private static final Map<Class, PlotPlayerConverter> converters = new HashMap<>();
     private Map<String, byte[]> metaMap = new HashMap<>();
     /**
-     * The metadata map.
+     * The metadata slots, indexed by {@link MetaDataKey} id.
+     */
+    private final AtomicReferenceArray<Object> metaSlots =
+        new AtomicReferenceArray<>(MetaDataKey.getIdCount());
+    /**
+     * The metadata map, for keys without a slot.
      */
-    private ConcurrentHashMap<String, Object> meta;
+    private volatile ConcurrentHashMap<String, Object> meta;
+    private final PermissionCache permissionCache = new PermissionCache();
     private int hash;
 
     public static <T> PlotPlayer<T> from(@NonNull final T object) {
@@ -143,13 +159,30 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @param value
      */
     public void setMeta(String key, Object value) {
-        if (value == null) {
+        final MetaDataKey<?> typed = MetaDataKey.get(key);
+        if (typed != null && hasSlot(typed)) {
+            setSlot(typed, value);
+        } else if (value == null) {
             deleteMeta(key);
         } else {
-            if (this.meta == null) {
-                this.meta = new ConcurrentHashMap<>();
-            }
-            this.meta.put(key, value);
+            getMetaMap().put(key, value);
+        }
+    }
+
+    /**
+     * Set some session only metadata for this player.
+     *
+     * @param key   the metadata key
+     * @param value the value, or null to delete the metadata
+     * @param <T>   the value type
+     */
+    public <T> void setMeta(@NotNull final MetaDataKey<T> key, final T value) {
+        if (hasSlot(key)) {
+            setSlot(key, value);
+        } else if (value == null) {
+            deleteMeta(key.getName());
+        } else {
+            getMetaMap().put(key.getName(), value);
         }
     }
 
@@ -161,8 +194,31 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @return the value assigned to the key or null if it does not exist
      */
     public <T> T getMeta(String key) {
-        if (this.meta != null) {
-            return (T) this.meta.get(key);
+        final MetaDataKey<?> typed = MetaDataKey.get(key);
+        if (typed != null && hasSlot(typed)) {
+            return (T) this.metaSlots.get(typed.getId());
+        }
+        final Map<String, Object> meta = this.meta;
+        if (meta != null) {
+            return (T) meta.get(key);
+        }
+        return null;
+    }
+
+    /**
+     * Get the session metadata for a key.
+     *
+     * @param key the metadata key
+     * @param <T> the value type
+     * @return the value assigned to the key or null if it does not exist
+     */
+    public <T> T getMeta(@NotNull final MetaDataKey<T> key) {
+        if (hasSlot(key)) {
+            return (T) this.metaSlots.get(key.getId());
+        }
+        final Map<String, Object> meta = this.meta;
+        if (meta != null) {
+            return (T) meta.get(key.getName());
         }
         return null;
     }
@@ -175,10 +231,43 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
         return meta;
     }
 
-    public ConcurrentHashMap<String, Object> getMeta() {
+    public <T> T getMeta(@NotNull final MetaDataKey<T> key, T defaultValue) {
+        T meta = getMeta(key);
+        if (meta == null) {
+            return defaultValue;
+        }
         return meta;
     }
 
+    /**
+     * Get a snapshot of all session metadata for this player.
+     *
+     * @return a copy of the metadata, keyed by name
+     */
+    public ConcurrentHashMap<String, Object> getMeta() {
+        final ConcurrentHashMap<String, Object> snapshot = new ConcurrentHashMap<>();
+        final Map<String, Object> meta = this.meta;
+        if (meta != null) {
+            snapshot.putAll(meta);
+        }
+        for (int id = 0; id < this.metaSlots.length(); id++) {
+            final Object value = this.metaSlots.get(id);
+            if (value != null) {
+                snapshot.put(MetaDataKey.getName(id), value);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the cache of permission checks for this player.
+     *
+     * @return the permission cache
+     */
+    public PermissionCache getPermissionCache() {
+        return this.permissionCache;
+    }
+
     /**
      * Delete the metadata for a key.
      * - metadata is session only
@@ -187,7 +276,53 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @param key
      */
     public Object deleteMeta(String key) {
-        return this.meta == null ? null : this.meta.remove(key);
+        final MetaDataKey<?> typed = MetaDataKey.get(key);
+        if (typed != null && hasSlot(typed)) {
+            return setSlot(typed, null);
+        }
+        final Map<String, Object> meta = this.meta;
+        return meta == null ? null : meta.remove(key);
+    }
+
+    /**
+     * Delete the metadata for a key.
+     *
+     * @param key the metadata key
+     * @param <T> the value type
+     * @return the previous value, or null if there was none
+     */
+    public <T> T deleteMeta(@NotNull final MetaDataKey<T> key) {
+        if (hasSlot(key)) {
+            return (T) setSlot(key, null);
+        }
+        final Map<String, Object> meta = this.meta;
+        return meta == null ? null : (T) meta.remove(key.getName());
+    }
+
+    private boolean hasSlot(@NotNull final MetaDataKey<?> key) {
+        // Keys registered after this player was created live in the map
+        return key.getId() < this.metaSlots.length();
+    }
+
+    private Object setSlot(@NotNull final MetaDataKey<?> key, final Object value) {
+        final Object previous = this.metaSlots.getAndSet(key.getId(), value);
+        if (key == LAST_PLOT && previous != value) {
+            PlotOccupants.move(this, previous, value);
+        }
+        return previous;
+    }
+
+    private ConcurrentHashMap<String, Object> getMetaMap() {
+        ConcurrentHashMap<String, Object> meta = this.meta;
+        if (meta == null) {
+            synchronized (this.metaSlots) {
+                meta = this.meta;
+                if (meta == null) {
+                    this.meta = meta = new ConcurrentHashMap<>();
+                }
+            }
+        }
+        return meta;
     }
 
     /**
@@ -205,7 +340,7 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @return the plot the player is standing on or null if standing on a road or not in a {@link PlotArea}
      */
     public Plot getCurrentPlot() {
-        Plot value = getMeta(PlotPlayer.META_LAST_PLOT);
+        Plot value = getMeta(LAST_PLOT);
         if (value == null && !Settings.Enabled_Components.EVENTS) {
             return getLocation().getPlot();
         }
@@ -365,7 +500,7 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @return The location
      */
     @NotNull public Location getLocation() {
-        Location location = getMeta("location");
+        Location location = getMeta(LOCATION);
         if (location != null) {
             return location.copy(); // Always return a copy of the location
         }
@@ -435,9 +570,9 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
      * @param location the target location
      */
     public void plotkick(Location location) {
-        setMeta("kick", true);
+        setMeta(KICK, true);
         teleport(location);
-        deleteMeta("kick");
+        deleteMeta(KICK);
     }
 
     /**
@@ -574,6 +709,7 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
         } else if (hasPersistentMeta("quitLoc")) {
             removePersistentMeta("quitLoc");
         }
+        PersistentMetaBuffer.flush(getUUID());
         if (plot != null) {
             PlotSquared.get().getEventDispatcher().callLeave(this, plot);
         }
@@ -590,6 +726,7 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
         }
         PlotSquared.imp().getPlayerManager().removePlayer(this);
         PlotSquared.get().IMP.unregister(this);
+        PlotOccupants.move(this, getMeta(LAST_PLOT), null);
 
         debugModeEnabled.remove(this);
     }
@@ -631,10 +768,10 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
 
     public void populatePersistentMetaMap() {
         if (Settings.Enabled_Components.PERSISTENT_META) {
-            DBFunc.getPersistentMeta(getUUID(), new RunnableVal<Map<String, byte[]>>() {
+            final RunnableVal<Map<String, byte[]>> loaded = new RunnableVal<Map<String, byte[]>>() {
                 @Override public void run(Map<String, byte[]> value) {
                     try {
-                        PlotPlayer.this.metaMap = value;
+                        PlotPlayer.this.metaMap = PersistentMetaBuffer.overlay(getUUID(), value);
                         if (value.isEmpty()) {
                             return;
                         }
@@ -704,7 +841,13 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
                         e.printStackTrace();
                     }
                 }
-            });
+            };
+            final Map<String, byte[]> preloaded = PersistentMetaBuffer.takePreloaded(getUUID());
+            if (preloaded != null) {
+                TaskManager.runTaskAsync(() -> loaded.run(preloaded));
+            } else {
+                DBFunc.getPersistentMeta(getUUID(), loaded);
+            }
         }
     }
 
@@ -713,17 +856,15 @@ public abstract class PlotPlayer<P> implements CommandCaller, OfflinePlotPlayer
     }
 
     public void removePersistentMeta(String key) {
-        this.metaMap.remove(key);
-        if (Settings.Enabled_Components.PERSISTENT_META) {
-            DBFunc.removePersistentMeta(getUUID(), key);
+        if (this.metaMap.remove(key) != null && Settings.Enabled_Components.PERSISTENT_META) {
+            PersistentMetaBuffer.remove(getUUID(), key);
         }
     }
 
     public void setPersistentMeta(String key, byte[] value) {
-        boolean delete = hasPersistentMeta(key);
         this.metaMap.put(key, value);
         if (Settings.Enabled_Components.PERSISTENT_META) {
-            DBFunc.addPersistentMeta(getUUID(), key, value, delete);
+            PersistentMetaBuffer.set(getUUID(), key, value);
         }
     }
 
@@ -0,0 +1,406 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.location.Location;
+import com.plotsquared.core.util.MathMan;
+import com.plotsquared.core.util.WorldUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Raster of the plot areas and plots covering the 16x16 block columns of a
+ * chunk. Listeners that handle frequent block events (physics, liquid flow,
+ * pistons) use it to resolve plots with an array read instead of resolving
+ * the plot area and plot id for every event.
+ * <p>
+ * Rasters are built lazily for chunks that are queried, and only kept for
+ * loaded chunks. Claiming, merging or
+ * unclaiming a plot only discards the rasters of the chunks around that plot,
+ * while adding or removing a plot area discards the rasters of its world.
+ * Discarded rasters are replaced by new instances, so callers may compare
+ * raster identities to check whether a derived decision is still valid.
+ * Chunks covered by a single plot or road are stored as a summary.
+ */
+public final class ChunkPlotRaster {
+
+    private static final Map<String, WorldRasters> WORLDS = new ConcurrentHashMap<>();
+    private static final Source SOURCE = new Source() {
+        @Nullable @Override public PlotArea getPlotArea(@NotNull final Location location) {
+            return location.getPlotArea();
+        }
+
+        @Override public boolean isChunkLoaded(@NotNull final String world, final int chunkX,
+            final int chunkZ) {
+            return WorldUtil.IMP.isChunkLoaded(world, chunkX, chunkZ);
+        }
+    };
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final PlotArea[] areas;
+    private final PlotId[] ids;
+    private final Plot[] plots;
+    @Nullable private final byte[] cells;
+
+    private ChunkPlotRaster(final int chunkX, final int chunkZ, @NotNull final PlotArea[] areas,
+        @NotNull final PlotId[] ids, @NotNull final Plot[] plots, @Nullable final byte[] cells) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.areas = areas;
+        this.ids = ids;
+        this.plots = plots;
+        this.cells = cells;
+    }
+
+    /**
+     * Get the raster of the chunk containing a block column
+     *
+     * @param world World name
+     * @param x     Block x
+     * @param z     Block z
+     * @return Up to date raster
+     */
+    @NotNull public static ChunkPlotRaster get(@NotNull final String world, final int x, final int z) {
+        return getWorld(world).get(x, z);
+    }
+
+    /**
+     * Get the rasters of a world. The returned instance stays valid for as
+     * long as the server runs, so callers may keep it to skip the world lookup
+     *
+     * @param world World name
+     * @return World rasters
+     */
+    @NotNull public static WorldRasters getWorld(@NotNull final String world) {
+        return WORLDS.computeIfAbsent(world, key -> new WorldRasters(key, SOURCE));
+    }
+
+    /**
+     * Discard the rasters of the chunks overlapping a plot and the roads
+     * around it. This must be called whenever the owner or merge state of
+     * the plot changes
+     *
+     * @param plot Plot that changed
+     */
+    public static void invalidate(@NotNull final Plot plot) {
+        final PlotArea area = plot.getArea();
+        if (area == null) {
+            return;
+        }
+        final WorldRasters rasters = WORLDS.get(area.getWorldName());
+        if (rasters != null) {
+            rasters.invalidate(plot);
+        }
+    }
+
+    /**
+     * Discard all rasters of a world. This must be called whenever a plot
+     * area of the world is added or removed
+     *
+     * @param world World name
+     */
+    public static void invalidate(@NotNull final String world) {
+        final WorldRasters rasters = WORLDS.get(world);
+        if (rasters != null) {
+            rasters.modifications.incrementAndGet();
+            rasters.chunks.clear();
+            rasters.last = null;
+        }
+    }
+
+    /**
+     * Discard the raster of an unloaded chunk
+     *
+     * @param world  World name
+     * @param chunkX Chunk x
+     * @param chunkZ Chunk z
+     */
+    public static void unloadChunk(@NotNull final String world, final int chunkX, final int chunkZ) {
+        final WorldRasters rasters = WORLDS.get(world);
+        if (rasters != null) {
+            rasters.chunks.remove(MathMan.pairInt(chunkX, chunkZ));
+            rasters.last = null;
+        }
+    }
+
+    /**
+     * Discard all rasters of an unloaded world
+     *
+     * @param world World name
+     */
+    public static void unloadWorld(@NotNull final String world) {
+        final WorldRasters rasters = WORLDS.get(world);
+        if (rasters != null) {
+            rasters.modifications.incrementAndGet();
+            rasters.chunks.clear();
+            rasters.last = null;
+        }
+    }
+
+    @NotNull private static ChunkPlotRaster build(@NotNull final String world, final int chunkX,
+        final int chunkZ, @NotNull final Source source) {
+        final PlotArea[] areas = new PlotArea[256];
+        final PlotId[] ids = new PlotId[256];
+        final byte[] cells = new byte[256];
+        int size = 0;
+        final Location location = new Location(world, 0, 64, 0);
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                location.setX((chunkX << 4) + x);
+                location.setZ((chunkZ << 4) + z);
+                final PlotArea area = source.getPlotArea(location);
+                PlotId id = area == null ? null :
+                    area.getPlotManager().getPlotId(location.getX(), location.getY(), location.getZ());
+                if (id != null && !area.contains(id)) {
+                    // Ids outside of a partial area are roads
+                    id = null;
+                }
+                int index = 0;
+                while (index < size && (areas[index] != area || !equals(ids[index], id))) {
+                    index++;
+                }
+                if (index == size) {
+                    areas[size] = area;
+                    ids[size++] = id;
+                }
+                cells[z << 4 | x] = (byte) index;
+            }
+        }
+        final PlotArea[] areaPalette = new PlotArea[size];
+        final PlotId[] idPalette = new PlotId[size];
+        final Plot[] plotPalette = new Plot[size];
+        for (int i = 0; i < size; i++) {
+            areaPalette[i] = areas[i];
+            idPalette[i] = ids[i];
+            plotPalette[i] = areas[i] == null || ids[i] == null ? null : areas[i].getOwnedPlotAbs(ids[i]);
+        }
+        return new ChunkPlotRaster(chunkX, chunkZ, areaPalette, idPalette, plotPalette,
+            size == 1 ? null : cells);
+    }
+
+    private static boolean equals(@Nullable final PlotId a, @Nullable final PlotId b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private int index(final int x, final int z) {
+        return this.cells == null ? 0 : this.cells[(z & 15) << 4 | x & 15] & 0xFF;
+    }
+
+    /**
+     * Get the plot area containing a block column
+     *
+     * @param x Block x
+     * @param z Block z
+     * @return Plot area, or null if the column is not in a plot area
+     */
+    @Nullable public PlotArea getPlotArea(final int x, final int z) {
+        return this.areas[this.index(x, z)];
+    }
+
+    /**
+     * Get the id of the plot containing a block column
+     *
+     * @param x Block x
+     * @param z Block z
+     * @return Plot id, or null if the column is not part of a plot
+     */
+    @Nullable public PlotId getPlotId(final int x, final int z) {
+        return this.ids[this.index(x, z)];
+    }
+
+    /**
+     * Get the owned plot containing a block column, see {@link PlotArea#getOwnedPlotAbs(Location)}
+     *
+     * @param x Block x
+     * @param z Block z
+     * @return Owned (sub-)plot, or null
+     */
+    @Nullable public Plot getOwnedPlotAbs(final int x, final int z) {
+        return this.plots[this.index(x, z)];
+    }
+
+    /**
+     * Get the base plot of the owned plot containing a block column,
+     * see {@link PlotArea#getOwnedPlot(Location)}
+     *
+     * @param x Block x
+     * @param z Block z
+     * @return Owned base plot, or null
+     */
+    @Nullable public Plot getOwnedPlot(final int x, final int z) {
+        final Plot plot = this.plots[this.index(x, z)];
+        return plot == null ? null : plot.getBasePlot(false);
+    }
+
+    /**
+     * Check whether a block column is a road inside of a plot area
+     *
+     * @param x Block x
+     * @param z Block z
+     * @return true if the column is a road
+     */
+    public boolean isPlotRoad(final int x, final int z) {
+        final int index = this.index(x, z);
+        return this.areas[index] != null && this.ids[index] == null;
+    }
+
+    /**
+     * Check whether any block column of the chunk belongs to an owned plot
+     *
+     * @return true if the chunk overlaps an owned plot
+     */
+    public boolean hasOwnedPlot() {
+        for (final Plot plot : this.plots) {
+            if (plot != null && plot.hasOwner()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the entire chunk belongs to the same plot, road or
+     * non plot area
+     *
+     * @return true if every column resolves to the same plot area and id
+     */
+    public boolean isUniform() {
+        return this.cells == null;
+    }
+
+    /**
+     * The rasters of the loaded chunks of a single world
+     */
+    public static final class WorldRasters {
+
+        private final String world;
+        private final Source source;
+        private final Map<Long, ChunkPlotRaster> chunks = new ConcurrentHashMap<>();
+        /**
+         * Incremented before rasters are discarded, so that rasters built
+         * concurrently from outdated plot data are not stored
+         */
+        private final AtomicLong modifications = new AtomicLong();
+        private volatile ChunkPlotRaster last;
+
+        WorldRasters(@NotNull final String world, @NotNull final Source source) {
+            this.world = world;
+            this.source = source;
+        }
+
+        /**
+         * Get the name of the world
+         *
+         * @return World name
+         */
+        @NotNull public String getWorldName() {
+            return this.world;
+        }
+
+        /**
+         * Get the raster of the chunk containing a block column
+         *
+         * @param x Block x
+         * @param z Block z
+         * @return Up to date raster
+         */
+        @NotNull public ChunkPlotRaster get(final int x, final int z) {
+            final int chunkX = x >> 4;
+            final int chunkZ = z >> 4;
+            // Consecutive events tend to hit the same chunk
+            ChunkPlotRaster raster = this.last;
+            if (raster != null && raster.chunkX == chunkX && raster.chunkZ == chunkZ) {
+                return raster;
+            }
+            final long modifications = this.modifications.get();
+            final long key = MathMan.pairInt(chunkX, chunkZ);
+            raster = this.chunks.get(key);
+            if (raster == null) {
+                raster = build(this.world, chunkX, chunkZ, this.source);
+                if (!this.source.isChunkLoaded(this.world, chunkX, chunkZ)) {
+                    // Unloading never evicts the rasters of chunks that are not
+                    // loaded, such as neighbours of loaded chunks
+                    return raster;
+                }
+                this.chunks.put(key, raster);
+            }
+            this.last = raster;
+            if (this.modifications.get() != modifications) {
+                // Plot data changed while resolving, so the raster may be outdated
+                this.chunks.remove(key, raster);
+                this.last = null;
+            }
+            return raster;
+        }
+
+        void invalidate(@NotNull final Plot plot) {
+            // Merged roads resolve to the plots next to them, so the range extends
+            // up to the neighbouring plots on every side
+            final PlotManager manager = plot.getArea().getPlotManager();
+            final PlotId id = plot.getId();
+            final Location bottom = manager.getPlotTopLocAbs(id.getRelative(-1, -1));
+            final Location top = manager.getPlotBottomLocAbs(id.getRelative(1, 1));
+            this.invalidate(bottom.getX() >> 4, bottom.getZ() >> 4, top.getX() >> 4,
+                top.getZ() >> 4);
+        }
+
+        private void invalidate(final int minChunkX, final int minChunkZ, final int maxChunkX,
+            final int maxChunkZ) {
+            this.modifications.incrementAndGet();
+            this.last = null;
+            final long area = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+            if (area > this.chunks.size()) {
+                this.chunks.values().removeIf(raster ->
+                    raster.chunkX >= minChunkX && raster.chunkX <= maxChunkX
+                        && raster.chunkZ >= minChunkZ && raster.chunkZ <= maxChunkZ);
+                return;
+            }
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    this.chunks.remove(MathMan.pairInt(chunkX, chunkZ));
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Plot areas and chunk states that rasters are built from
+     */
+    interface Source {
+
+        @Nullable PlotArea getPlotArea(@NotNull Location location);
+
+        boolean isChunkLoaded(@NotNull String world, int chunkX, int chunkZ);
+
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Occupancy index over the plot ids of a {@link PlotArea}, used to find
+ * unclaimed plots without loading every claimed plot on the way. Occupied
+ * ids are stored as 8x8 bitmap tiles, and the number of occupied ids is
+ * counted per ring of the claim spiral (see {@link PlotId#getNextId(int)})
+ * so that fully claimed rings can be skipped at once.
+ * <p>
+ * An id is occupied when a plot with an owner is registered on it. Free
+ * ids may still be unclaimable (clusters, merged plots), so results
+ * should always be verified against the plot itself.
+ */
+public final class FreePlotIndex {
+
+    private static final int TILE_SHIFT = 3;
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+    private static final PlotId ORIGIN = new PlotId(0, 0);
+
+    private final Map<Long, Long> tiles = new HashMap<>();
+    private final Map<Integer, Integer> rings = new HashMap<>();
+    private int centerX;
+    private int centerY;
+
+    /**
+     * Get the spiral ring of an id relative to the spiral center
+     *
+     * @param x Relative x
+     * @param y Relative y
+     * @return Ring, where ring 0 is the center itself
+     */
+    public static int getRing(final int x, final int y) {
+        return Math.max(Math.abs(x), Math.abs(y));
+    }
+
+    /**
+     * Get the first relative id of a spiral ring
+     *
+     * @param ring Spiral ring
+     * @return First id of the ring
+     */
+    @NotNull public static PlotId getRingStart(final int ring) {
+        return ring == 0 ? new PlotId(0, 0) : new PlotId(ring - 1, ring);
+    }
+
+    /**
+     * Update the occupancy of the id of a registered plot
+     *
+     * @param plot Registered plot
+     */
+    public void update(@NotNull final Plot plot) {
+        set(plot.getId(), plot.getOwnerAbs() != null);
+    }
+
+    /**
+     * Mark an id as free after its plot was removed
+     *
+     * @param id Plot id
+     */
+    public void remove(@NotNull final PlotId id) {
+        set(id, false);
+    }
+
+    synchronized void set(@NotNull final PlotId id, final boolean occupied) {
+        final long key = tileKey(id.x, id.y);
+        final long bit = bit(id.x, id.y);
+        final long bits = this.tiles.getOrDefault(key, 0L);
+        if (((bits & bit) != 0) == occupied) {
+            return;
+        }
+        final long updated = occupied ? bits | bit : bits & ~bit;
+        if (updated == 0) {
+            this.tiles.remove(key);
+        } else {
+            this.tiles.put(key, updated);
+        }
+        this.rings.merge(getRing(id.x - this.centerX, id.y - this.centerY), occupied ? 1 : -1,
+            (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    /**
+     * Check whether an id is occupied
+     *
+     * @param x Absolute plot x
+     * @param y Absolute plot y
+     * @return True if a plot with an owner is registered on the id
+     */
+    public synchronized boolean isOccupied(final int x, final int y) {
+        final Long bits = this.tiles.get(tileKey(x, y));
+        return bits != null && (bits & bit(x, y)) != 0;
+    }
+
+    /**
+     * Check whether no id in a rectangle is occupied
+     *
+     * @param pos1 Bottom corner (inclusive)
+     * @param pos2 Top corner (inclusive)
+     * @return True if every id in the rectangle is free
+     */
+    public synchronized boolean isFree(@NotNull final PlotId pos1, @NotNull final PlotId pos2) {
+        return isFree(pos1.x, pos1.y, pos2.x, pos2.y);
+    }
+
+    private boolean isFree(final int x1, final int y1, final int x2, final int y2) {
+        for (int tx = x1 >> TILE_SHIFT; tx <= x2 >> TILE_SHIFT; tx++) {
+            for (int ty = y1 >> TILE_SHIFT; ty <= y2 >> TILE_SHIFT; ty++) {
+                final Long bits = this.tiles.get((long) tx << 32 | ty & 0xFFFFFFFFL);
+                if (bits == null) {
+                    continue;
+                }
+                final int minX = Math.max(x1, tx << TILE_SHIFT) & TILE_MASK;
+                final int maxX = Math.min(x2, (tx << TILE_SHIFT) + TILE_MASK) & TILE_MASK;
+                final int minY = Math.max(y1, ty << TILE_SHIFT) & TILE_MASK;
+                final int maxY = Math.min(y2, (ty << TILE_SHIFT) + TILE_MASK) & TILE_MASK;
+                // One byte per row, one bit per column of the tile
+                final long row = (0xFFL >>> (TILE_MASK - maxX + minX)) << minX;
+                for (int y = minY; y <= maxY; y++) {
+                    if ((bits & row << (y << TILE_SHIFT)) != 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the next id in spiral order that is not occupied
+     *
+     * @param center    Spiral center
+     * @param start     Relative id to start from
+     * @param inclusive Whether the start id itself may be returned
+     * @param maxRing   Last ring to search
+     * @return Relative id of the next free id, or null if every ring up to
+     * {@code maxRing} is occupied
+     */
+    @Nullable public synchronized PlotId nextFree(@NotNull final PlotId center,
+        @NotNull final PlotId start, final boolean inclusive, final int maxRing) {
+        setCenter(center);
+        PlotId current = inclusive ? start : start.getNextId(1);
+        while (true) {
+            final int ring = getRing(current.x, current.y);
+            if (ring > maxRing) {
+                return null;
+            }
+            if (this.rings.getOrDefault(ring, 0) >= (ring == 0 ? 1 : 8 * ring)) {
+                if (ring == maxRing) {
+                    return null;
+                }
+                current = getRingStart(ring + 1);
+                continue;
+            }
+            if (!isOccupied(this.centerX + current.x, this.centerY + current.y)) {
+                return current;
+            }
+            current = current.getNextId(1);
+        }
+    }
+
+    /**
+     * Find the next bottom corner in spiral order around the origin whose
+     * block of {@code sizeX} by {@code sizeY} ids is not occupied. Rings
+     * that are fully occupied are skipped, as is every corner that is
+     * occupied itself, and the remaining blocks are checked against the
+     * tile bitmaps
+     *
+     * @param start Id to continue the spiral from (exclusive)
+     * @param sizeX Block width in ids
+     * @param sizeY Block length in ids
+     * @return Bottom corner of the next free block
+     */
+    @NotNull public synchronized PlotId nextFreeBlock(@NotNull final PlotId start,
+        final int sizeX, final int sizeY) {
+        setCenter(ORIGIN);
+        long current = nextId(start.x, start.y);
+        while (true) {
+            final int x = (int) (current >> 32);
+            final int y = (int) current;
+            final int ring = getRing(x, y);
+            if (this.rings.getOrDefault(ring, 0) >= (ring == 0 ? 1 : 8 * ring)) {
+                // Every corner of the ring is occupied
+                current = (long) ring << 32 | (ring + 1) & 0xFFFFFFFFL;
+                continue;
+            }
+            if (!isOccupied(x, y) && isFree(x, y, x + sizeX - 1, y + sizeY - 1)) {
+                return new PlotId(x, y);
+            }
+            current = nextId(x, y);
+        }
+    }
+
+    /**
+     * Same step as {@link PlotId#getNextId(int)}, packed into a long to
+     * avoid allocating an id per step
+     */
+    private static long nextId(final int x, final int y) {
+        final int absX = Math.abs(x);
+        final int absY = Math.abs(y);
+        final int nextX;
+        final int nextY;
+        if (absX > absY) {
+            nextX = x;
+            nextY = x > 0 ? y + 1 : y - 1;
+        } else if (absY > absX) {
+            nextX = y > 0 ? x - 1 : x + 1;
+            nextY = y;
+        } else if (x == absX) {
+            nextX = x;
+            nextY = y + 1;
+        } else if (y == absY) {
+            nextX = x;
+            nextY = y - 1;
+        } else {
+            nextX = x + 1;
+            nextY = y;
+        }
+        return (long) nextX << 32 | nextY & 0xFFFFFFFFL;
+    }
+
+    /**
+     * The ring counts are relative to the spiral center, which may change
+     * when the area type changes, so they are recounted on demand
+     */
+    private void setCenter(@NotNull final PlotId center) {
+        if (center.x == this.centerX && center.y == this.centerY) {
+            return;
+        }
+        this.centerX = center.x;
+        this.centerY = center.y;
+        this.rings.clear();
+        for (final Map.Entry<Long, Long> entry : this.tiles.entrySet()) {
+            final int tx = (int) (entry.getKey() >> 32);
+            final int ty = (int) (long) entry.getKey();
+            long bits = entry.getValue();
+            while (bits != 0) {
+                final int index = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                final int x = (tx << TILE_SHIFT) + (index & TILE_MASK);
+                final int y = (ty << TILE_SHIFT) + (index >> TILE_SHIFT);
+                this.rings.merge(getRing(x - this.centerX, y - this.centerY), 1, Integer::sum);
+            }
+        }
+    }
+
+    private static long tileKey(final int x, final int y) {
+        return (long) (x >> TILE_SHIFT) << 32 | (y >> TILE_SHIFT) & 0xFFFFFFFFL;
+    }
+
+    private static long bit(final int x, final int y) {
+        return 1L << ((y & TILE_MASK) << TILE_SHIFT | x & TILE_MASK);
+    }
+
+}
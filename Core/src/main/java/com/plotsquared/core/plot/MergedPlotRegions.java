@@ -0,0 +1,169 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.location.Direction;
+import com.plotsquared.core.location.Location;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decomposes a merge group into rectangular regions.
+ * <p>
+ * The group's plots are laid out on a grid covering its bounding box of
+ * plot ids. The grid is swept row by row: every plot not yet covered starts
+ * a rectangle, which is first widened along its row and then extended
+ * downwards one full row at a time. Every plot is covered exactly once and
+ * every failed extension is bounded by the width of the rectangle it ends,
+ * so the sweep is linear in the size of the bounding box.
+ */
+final class MergedPlotRegions {
+
+    private MergedPlotRegions() {
+    }
+
+    /**
+     * Get the regions covering a merge group, including the merged roads.
+     *
+     * @param plots the plots in the merge group
+     * @return the regions
+     */
+    static Set<CuboidRegion> decompose(final Set<Plot> plots) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (final Plot plot : plots) {
+            final PlotId id = plot.getId();
+            minX = Math.min(minX, id.x);
+            minY = Math.min(minY, id.y);
+            maxX = Math.max(maxX, id.x);
+            maxY = Math.max(maxY, id.y);
+        }
+        final int width = maxX - minX + 1;
+        final int height = maxY - minY + 1;
+        final Plot[] grid = new Plot[width * height];
+        for (final Plot plot : plots) {
+            grid[(plot.getId().y - minY) * width + plot.getId().x - minX] = plot;
+        }
+
+        final boolean[] covered = new boolean[grid.length];
+        final Set<CuboidRegion> regions = new HashSet<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int index = y * width + x;
+                if (grid[index] == null || covered[index]) {
+                    continue;
+                }
+                int right = x;
+                while (right + 1 < width && joins(grid, covered, y * width + right + 1,
+                    Direction.WEST)) {
+                    right++;
+                }
+                int bottom = y;
+                while (bottom + 1 < height && rowJoins(grid, covered, width, x, right,
+                    bottom + 1)) {
+                    bottom++;
+                }
+                for (int row = y; row <= bottom; row++) {
+                    for (int column = x; column <= right; column++) {
+                        covered[row * width + column] = true;
+                    }
+                }
+                addRegions(regions, grid, width, x, y, right, bottom);
+            }
+        }
+        return regions;
+    }
+
+    private static boolean joins(final Plot[] grid, final boolean[] covered, final int index,
+        final Direction direction) {
+        final Plot plot = grid[index];
+        return plot != null && !covered[index] && plot.getMerged(direction);
+    }
+
+    /**
+     * Whether a full row below a rectangle can be added to it: every plot must
+     * be merged with the plot above it and with its neighbour in the row.
+     */
+    private static boolean rowJoins(final Plot[] grid, final boolean[] covered, final int width,
+        final int left, final int right, final int y) {
+        for (int x = left; x <= right; x++) {
+            final int index = y * width + x;
+            if (!joins(grid, covered, index, Direction.NORTH) || x != left && !grid[index]
+                .getMerged(Direction.WEST)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addRegions(final Set<CuboidRegion> regions, final Plot[] grid,
+        final int width, final int left, final int top, final int right, final int bottom) {
+        for (int x = left; x <= right; x++) {
+            final Plot plot = grid[bottom * width + x];
+            if (plot.getMerged(Direction.SOUTH)) {
+                // south wedge
+                final Location toploc = plot.getExtendedTopAbs();
+                final Location botabs = plot.getBottomAbs();
+                final Location topabs = plot.getTopAbs();
+                regions.add(region(botabs.getX(), topabs.getZ() + 1, topabs.getX(), toploc.getZ()));
+                if (plot.getMerged(Direction.SOUTHEAST)) {
+                    // intersection
+                    regions.add(region(topabs.getX() + 1, topabs.getZ() + 1, toploc.getX(),
+                        toploc.getZ()));
+                }
+            }
+        }
+        for (int y = top; y <= bottom; y++) {
+            final Plot plot = grid[y * width + right];
+            if (plot.getMerged(Direction.EAST)) {
+                // east wedge
+                final Location toploc = plot.getExtendedTopAbs();
+                final Location botabs = plot.getBottomAbs();
+                final Location topabs = plot.getTopAbs();
+                regions.add(region(topabs.getX() + 1, botabs.getZ(), toploc.getX(), topabs.getZ()));
+                // The intersection below the last row was added with the south wedges
+                if (y != bottom && plot.getMerged(Direction.SOUTHEAST)) {
+                    // intersection
+                    regions.add(region(topabs.getX() + 1, topabs.getZ() + 1, toploc.getX(),
+                        toploc.getZ()));
+                }
+            }
+        }
+        final Location gbotabs = grid[top * width + left].getBottomAbs();
+        final Location gtopabs = grid[bottom * width + right].getTopAbs();
+        regions.add(region(gbotabs.getX(), gbotabs.getZ(), gtopabs.getX(), gtopabs.getZ()));
+    }
+
+    private static CuboidRegion region(final int x1, final int z1, final int x2, final int z2) {
+        return new CuboidRegion(BlockVector3.at(x1, 0, z1),
+            BlockVector3.at(x2, Plot.MAX_HEIGHT - 1, z2));
+    }
+}
@@ -26,7 +26,6 @@
 package com.plotsquared.core.plot;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.ConfigurationUtil;
@@ -66,7 +65,6 @@ import com.plotsquared.core.util.task.TaskManager;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.math.BlockVector2;
-import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockTypes;
@@ -119,10 +117,11 @@ public class Plot {
 
     public static final int MAX_HEIGHT = 256;
 
-    private static Set<Plot> connected_cache;
-    private static Set<CuboidRegion> regions_cache;
-
     @NotNull private final PlotId id;
+
+    private volatile PlotGeometry.Bounds absBounds;
+    private volatile PlotGeometry.Bounds extendedBounds;
+    private volatile PlotGeometry.Group group;
     /**
      * Plot flag container
      */
@@ -334,6 +333,20 @@ public class Plot {
      */
     public void setOwnerAbs(@Nullable final UUID owner) {
         this.owner = owner;
+        this.updateIndex();
+        if (owner != null && ExpireManager.IMP != null) {
+            ExpireManager.IMP.trackOwner(owner);
+        }
+    }
+
+    /**
+     * Refresh the secondary indexes of the area after the owner,
+     * trusted players, members or alias of this plot changed
+     */
+    private void updateIndex() {
+        if (this.area != null) {
+            this.area.updatePlotIndex(this);
+        }
     }
 
     public String getWorldName() {
@@ -400,13 +413,7 @@ public class Plot {
      * @return list of PlotPlayer(s) or an empty list
      */
     public List<PlotPlayer<?>> getPlayersInPlot() {
-        final List<PlotPlayer<?>> players = new ArrayList<>();
-        for (final PlotPlayer<?> player : PlotSquared.imp().getPlayerManager().getPlayers()) {
-            if (this.equals(player.getCurrentPlot())) {
-                players.add(player);
-            }
-        }
-        return players;
+        return PlotOccupants.getPlayersInPlot(this);
     }
 
     /**
@@ -857,6 +864,7 @@ public class Plot {
     public void addTrusted(UUID uuid) {
         for (Plot current : getConnectedPlots()) {
             if (current.getTrusted().add(uuid)) {
+                current.updateIndex();
                 DBFunc.setTrusted(current, uuid);
             }
         }
@@ -870,6 +878,7 @@ public class Plot {
     public void addMember(UUID uuid) {
         for (Plot current : getConnectedPlots()) {
             if (current.getMembers().add(uuid)) {
+                current.updateIndex();
                 DBFunc.setMember(current, uuid);
             }
         }
@@ -1624,6 +1633,7 @@ public class Plot {
         }
         int aggregate = rating.getAggregate();
         baseSettings.getRatings().put(uuid, aggregate);
+        PlotSettings.ratingsModified();
         DBFunc.setRating(base, uuid, aggregate);
         return true;
     }
@@ -1812,12 +1822,11 @@ public class Plot {
                 this.updateWorldBorder();
             }
         }
-        connected_cache = null;
-        regions_cache = null;
         this.getTrusted().clear();
         this.getMembers().clear();
         this.getDenied().clear();
         this.settings = new PlotSettings();
+        this.invalidateGeometry();
         if (this.area.addPlot(this)) {
             DBFunc.createPlotAndSettings(this, () -> {
                 PlotArea plotworld = Plot.this.area;
@@ -1875,9 +1884,7 @@ public class Plot {
      * Returns the top location for the plot.
      */
     public Location getTopAbs() {
-        Location top = getManager().getPlotTopLocAbs(this.id);
-        top.setWorld(getWorldName());
-        return top;
+        return getAbsBounds().getTop();
     }
 
     //TODO Better documentation needed.
@@ -1886,9 +1893,20 @@ public class Plot {
      * Returns the bottom location for the plot.
      */
     public Location getBottomAbs() {
-        Location location = getManager().getPlotBottomLocAbs(this.id);
-        location.setWorld(getWorldName());
-        return location;
+        return getAbsBounds().getBottom();
+    }
+
+    private PlotGeometry.Bounds getAbsBounds() {
+        final int epoch = this.area.getGeometryEpoch();
+        PlotGeometry.Bounds bounds = this.absBounds;
+        if (bounds == null || bounds.getEpoch() != epoch) {
+            Location bottom = getManager().getPlotBottomLocAbs(this.id);
+            bottom.setWorld(getWorldName());
+            Location top = getManager().getPlotTopLocAbs(this.id);
+            top.setWorld(getWorldName());
+            this.absBounds = bounds = new PlotGeometry.Bounds(epoch, 0, bottom, top);
+        }
+        return bounds;
     }
 
     /**
@@ -1921,6 +1939,8 @@ public class Plot {
         plot.getId().recalculateHash();
         this.area.addPlotAbs(this);
         plot.area.addPlotAbs(plot);
+        this.invalidateGeometry();
+        plot.invalidateGeometry();
         // Swap database
         return DBFunc.swapPlots(plot, this);
     }
@@ -1948,6 +1968,8 @@ public class Plot {
         this.getId().y = plot.getId().y;
         this.getId().recalculateHash();
         this.area.addPlotAbs(this);
+        this.invalidateGeometry();
+        plot.invalidateGeometry();
         DBFunc.movePlot(this, plot);
         TaskManager.runTaskLater(whenDone, 1);
         return true;
@@ -1960,17 +1982,7 @@ public class Plot {
      * @return Location top of mega plot
      */
     public Location getExtendedTopAbs() {
-        Location top = this.getTopAbs();
-        if (!this.isMerged()) {
-            return top;
-        }
-        if (this.getMerged(Direction.SOUTH)) {
-            top.setZ(this.getRelative(Direction.SOUTH).getBottomAbs().getZ() - 1);
-        }
-        if (this.getMerged(Direction.EAST)) {
-            top.setX(this.getRelative(Direction.EAST).getBottomAbs().getX() - 1);
-        }
-        return top;
+        return getExtendedBounds().getTop();
     }
 
     /**
@@ -1981,17 +1993,39 @@ public class Plot {
      * @return Location bottom of mega plot
      */
     public Location getExtendedBottomAbs() {
-        Location bot = this.getBottomAbs();
-        if (!this.isMerged()) {
-            return bot;
+        return getExtendedBounds().getBottom();
+    }
+
+    private PlotGeometry.Bounds getExtendedBounds() {
+        int merged = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            if (this.getMerged(dir)) {
+                merged |= 1 << dir;
+            }
         }
-        if (this.getMerged(Direction.NORTH)) {
-            bot.setZ(this.getRelative(Direction.NORTH).getTopAbs().getZ() + 1);
+        if (merged == 0) {
+            return getAbsBounds();
         }
-        if (this.getMerged(Direction.WEST)) {
-            bot.setX(this.getRelative(Direction.WEST).getTopAbs().getX() + 1);
+        final int epoch = this.area.getGeometryEpoch();
+        PlotGeometry.Bounds bounds = this.extendedBounds;
+        if (bounds == null || bounds.getEpoch() != epoch || bounds.getMerged() != merged) {
+            Location bot = this.getBottomAbs();
+            Location top = this.getTopAbs();
+            if (this.getMerged(Direction.NORTH)) {
+                bot.setZ(this.getRelative(Direction.NORTH).getTopAbs().getZ() + 1);
+            }
+            if (this.getMerged(Direction.WEST)) {
+                bot.setX(this.getRelative(Direction.WEST).getTopAbs().getX() + 1);
+            }
+            if (this.getMerged(Direction.SOUTH)) {
+                top.setZ(this.getRelative(Direction.SOUTH).getBottomAbs().getZ() - 1);
+            }
+            if (this.getMerged(Direction.EAST)) {
+                top.setX(this.getRelative(Direction.EAST).getBottomAbs().getX() - 1);
+            }
+            this.extendedBounds = bounds = new PlotGeometry.Bounds(epoch, merged, bot, top);
         }
-        return bot;
+        return bounds;
     }
 
     /**
@@ -2006,7 +2040,13 @@ public class Plot {
         if (!this.isMerged()) {
             return new Location[] {this.getBottomAbs(), this.getTopAbs()};
         }
-        return MainUtil.getCorners(this.getWorldName(), this.getRegions());
+        final PlotGeometry.Group group = this.getGroup();
+        Location[] corners = group.getCorners();
+        if (corners == null) {
+            corners = MainUtil.getCorners(this.getWorldName(), this.getRegions());
+            group.setCorners(corners);
+        }
+        return new Location[] {corners[0].copy(), corners[1].copy()};
     }
 
     /**
@@ -2132,6 +2172,7 @@ public class Plot {
     private boolean rmvTrusted(UUID uuid) {
         for (Plot plot : this.getConnectedPlots()) {
             if (plot.getTrusted().remove(uuid)) {
+                plot.updateIndex();
                 DBFunc.removeTrusted(plot, uuid);
             } else {
                 return false;
@@ -2163,6 +2204,7 @@ public class Plot {
     private boolean rmvMember(UUID uuid) {
         for (Plot current : this.getConnectedPlots()) {
             if (current.getMembers().remove(uuid)) {
+                current.updateIndex();
                 DBFunc.removeMember(current, uuid);
             } else {
                 return false;
@@ -2278,6 +2320,7 @@ public class Plot {
                 return;
             }
             current.getSettings().setAlias(alias);
+            current.updateIndex();
             DBFunc.setAlias(current, alias);
         }
     }
@@ -2300,17 +2343,21 @@ public class Plot {
                     this.origin.origin = base;
                     other.origin = base;
                     this.origin = base;
-                    connected_cache = null;
                 }
             } else {
                 if (this.origin != null) {
                     this.origin.origin = null;
                     this.origin = null;
                 }
-                connected_cache = null;
             }
             DBFunc.setMerged(this, this.getSettings().getMerged());
-            regions_cache = null;
+            // Both groups change, whether they are joined or split
+            this.invalidateGeometry();
+            final Plot relative = this.getRelative(direction);
+            if (relative != null) {
+                relative.invalidateGeometry();
+            }
+            ChunkPlotRaster.invalidate(this);
         }
     }
 
@@ -2345,8 +2392,8 @@ public class Plot {
     }
 
     public void clearCache() {
-        connected_cache = null;
-        regions_cache = null;
+        this.invalidateGeometry();
+        ChunkPlotRaster.invalidate(this);
         if (this.origin != null) {
             this.origin.origin = null;
             this.origin = null;
@@ -2633,11 +2680,48 @@ public class Plot {
         if (!this.isMerged()) {
             return Collections.singleton(this);
         }
-        if (connected_cache != null && connected_cache.contains(this)) {
-            return connected_cache;
+        return this.getGroup().getPlots();
+    }
+
+    /**
+     * Get the cached geometry of this plot's merge group, computing it if the
+     * merge state changed since it was cached. The group is shared with every
+     * other plot in it.
+     */
+    private PlotGeometry.Group getGroup() {
+        // Read before the merge state, so that a group computed from a merge
+        // state that changes meanwhile is already outdated once it is stored
+        final int epoch = this.area.getGroupEpoch();
+        PlotGeometry.Group group = this.group;
+        if (group == null || group.getEpoch() != epoch) {
+            final Set<Plot> plots;
+            if (this.settings == null || !this.isMerged()) {
+                plots = Collections.singleton(this);
+            } else {
+                plots = this.findConnectedPlots();
+            }
+            group = new PlotGeometry.Group(epoch, plots);
+            for (final Plot plot : plots) {
+                plot.group = group;
+            }
+            this.group = group;
+        }
+        return group;
+    }
+
+    /**
+     * Discard the cached bounds of this plot and the cached merge groups of
+     * its area. This must be called after the merge state changed.
+     */
+    private void invalidateGeometry() {
+        this.absBounds = null;
+        this.extendedBounds = null;
+        if (this.area != null) {
+            this.area.invalidateGroups();
         }
-        regions_cache = null;
+    }
 
+    private Set<Plot> findConnectedPlots() {
         HashSet<Plot> tmpSet = new HashSet<>();
         tmpSet.add(this);
         Plot tmp;
@@ -2749,146 +2833,34 @@ public class Plot {
                 }
             }
         }
-        connected_cache = tmpSet;
         return tmpSet;
     }
 
     /**
      * This will combine each plot into effective rectangular regions<br>
-     * - This result is cached globally<br>
+     * - This result is cached per merge group<br>
      * - Useful for handling non rectangular shapes
      *
-     * @return
+     * @return an unmodifiable set of regions
      */
     @NotNull public Set<CuboidRegion> getRegions() {
-        if (regions_cache != null && connected_cache != null && connected_cache.contains(this)) {
-            return regions_cache;
+        final PlotGeometry.Group group = this.getGroup();
+        Set<CuboidRegion> regions = group.getRegions();
+        if (regions == null) {
+            regions = Collections.unmodifiableSet(this.computeRegions(group.getPlots()));
+            group.setRegions(regions);
         }
+        return regions;
+    }
+
+    private Set<CuboidRegion> computeRegions(Set<Plot> plots) {
         if (!this.isMerged()) {
             Location pos1 = this.getBottomAbs();
             Location pos2 = this.getTopAbs();
-            connected_cache = Sets.newHashSet(this);
             CuboidRegion rg = new CuboidRegion(pos1.getBlockVector3(), pos2.getBlockVector3());
-            regions_cache = Collections.singleton(rg);
-            return regions_cache;
-        }
-        Set<Plot> plots = this.getConnectedPlots();
-        Set<CuboidRegion> regions = regions_cache = new HashSet<>();
-        Set<PlotId> visited = new HashSet<>();
-        for (Plot current : plots) {
-            if (visited.contains(current.getId())) {
-                continue;
-            }
-            boolean merge = true;
-            PlotId bot = new PlotId(current.getId().x, current.getId().y);
-            PlotId top = new PlotId(current.getId().x, current.getId().y);
-            while (merge) {
-                merge = false;
-                ArrayList<PlotId> ids = MainUtil.getPlotSelectionIds(new PlotId(bot.x, bot.y - 1),
-                    new PlotId(top.x, bot.y - 1));
-                boolean tmp = true;
-                for (PlotId id : ids) {
-                    Plot plot = this.area.getPlotAbs(id);
-                    if (plot == null || !plot.getMerged(Direction.SOUTH) || visited
-                        .contains(plot.getId())) {
-                        tmp = false;
-                    }
-                }
-                if (tmp) {
-                    merge = true;
-                    bot.y--;
-                }
-                ids = MainUtil.getPlotSelectionIds(new PlotId(top.x + 1, bot.y),
-                    new PlotId(top.x + 1, top.y));
-                tmp = true;
-                for (PlotId id : ids) {
-                    Plot plot = this.area.getPlotAbs(id);
-                    if (plot == null || !plot.getMerged(Direction.WEST) || visited
-                        .contains(plot.getId())) {
-                        tmp = false;
-                    }
-                }
-                if (tmp) {
-                    merge = true;
-                    top.x++;
-                }
-                ids = MainUtil.getPlotSelectionIds(new PlotId(bot.x, top.y + 1),
-                    new PlotId(top.x, top.y + 1));
-                tmp = true;
-                for (PlotId id : ids) {
-                    Plot plot = this.area.getPlotAbs(id);
-                    if (plot == null || !plot.getMerged(Direction.NORTH) || visited
-                        .contains(plot.getId())) {
-                        tmp = false;
-                    }
-                }
-                if (tmp) {
-                    merge = true;
-                    top.y++;
-                }
-                ids = MainUtil.getPlotSelectionIds(new PlotId(bot.x - 1, bot.y),
-                    new PlotId(bot.x - 1, top.y));
-                tmp = true;
-                for (PlotId id : ids) {
-                    Plot plot = this.area.getPlotAbs(id);
-                    if (plot == null || !plot.getMerged(Direction.EAST) || visited
-                        .contains(plot.getId())) {
-                        tmp = false;
-                    }
-                }
-                if (tmp) {
-                    merge = true;
-                    bot.x--;
-                }
-            }
-            Location gtopabs = this.area.getPlotAbs(top).getTopAbs();
-            Location gbotabs = this.area.getPlotAbs(bot).getBottomAbs();
-            visited.addAll(MainUtil.getPlotSelectionIds(bot, top));
-            for (int x = bot.x; x <= top.x; x++) {
-                Plot plot = this.area.getPlotAbs(new PlotId(x, top.y));
-                if (plot.getMerged(Direction.SOUTH)) {
-                    // south wedge
-                    Location toploc = plot.getExtendedTopAbs();
-                    Location botabs = plot.getBottomAbs();
-                    Location topabs = plot.getTopAbs();
-                    BlockVector3 pos1 = BlockVector3.at(botabs.getX(), 0, topabs.getZ() + 1);
-                    BlockVector3 pos2 =
-                        BlockVector3.at(topabs.getX(), Plot.MAX_HEIGHT - 1, toploc.getZ());
-                    regions.add(new CuboidRegion(pos1, pos2));
-                    if (plot.getMerged(Direction.SOUTHEAST)) {
-                        pos1 = BlockVector3.at(topabs.getX() + 1, 0, topabs.getZ() + 1);
-                        pos2 = BlockVector3.at(toploc.getX(), Plot.MAX_HEIGHT - 1, toploc.getZ());
-                        regions.add(new CuboidRegion(pos1, pos2));
-                        // intersection
-                    }
-                }
-            }
-
-            for (int y = bot.y; y <= top.y; y++) {
-                Plot plot = this.area.getPlotAbs(new PlotId(top.x, y));
-                if (plot.getMerged(Direction.EAST)) {
-                    // east wedge
-                    Location toploc = plot.getExtendedTopAbs();
-                    Location botabs = plot.getBottomAbs();
-                    Location topabs = plot.getTopAbs();
-                    BlockVector3 pos1 = BlockVector3.at(topabs.getX() + 1, 0, botabs.getZ());
-                    BlockVector3 pos2 =
-                        BlockVector3.at(toploc.getX(), Plot.MAX_HEIGHT - 1, topabs.getZ());
-                    regions.add(new CuboidRegion(pos1, pos2));
-                    if (plot.getMerged(Direction.SOUTHEAST)) {
-                        pos1 = BlockVector3.at(topabs.getX() + 1, 0, topabs.getZ() + 1);
-                        pos2 = BlockVector3.at(toploc.getX(), Plot.MAX_HEIGHT - 1, toploc.getZ());
-                        regions.add(new CuboidRegion(pos1, pos2));
-                        // intersection
-                    }
-                }
-            }
-            BlockVector3 pos1 = BlockVector3.at(gbotabs.getX(), 0, gbotabs.getZ());
-            BlockVector3 pos2 =
-                BlockVector3.at(gtopabs.getX(), Plot.MAX_HEIGHT - 1, gtopabs.getZ());
-            regions.add(new CuboidRegion(pos1, pos2));
+            return Collections.singleton(rg);
         }
-        return regions;
+        return MergedPlotRegions.decompose(plots);
     }
 
     /**
@@ -3339,6 +3311,7 @@ public class Plot {
                     DBFunc.setDenied(other, denied);
                 }
             }
+            other.updateIndex();
         }
         // copy terrain
         final ArrayDeque<CuboidRegion> regions = new ArrayDeque<>(this.getRegions());
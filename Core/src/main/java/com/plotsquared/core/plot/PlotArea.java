@@ -28,7 +28,7 @@ package com.plotsquared.core.plot;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.plotsquared.core.PlotSquared;
-import com.plotsquared.core.collection.QuadMap;
+import com.plotsquared.core.collection.RectangleIndex;
 import com.plotsquared.core.configuration.CaptionUtility;
 import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.ConfigurationNode;
@@ -54,7 +54,6 @@ import com.plotsquared.core.util.MainUtil;
 import com.plotsquared.core.util.MathMan;
 import com.plotsquared.core.util.RegionUtil;
 import com.plotsquared.core.util.StringMan;
-import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.world.biome.BiomeType;
@@ -78,6 +77,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -86,6 +86,21 @@ import java.util.function.Consumer;
 public abstract class PlotArea {
 
     protected final ConcurrentHashMap<PlotId, Plot> plots = new ConcurrentHashMap<>();
+    /**
+     * Secondary indexes over {@link #plots}
+     */
+    @Getter private final PlotIndex plotIndex = new PlotIndex();
+    /**
+     * Incremented whenever the configuration is loaded, as plot bounds may
+     * change with it, see {@link PlotGeometry}
+     */
+    private final AtomicInteger geometryEpoch = new AtomicInteger();
+    /**
+     * Incremented whenever the configuration is loaded or the merge state
+     * of a plot in this area changes, see {@link PlotGeometry}
+     */
+    private final AtomicInteger groupEpoch = new AtomicInteger();
+    private final FreePlotIndex freePlots = new FreePlotIndex();
     @Getter @NotNull private final String worldName;
     @Getter private final String id;
     @Getter @NotNull private final PlotManager plotManager;
@@ -124,7 +139,15 @@ public abstract class PlotArea {
     private int hash;
     private CuboidRegion region;
     private ConcurrentHashMap<String, Object> meta;
-    private QuadMap<PlotCluster> clusters;
+    /**
+     * Clusters of this area, or null if clusters are not enabled. Guarded by this area
+     */
+    private List<PlotCluster> clusters;
+    /**
+     * Index over the clusters, or null if it has to be rebuilt after a change
+     */
+    private volatile RectangleIndex<PlotCluster> clusterIndex =
+        RectangleIndex.empty(PlotCluster::getRegion);
     /**
      * Area flag container
      */
@@ -225,7 +248,7 @@ public abstract class PlotArea {
     }
 
     public Set<PlotCluster> getClusters() {
-        return this.clusters == null ? new HashSet<>() : this.clusters.getAll();
+        return new HashSet<>(this.getClusterIndex().values());
     }
 
     /**
@@ -408,10 +431,24 @@ public abstract class PlotArea {
         PlotSquared.log(Captions.PREFIX + "&3 - road flags: &7" + roadFlagBuilder.toString());
 
         loadConfiguration(config);
+        this.geometryEpoch.incrementAndGet();
+        this.groupEpoch.incrementAndGet();
     }
 
     public abstract void loadConfiguration(ConfigurationSection config);
 
+    int getGeometryEpoch() {
+        return this.geometryEpoch.get();
+    }
+
+    int getGroupEpoch() {
+        return this.groupEpoch.get();
+    }
+
+    void invalidateGroups() {
+        this.groupEpoch.incrementAndGet();
+    }
+
     /**
      * Saving core PlotArea settings.
      *
@@ -676,29 +713,39 @@ public abstract class PlotArea {
     }
 
     @Nullable public PlotCluster getCluster(@NotNull final Location location) {
+        final RectangleIndex<PlotCluster> clusters = this.getClusterIndex();
+        if (clusters.isEmpty()) {
+            return null;
+        }
+        // Merged plots belong to the cluster of their base plot
         final Plot plot = getPlot(location);
         if (plot == null) {
             return null;
         }
-        return this.clusters != null ? this.clusters.get(plot.getId().x, plot.getId().y) : null;
+        return clusters.get(plot.getId().x, plot.getId().y);
     }
 
     @Nullable
     public PlotCluster getFirstIntersectingCluster(@NotNull final PlotId pos1,
         @NotNull final PlotId pos2) {
-        if (this.clusters == null) {
-            return null;
-        }
-        for (PlotCluster cluster : this.clusters.getAll()) {
-            if (cluster.intersects(pos1, pos2)) {
-                return cluster;
-            }
-        }
-        return null;
+        return this.getClusterIndex().getFirstIntersecting(pos1.x, pos1.y, pos2.x, pos2.y);
     }
 
     @Nullable PlotCluster getCluster(@NotNull final PlotId id) {
-        return this.clusters != null ? this.clusters.get(id.x, id.y) : null;
+        return this.getClusterIndex().get(id.x, id.y);
+    }
+
+    @NotNull private RectangleIndex<PlotCluster> getClusterIndex() {
+        final RectangleIndex<PlotCluster> clusters = this.clusterIndex;
+        return clusters != null ? clusters : this.indexClusters();
+    }
+
+    @NotNull private synchronized RectangleIndex<PlotCluster> indexClusters() {
+        // Changes only discard the index, so loading many clusters builds it once
+        if (this.clusterIndex == null) {
+            this.clusterIndex = RectangleIndex.of(PlotCluster::getRegion, this.clusters);
+        }
+        return this.clusterIndex;
     }
 
     /**
@@ -773,32 +820,58 @@ public abstract class PlotArea {
 
     public boolean addPlot(@NotNull final Plot plot) {
         for (PlotPlayer pp : plot.getPlayersInPlot()) {
-            pp.setMeta(PlotPlayer.META_LAST_PLOT, plot);
+            pp.setMeta(PlotPlayer.LAST_PLOT, plot);
+        }
+        return this.registerPlot(plot);
+    }
+
+    private boolean registerPlot(@NotNull final Plot plot) {
+        final Plot previous = this.plots.put(plot.getId(), plot);
+        if (previous != null && previous != plot) {
+            this.plotIndex.remove(previous);
+        }
+        this.plotIndex.update(plot);
+        this.freePlots.update(plot);
+        return previous == null;
+    }
+
+    /**
+     * Update the secondary indexes of a plot after its owner, trusted
+     * players, members or alias changed. Plots that aren't registered
+     * in this area are ignored
+     *
+     * @param plot Changed plot
+     */
+    public void updatePlotIndex(@NotNull final Plot plot) {
+        if (this.plots.get(plot.getId()) == plot) {
+            this.plotIndex.update(plot);
+            this.freePlots.update(plot);
         }
-        return this.plots.put(plot.getId(), plot) == null;
     }
 
     public Plot getNextFreePlot(final PlotPlayer player, @Nullable PlotId start) {
-        int plots;
+        int maxRing;
         PlotId center;
         PlotId min = getMin();
         PlotId max = getMax();
         if (getType() == PlotAreaType.PARTIAL) {
             center = new PlotId(MathMan.average(min.x, max.x), MathMan.average(min.y, max.y));
-            plots = Math.max(max.x - min.x + 1, max.y - min.y + 1) + 1;
+            maxRing = Math.max(Math.max(max.x - center.x, center.x - min.x),
+                Math.max(max.y - center.y, center.y - min.y));
             if (start != null) {
                 start = new PlotId(start.x - center.x, start.y - center.y);
             }
         } else {
             center = new PlotId(0, 0);
-            plots = Integer.MAX_VALUE;
+            maxRing = Integer.MAX_VALUE;
         }
-        for (int i = 0; i < plots; i++) {
-            if (start == null) {
-                start = getMeta("lastPlot", new PlotId(0, 0));
-            } else {
-                start = start.getNextId(1);
-            }
+        boolean inclusive = start == null;
+        if (start == null) {
+            start = getMeta("lastPlot", new PlotId(0, 0));
+        }
+        // Claimed ids are skipped by the index, only free ids are loaded and checked
+        while ((start = this.freePlots.nextFree(center, start, inclusive, maxRing)) != null) {
+            inclusive = false;
             PlotId currentId = new PlotId(center.x + start.x, center.y + start.y);
             Plot plot = getPlotAbs(currentId);
             if (plot != null && plot.canClaim(player)) {
@@ -809,10 +882,39 @@ public abstract class PlotArea {
         return null;
     }
 
+    /**
+     * Get the bottom corner of the next block of free plots, continuing
+     * the claim spiral from the last claimed plot. Partial areas are not
+     * supported
+     *
+     * @param player Player claiming the plots
+     * @param sizeX  Block width
+     * @param sizeZ  Block length
+     * @return Bottom corner of the block, or null for partial areas
+     */
+    @Nullable public PlotId getNextFreeBlock(@Nullable final PlotPlayer player, final int sizeX,
+        final int sizeZ) {
+        if (getType() == PlotAreaType.PARTIAL) {
+            return null;
+        }
+        PlotId start = getMeta("lastPlot", new PlotId(0, 0));
+        while (true) {
+            // Blocks overlapping claimed ids are skipped by the index
+            start = this.freePlots.nextFreeBlock(start, sizeX, sizeZ);
+            PlotId end = new PlotId(start.x + sizeX - 1, start.y + sizeZ - 1);
+            if (canClaim(player, start, end)) {
+                setMeta("lastPlot", start);
+                return start;
+            }
+        }
+    }
+
     public boolean addPlotIfAbsent(@NotNull final Plot plot) {
         if (this.plots.putIfAbsent(plot.getId(), plot) == null) {
+            this.plotIndex.update(plot);
+            this.freePlots.update(plot);
             for (PlotPlayer pp : plot.getPlayersInPlot()) {
-                pp.setMeta(PlotPlayer.META_LAST_PLOT, plot);
+                pp.setMeta(PlotPlayer.LAST_PLOT, plot);
             }
             return true;
         }
@@ -820,7 +922,7 @@ public abstract class PlotArea {
     }
 
     public boolean addPlotAbs(@NotNull final Plot plot) {
-        return this.plots.put(plot.getId(), plot) == null;
+        return this.registerPlot(plot);
     }
 
     /**
@@ -898,7 +1000,13 @@ public abstract class PlotArea {
     }
 
     public boolean removePlot(@NotNull final PlotId id) {
-        return this.plots.remove(id) != null;
+        final Plot plot = this.plots.remove(id);
+        if (plot == null) {
+            return false;
+        }
+        this.plotIndex.remove(plot);
+        this.freePlots.remove(id);
+        return true;
     }
 
     public boolean mergePlots(@NotNull final List<PlotId> plotIds, final boolean removeRoads) {
@@ -999,25 +1107,32 @@ public abstract class PlotArea {
     }
 
     @SuppressWarnings("WeakerAccess")
-    public void removeCluster(@Nullable final PlotCluster plotCluster) {
+    public synchronized void removeCluster(@Nullable final PlotCluster plotCluster) {
         if (this.clusters == null) {
             throw new IllegalAccessError("Clusters not enabled!");
         }
-        this.clusters.remove(plotCluster);
+        if (this.clusters.remove(plotCluster)) {
+            this.clusterIndex = null;
+        }
     }
 
-    public void addCluster(@Nullable final PlotCluster plotCluster) {
+    public synchronized void addCluster(@Nullable final PlotCluster plotCluster) {
         if (this.clusters == null) {
-            this.clusters = new QuadMap<PlotCluster>(Integer.MAX_VALUE, 0, 0, 62) {
-                @Override public CuboidRegion getRegion(PlotCluster value) {
-                    BlockVector2 pos1 = BlockVector2.at(value.getP1().x, value.getP1().y);
-                    BlockVector2 pos2 = BlockVector2.at(value.getP2().x, value.getP2().y);
-                    return new CuboidRegion(pos1.toBlockVector3(),
-                        pos2.toBlockVector3(Plot.MAX_HEIGHT - 1));
-                }
-            };
+            this.clusters = new ArrayList<>();
         }
         this.clusters.add(plotCluster);
+        this.clusterIndex = null;
+    }
+
+    /**
+     * Update the cluster index after the plot range of a cluster has changed
+     *
+     * @param plotCluster Resized cluster
+     */
+    synchronized void updateCluster(@NotNull final PlotCluster plotCluster) {
+        if (this.clusters != null) {
+            this.clusterIndex = null;
+        }
     }
 
     @Nullable public PlotCluster getCluster(final String string) {
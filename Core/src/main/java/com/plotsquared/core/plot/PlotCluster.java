@@ -54,7 +54,7 @@ public class PlotCluster {
         this.owner = owner;
         this.settings = new PlotSettings();
         this.temp = -1;
-        setRegion();
+        this.region = createRegion();
     }
 
     public PlotCluster(PlotArea area, PlotId pos1, PlotId pos2, UUID owner, int temp) {
@@ -64,7 +64,7 @@ public class PlotCluster {
         this.owner = owner;
         this.settings = new PlotSettings();
         this.temp = temp;
-        setRegion();
+        this.region = createRegion();
     }
 
     public PlotId getP1() {
@@ -85,8 +85,15 @@ public class PlotCluster {
         setRegion();
     }
 
+    private CuboidRegion createRegion() {
+        return RegionUtil.createRegion(this.pos1.x, this.pos2.x, this.pos1.y, this.pos2.y);
+    }
+
     private void setRegion() {
-        this.region = RegionUtil.createRegion(this.pos1.x, this.pos2.x, this.pos1.y, this.pos2.y);
+        this.region = createRegion();
+        if (this.area != null) {
+            this.area.updateCluster(this);
+        }
     }
 
     public CuboidRegion getRegion() {
@@ -0,0 +1,100 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.location.Location;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Set;
+
+/**
+ * Cached plot geometry.
+ * <p>
+ * Plot bounds carry the geometry epoch of their plot area (see
+ * {@link PlotArea#getGeometryEpoch()}), which only changes when the area
+ * configuration is reloaded, and the merge state they were computed for.
+ * Merge groups carry the group epoch of their plot area (see
+ * {@link PlotArea#getGroupEpoch()}), which also changes whenever a plot in
+ * the area is merged, unmerged or moved. A group computed concurrently with
+ * such a change is therefore never mistaken for a current one, whichever
+ * plots it was assigned to.
+ */
+final class PlotGeometry {
+
+    private PlotGeometry() {
+    }
+
+    /**
+     * The bounds of a single plot.
+     */
+    static final class Bounds {
+
+        @Getter private final int epoch;
+        /**
+         * The merge directions the bounds were computed for, as a bit mask
+         * of direction indices.
+         */
+        @Getter private final int merged;
+        private final Location bottom;
+        private final Location top;
+
+        Bounds(final int epoch, final int merged, final Location bottom, final Location top) {
+            this.epoch = epoch;
+            this.merged = merged;
+            this.bottom = bottom;
+            this.top = top;
+        }
+
+        /**
+         * Locations are mutable, so callers always receive a copy.
+         */
+        Location getBottom() {
+            return this.bottom.copy();
+        }
+
+        Location getTop() {
+            return this.top.copy();
+        }
+    }
+
+    /**
+     * The geometry of a merge group, shared by all plots in the group.
+     */
+    static final class Group {
+
+        @Getter private final int epoch;
+        @Getter private final Set<Plot> plots;
+        @Getter @Setter private volatile Set<CuboidRegion> regions;
+        @Getter @Setter private volatile Location[] corners;
+
+        Group(final int epoch, final Set<Plot> plots) {
+            this.epoch = epoch;
+            this.plots = plots;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.database.DBFunc;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Secondary indexes over the plots registered in a {@link PlotArea}. The
+ * index is kept up to date by the plot and area mutators, and may
+ * briefly contain stale entries, so results should always be verified
+ * against the plot itself.
+ */
+public final class PlotIndex {
+
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<UUID, Set<Plot>> owners = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Plot>> added = new ConcurrentHashMap<>();
+    private final Map<String, Set<Plot>> aliases = new ConcurrentHashMap<>();
+    private final Map<String, Set<Plot>> aliasTokens = new ConcurrentHashMap<>();
+    private final Map<Plot, Keys> keys = new IdentityHashMap<>();
+
+    /**
+     * Normalize an alias for lookups
+     *
+     * @param alias Plot alias
+     * @return Normalized alias, or null if the alias is empty
+     */
+    @Nullable public static String normalizeAlias(@Nullable final String alias) {
+        if (alias == null || alias.isEmpty()) {
+            return null;
+        }
+        return alias.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Split an alias into the words that it can be searched by
+     *
+     * @param alias Plot alias
+     * @return Normalized alias tokens
+     */
+    @NotNull public static Set<String> tokenizeAlias(@Nullable final String alias) {
+        final String normalized = normalizeAlias(alias);
+        if (normalized == null) {
+            return Collections.emptySet();
+        }
+        final Set<String> tokens = new HashSet<>();
+        for (final String token : TOKEN_SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Get a counter that changes whenever a plot is indexed, updated or
+     * removed in any area. This can be used to invalidate cached query results
+     *
+     * @return Modification count
+     */
+    public static long getModificationCount() {
+        return MODIFICATIONS.get();
+    }
+
+    /**
+     * Index a plot, or update the index entries of an already indexed plot
+     *
+     * @param plot Plot to index
+     */
+    public synchronized void update(@NotNull final Plot plot) {
+        MODIFICATIONS.incrementAndGet();
+        final Keys current = new Keys(plot);
+        final Keys previous = this.keys.put(plot, current);
+        if (previous != null) {
+            if (!Objects.equals(previous.owner, current.owner)) {
+                unlink(this.owners, previous.owner, plot);
+                link(this.owners, current.owner, plot);
+                ChunkPlotRaster.invalidate(plot);
+            }
+            if (!previous.added.equals(current.added)) {
+                previous.added.forEach(uuid -> unlink(this.added, uuid, plot));
+                current.added.forEach(uuid -> link(this.added, uuid, plot));
+            }
+            if (!Objects.equals(previous.alias, current.alias)) {
+                unlink(this.aliases, previous.alias, plot);
+                link(this.aliases, current.alias, plot);
+                previous.tokens.forEach(token -> unlink(this.aliasTokens, token, plot));
+                current.tokens.forEach(token -> link(this.aliasTokens, token, plot));
+            }
+        } else {
+            ChunkPlotRaster.invalidate(plot);
+            link(this.owners, current.owner, plot);
+            current.added.forEach(uuid -> link(this.added, uuid, plot));
+            link(this.aliases, current.alias, plot);
+            current.tokens.forEach(token -> link(this.aliasTokens, token, plot));
+        }
+    }
+
+    /**
+     * Remove a plot from the index
+     *
+     * @param plot Plot to remove
+     */
+    public synchronized void remove(@NotNull final Plot plot) {
+        final Keys previous = this.keys.remove(plot);
+        if (previous == null) {
+            return;
+        }
+        MODIFICATIONS.incrementAndGet();
+        ChunkPlotRaster.invalidate(plot);
+        unlink(this.owners, previous.owner, plot);
+        previous.added.forEach(uuid -> unlink(this.added, uuid, plot));
+        unlink(this.aliases, previous.alias, plot);
+        previous.tokens.forEach(token -> unlink(this.aliasTokens, token, plot));
+    }
+
+    /**
+     * Get the plots that are owned by a player
+     *
+     * @param owner Owner UUID
+     * @return Unmodifiable view of the owned plots
+     */
+    @NotNull public Collection<Plot> getOwnedBy(@NotNull final UUID owner) {
+        return view(this.owners.get(owner));
+    }
+
+    /**
+     * Get all plots that a player may be added to, that is every plot
+     * the player owns, is trusted on or is a member of, as well as
+     * plots that have everyone added
+     *
+     * @param uuid Player UUID
+     * @return Candidate plots
+     */
+    @NotNull public Collection<Plot> getAddedCandidates(@NotNull final UUID uuid) {
+        final Set<Plot> direct = this.added.get(uuid);
+        final Set<Plot> everyone = this.added.get(DBFunc.EVERYONE);
+        final Set<Plot> owned = this.owners.get(uuid);
+        if ((everyone == null || everyone.isEmpty()) && !hasMergedPlot(owned)) {
+            return view(direct);
+        }
+        final Set<Plot> candidates = new HashSet<>();
+        if (direct != null) {
+            candidates.addAll(direct);
+        }
+        if (everyone != null) {
+            candidates.addAll(everyone);
+        }
+        if (owned != null) {
+            // Merged plots count as owned if any of the connected plots is owned
+            for (final Plot plot : owned) {
+                if (plot.isMerged()) {
+                    candidates.addAll(plot.getConnectedPlots());
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Get the plots with a given alias (case insensitive)
+     *
+     * @param alias Plot alias
+     * @return Unmodifiable view of the plots with the alias
+     */
+    @NotNull public Collection<Plot> getWithAlias(@NotNull final String alias) {
+        final String key = normalizeAlias(alias);
+        return key == null ? Collections.emptySet() : view(this.aliases.get(key));
+    }
+
+    /**
+     * Get the plots with an alias that contains a given word (case insensitive)
+     *
+     * @param token Alias word, see {@link #tokenizeAlias(String)}
+     * @return Unmodifiable view of the plots with a matching alias
+     */
+    @NotNull public Collection<Plot> getWithAliasToken(@NotNull final String token) {
+        final String key = normalizeAlias(token);
+        return key == null ? Collections.emptySet() : view(this.aliasTokens.get(key));
+    }
+
+    private static boolean hasMergedPlot(@Nullable final Set<Plot> plots) {
+        if (plots != null) {
+            for (final Plot plot : plots) {
+                if (plot.isMerged()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @NotNull private static Collection<Plot> view(@Nullable final Set<Plot> plots) {
+        return plots == null ? Collections.emptySet() : Collections.unmodifiableSet(plots);
+    }
+
+    private static <K> void link(@NotNull final Map<K, Set<Plot>> map, @Nullable final K key,
+        @NotNull final Plot plot) {
+        if (key != null) {
+            map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(plot);
+        }
+    }
+
+    private static <K> void unlink(@NotNull final Map<K, Set<Plot>> map, @Nullable final K key,
+        @NotNull final Plot plot) {
+        if (key == null) {
+            return;
+        }
+        final Set<Plot> plots = map.get(key);
+        if (plots != null) {
+            plots.remove(plot);
+            if (plots.isEmpty()) {
+                map.remove(key, plots);
+            }
+        }
+    }
+
+
+    private static final class Keys {
+
+        @Nullable private final UUID owner;
+        @NotNull private final Set<UUID> added;
+        @Nullable private final String alias;
+        @NotNull private final Set<String> tokens;
+
+        private Keys(@NotNull final Plot plot) {
+            this.owner = plot.getOwnerAbs();
+            this.added = new HashSet<>(plot.getTrusted());
+            this.added.addAll(plot.getMembers());
+            if (this.owner != null) {
+                this.added.add(this.owner);
+            }
+            this.alias = normalizeAlias(plot.getAlias());
+            this.tokens = tokenizeAlias(this.alias);
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.PlotSquared;
+import com.plotsquared.core.configuration.Settings;
+import com.plotsquared.core.player.ConsolePlayer;
+import com.plotsquared.core.player.PlotPlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the players inside each plot. The index follows the
+ * {@link PlotPlayer#META_LAST_PLOT} metadata, which is written on plot
+ * entry and exit and cleared on logout, so looking up the players in a
+ * plot only touches the players that are actually inside of it.
+ * <p>
+ * The metadata holds the base plot of the plot a player is standing in,
+ * so the occupants of a merged plot are all stored under its base plot and
+ * the other parts have no entries. {@link #getPlayersInPlot(Plot)} must
+ * therefore be given a base plot, while
+ * {@link #getPlayersInConnectedPlots(Plot)} accepts any part of a merged plot.
+ */
+public final class PlotOccupants {
+
+    private static final Map<Plot, Set<PlotPlayer<?>>> occupants = new ConcurrentHashMap<>();
+
+    private PlotOccupants() {
+    }
+
+    /**
+     * Whether the index can be used to answer queries. The current plot
+     * of a player is only tracked when plot events are enabled
+     *
+     * @return True if the index is authoritative
+     */
+    public static boolean isTracking() {
+        return Settings.Enabled_Components.EVENTS;
+    }
+
+    /**
+     * Move a player from one plot to another
+     *
+     * @param player   Player
+     * @param previous Plot that the player left, or null
+     * @param current  Plot that the player entered, or null
+     */
+    public static void move(@NotNull final PlotPlayer<?> player, @Nullable final Object previous,
+        @Nullable final Object current) {
+        if (player instanceof ConsolePlayer) {
+            return;
+        }
+        if (previous instanceof Plot && !previous.equals(current)) {
+            final Set<PlotPlayer<?>> players = occupants.get(previous);
+            if (players != null) {
+                players.remove(player);
+                if (players.isEmpty()) {
+                    occupants.remove(previous, players);
+                }
+            }
+        }
+        if (current instanceof Plot) {
+            occupants.computeIfAbsent((Plot) current, plot -> ConcurrentHashMap.newKeySet())
+                .add(player);
+        }
+    }
+
+    /**
+     * Get the players currently inside a plot
+     *
+     * @param plot Base plot
+     * @return Players inside of the plot
+     */
+    @NotNull public static List<PlotPlayer<?>> getPlayersInPlot(@NotNull final Plot plot) {
+        if (!isTracking()) {
+            final List<PlotPlayer<?>> players = new ArrayList<>();
+            for (final PlotPlayer<?> player : PlotSquared.imp().getPlayerManager().getPlayers()) {
+                if (plot.equals(player.getCurrentPlot())) {
+                    players.add(player);
+                }
+            }
+            return players;
+        }
+        final Set<PlotPlayer<?>> players = occupants.get(plot);
+        if (players == null || players.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<PlotPlayer<?>> result = new ArrayList<>(players.size());
+        for (final PlotPlayer<?> player : players) {
+            // The metadata may have been replaced while iterating
+            if (plot.equals(player.getCurrentPlot())) {
+                result.add(player);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the players currently inside a plot or any plot that is merged with it
+     *
+     * @param plot Plot
+     * @return Players inside of the merged plot
+     */
+    @NotNull public static List<PlotPlayer<?>> getPlayersInConnectedPlots(
+        @NotNull final Plot plot) {
+        return getPlayersInPlot(plot.isMerged() ? plot.getBasePlot(false) : plot);
+    }
+
+}
@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generic settings class.
@@ -46,6 +47,8 @@ import java.util.UUID;
  */
 public class PlotSettings {
 
+    private static final AtomicLong RATING_MODIFICATIONS = new AtomicLong();
+
     /**
      * Merged plots.
      */
@@ -57,7 +60,7 @@ public class PlotSettings {
     /**
      * The ratings for a plot.
      */
-    @Setter private HashMap<UUID, Integer> ratings;
+    private HashMap<UUID, Integer> ratings;
     /**
      * Plot comments.
      */
@@ -81,6 +84,25 @@ public class PlotSettings {
         this.merged = merged;
     }
 
+    /**
+     * Get the number of rating changes across all plots. Callers
+     * that cache rating dependent results can compare this to detect changes
+     *
+     * @return Modification count
+     */
+    public static long getRatingModificationCount() {
+        return RATING_MODIFICATIONS.get();
+    }
+
+    static void ratingsModified() {
+        RATING_MODIFICATIONS.incrementAndGet();
+    }
+
+    public void setRatings(HashMap<UUID, Integer> ratings) {
+        this.ratings = ratings;
+        ratingsModified();
+    }
+
     public Map<UUID, Integer> getRatings() {
         if (this.ratings == null) {
             this.ratings = new HashMap<>();
@@ -27,23 +27,20 @@ package com.plotsquared.core.plot.expiration;
 
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.Captions;
+import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.database.DBFunc;
-import com.plotsquared.core.events.PlotFlagAddEvent;
 import com.plotsquared.core.events.PlotUnlinkEvent;
 import com.plotsquared.core.events.Result;
-import com.plotsquared.core.generator.HybridUtils;
 import com.plotsquared.core.player.OfflinePlotPlayer;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.PlotAreaType;
-import com.plotsquared.core.plot.flag.GlobalFlagContainer;
-import com.plotsquared.core.plot.flag.PlotFlag;
-import com.plotsquared.core.plot.flag.implementations.AnalysisFlag;
 import com.plotsquared.core.plot.flag.implementations.KeepFlag;
 import com.plotsquared.core.plot.message.PlotMessage;
 import com.plotsquared.core.util.MainUtil;
 import com.plotsquared.core.util.StringMan;
+import com.plotsquared.core.util.query.PlotQuery;
 import com.plotsquared.core.util.task.RunnableVal;
 import com.plotsquared.core.util.task.RunnableVal3;
 import com.plotsquared.core.util.task.TaskManager;
@@ -54,23 +51,40 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ExpireManager {
 
+    /**
+     * Interval after which owners are checked again if their plots
+     * did not expire when their deadline passed
+     */
+    private static final long RECHECK_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    /**
+     * Maximum time to wait before checking the expiry index again
+     */
+    private static final long MAX_IDLE = TimeUnit.HOURS.toMillis(1);
+    private static final int POLL_BATCH_SIZE = 64;
+
     public static ExpireManager IMP;
     private final ConcurrentHashMap<UUID, Long> dates_cache;
     private final ConcurrentHashMap<UUID, Long> account_age_cache;
     private volatile HashSet<Plot> plotsToDelete;
     private ArrayDeque<ExpiryTask> tasks;
+    private final ExpiryIndex expiryIndex = new ExpiryIndex();
+    private volatile boolean indexSeeded;
+    private volatile ExpiryPipeline pipeline;
+    private volatile ExpiryPipeline dryRun;
     /**
      * 0 = stopped, 1 = stopping, 2 = running
      */
-    private int running;
+    private volatile int running;
 
     public ExpireManager() {
         tasks = new ArrayDeque<>();
@@ -172,10 +186,13 @@ public class ExpireManager {
 
 
     public boolean cancelTask() {
-        if (this.running != 2) {
+        if (this.running != 2 && this.running != 3) {
             return false;
         }
         this.running = 1;
+        if (this.pipeline != null) {
+            this.pipeline.cancel();
+        }
         return true;
     }
 
@@ -263,6 +280,10 @@ public class ExpireManager {
         return applicable;
     }
 
+    ArrayDeque<ExpiryTask> copyTasks() {
+        return new ArrayDeque<>(this.tasks);
+    }
+
     public ArrayDeque<ExpiryTask> getTasks(PlotArea area) {
         ArrayDeque<ExpiryTask> queue = new ArrayDeque<>(tasks);
         queue.removeIf(expiryTask -> !expiryTask.applies(area));
@@ -294,91 +315,161 @@ public class ExpireManager {
             return false;
         }
         this.running = 2;
-        final ConcurrentLinkedDeque<Plot> plots =
-            new ConcurrentLinkedDeque<>(PlotSquared.get().getPlots());
-        TaskManager.runTaskAsync(new Runnable() {
-            @Override public void run() {
-                final Runnable task = this;
-                if (ExpireManager.this.running != 2) {
-                    ExpireManager.this.running = 0;
-                    return;
+        final ExpiryPipeline pipeline =
+            new ExpiryPipeline(this, this::pollExpiringPlots, expiredTask, false);
+        this.pipeline = pipeline;
+        TaskManager.runTaskAsync(() -> {
+            if (!this.indexSeeded) {
+                seedExpiryIndex();
+            }
+            pipeline.start(() -> idle(pipeline), () -> this.running = 0);
+        });
+        return true;
+    }
+
+    /**
+     * Evaluate all plots as the expiry task would, without deleting or
+     * marking any of them, and report the throughput of the expiry pipeline.
+     * Plots are still analysed, so this can be used to tune
+     * {@link Settings.Expiry#ANALYSIS_PARALLELISM}.
+     *
+     * @param whenDone Consumer that accepts the report
+     * @return false if a dry run is already in progress
+     */
+    public boolean runDryRun(final Consumer<String> whenDone) {
+        if (this.dryRun != null) {
+            return false;
+        }
+        final Iterator<Plot> plots = new ArrayList<>(PlotSquared.get().getPlots()).iterator();
+        final ExpiryPipeline pipeline = new ExpiryPipeline(this, () -> {
+            final List<Plot> batch = new ArrayList<>(POLL_BATCH_SIZE);
+            while (batch.size() < POLL_BATCH_SIZE && plots.hasNext()) {
+                batch.add(plots.next());
+            }
+            return batch;
+        }, new RunnableVal3<Plot, Runnable, Boolean>() {
+            @Override public void run(Plot plot, Runnable whenDone, Boolean confirm) {
+                whenDone.run();
+            }
+        }, true);
+        this.dryRun = pipeline;
+        pipeline.start(() -> {
+            this.dryRun = null;
+            whenDone.accept(pipeline.getReport());
+        }, () -> this.dryRun = null);
+        return true;
+    }
+
+    /**
+     * Wait until the next owner may have expired, then resume the pipeline
+     *
+     * @param pipeline Idle pipeline
+     */
+    private void idle(final ExpiryPipeline pipeline) {
+        this.running = 3;
+        final long idle = Math.max(0L, Math.min(MAX_IDLE,
+            this.expiryIndex.getNextDeadline() - System.currentTimeMillis()));
+        TaskManager.runTaskLaterAsync(() -> {
+            if (this.pipeline != pipeline) {
+                return;
+            }
+            if (this.running == 3) {
+                this.running = 2;
+                pipeline.wake();
+            } else if (this.running == 1) {
+                this.running = 0;
+            }
+        }, (int) Math.max(20L, idle / 50L));
+    }
+
+    /**
+     * Schedule every current plot owner for an expiry check. This is only
+     * done once, after which the index is kept up to date by
+     * {@link #storeDate(UUID, long)} and {@link #trackOwner(UUID)}
+     */
+    private void seedExpiryIndex() {
+        for (final Plot plot : PlotSquared.get().getPlots()) {
+            final UUID owner = plot.getOwnerAbs();
+            if (owner != null && !DBFunc.EVERYONE.equals(owner)) {
+                this.expiryIndex.scheduleIfAbsent(owner, 0L);
+            }
+        }
+        this.indexSeeded = true;
+    }
+
+    /**
+     * Get the plots of owners whose expiry deadline has passed. Owners
+     * whose deadline turns out to lie in the future are rescheduled instead.
+     *
+     * @return Plots to check, or an empty collection if no owner is due
+     */
+    private Collection<Plot> pollExpiringPlots() {
+        final List<Plot> plots = new ArrayList<>();
+        final long expiry = getMinimumExpiry();
+        if (expiry == Long.MAX_VALUE) {
+            return plots;
+        }
+        while (plots.isEmpty()) {
+            final long now = System.currentTimeMillis();
+            final List<UUID> due = this.expiryIndex.pollDue(now, POLL_BATCH_SIZE);
+            if (due.isEmpty()) {
+                return plots;
+            }
+            for (final UUID owner : due) {
+                // Online players are scheduled again when they leave
+                if (PlotSquared.imp().getPlayerManager().getPlayerIfExists(owner) != null) {
+                    continue;
                 }
-                long start = System.currentTimeMillis();
-                while (!plots.isEmpty()) {
-                    if (ExpireManager.this.running != 2) {
-                        ExpireManager.this.running = 0;
-                        return;
-                    }
-                    Plot plot = plots.poll();
-                    PlotArea area = plot.getArea();
-                    final Plot newPlot = area.getPlot(plot.getId());
-                    final ArrayDeque<ExpiryTask> applicable = new ArrayDeque<>(tasks);
-                    final Collection<ExpiryTask> expired = isExpired(applicable, newPlot);
-                    if (expired.isEmpty()) {
-                        continue;
-                    }
-                    for (ExpiryTask expiryTask : expired) {
-                        if (!expiryTask.needsAnalysis()) {
-                            expiredTask.run(newPlot, () -> TaskManager.IMP.taskLaterAsync(task, 1),
-                                expiryTask.requiresConfirmation());
-                            return;
-                        }
-                    }
-                    final RunnableVal<PlotAnalysis> handleAnalysis =
-                        new RunnableVal<PlotAnalysis>() {
-                            @Override public void run(final PlotAnalysis changed) {
-                                passesComplexity(changed, expired, new RunnableVal<Boolean>() {
-                                    @Override public void run(Boolean confirmation) {
-                                        expiredTask.run(newPlot,
-                                            () -> TaskManager.IMP.taskLaterAsync(task, 1),
-                                            confirmation);
-                                    }
-                                }, () -> {
-                                    PlotFlag<?, ?> plotFlag = GlobalFlagContainer.getInstance()
-                                        .getFlag(AnalysisFlag.class)
-                                        .createFlagInstance(changed.asList());
-                                    PlotFlagAddEvent event =
-                                        new PlotFlagAddEvent(plotFlag, newPlot);
-                                    if (event.getEventResult() == Result.DENY) {
-                                        return;
-                                    }
-                                    newPlot.setFlag(event.getFlag());
-                                    TaskManager.runTaskLaterAsync(task, 20);
-                                });
-                            }
-                        };
-                    final Runnable doAnalysis =
-                        () -> HybridUtils.manager.analyzePlot(newPlot, handleAnalysis);
-
-                    PlotAnalysis analysis = newPlot.getComplexity(null);
-                    if (analysis != null) {
-                        passesComplexity(analysis, expired, new RunnableVal<Boolean>() {
-                            @Override public void run(Boolean value) {
-                                doAnalysis.run();
-                            }
-                        }, () -> TaskManager.IMP.taskLaterAsync(task, 1));
-                    } else {
-                        doAnalysis.run();
-                    }
-                    return;
+                // Players without a known last login never expire, until they join again
+                final long lastSeen = getLastSeen(owner);
+                if (lastSeen == 0) {
+                    continue;
                 }
-                if (plots.isEmpty()) {
-                    ExpireManager.this.running = 3;
-                    TaskManager.runTaskLater(() -> {
-                        if (ExpireManager.this.running == 3) {
-                            ExpireManager.this.running = 2;
-                            runTask(expiredTask);
-                        }
-                    }, 86400000);
-                } else {
-                    TaskManager.runTaskLaterAsync(task, 20 * 10);
+                if (lastSeen + expiry > now) {
+                    this.expiryIndex.schedule(owner, lastSeen + expiry);
+                    continue;
                 }
+                final List<Plot> owned = PlotQuery.newQuery().ownedBy(owner).asList();
+                if (owned.isEmpty()) {
+                    continue;
+                }
+                // Plots may be kept, so check the owner again until they are gone
+                this.expiryIndex.schedule(owner, now + RECHECK_INTERVAL);
+                plots.addAll(owned);
             }
-        });
-        return true;
+        }
+        return plots;
+    }
+
+    /**
+     * Get the shortest time after which a plot may expire in any task
+     *
+     * @return Time in millis, or {@link Long#MAX_VALUE} if there are no tasks
+     */
+    private long getMinimumExpiry() {
+        long min = Long.MAX_VALUE;
+        for (final ExpiryTask task : this.tasks) {
+            min = Math.min(min, TimeUnit.DAYS.toMillis(task.getSettings().DAYS));
+        }
+        return min;
+    }
+
+    /**
+     * Make sure the plots of an owner are checked for expiry. This should
+     * be called when a player becomes the owner of a plot.
+     *
+     * @param owner Owner UUID
+     */
+    public void trackOwner(UUID owner) {
+        if (!DBFunc.EVERYONE.equals(owner)) {
+            this.expiryIndex.scheduleIfAbsent(owner, 0L);
+        }
     }
 
     public void storeDate(UUID uuid, long time) {
+        // The deadline is only an estimate, the exact one is computed once it has passed
+        long expiry = getMinimumExpiry();
+        this.expiryIndex.schedule(uuid, expiry == Long.MAX_VALUE ? time : time + expiry);
         Long existing = this.dates_cache.put(uuid, time);
         if (existing != null) {
             long diff = time - existing;
@@ -441,6 +532,14 @@ public class ExpireManager {
         if (PlotSquared.imp().getPlayerManager().getPlayerIfExists(uuid) != null) {
             return 0;
         }
+        long last = getLastSeen(uuid);
+        if (last == 0) {
+            return 0;
+        }
+        return System.currentTimeMillis() - last;
+    }
+
+    private long getLastSeen(UUID uuid) {
         Long last = this.dates_cache.get(uuid);
         if (last == null) {
             OfflinePlotPlayer opp = PlotSquared.imp().getPlayerManager().getOfflinePlayer(uuid);
@@ -450,10 +549,7 @@ public class ExpireManager {
                 return 0;
             }
         }
-        if (last == 0) {
-            return 0;
-        }
-        return System.currentTimeMillis() - last;
+        return last;
     }
 
     public long getAge(Plot plot) {
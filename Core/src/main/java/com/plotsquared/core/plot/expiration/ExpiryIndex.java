@@ -0,0 +1,133 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot.expiration;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Plot owners ordered by the time at which their plots should next be
+ * checked for expiry. This allows the {@link ExpireManager} to only look
+ * at owners that may actually have expired, rather than at every plot.
+ */
+final class ExpiryIndex {
+
+    private final Map<UUID, Long> deadlines = new HashMap<>();
+    private final TreeSet<Deadline> queue = new TreeSet<>();
+
+    /**
+     * Set the time at which the plots of an owner should be checked,
+     * replacing any previous deadline
+     *
+     * @param owner    Owner UUID
+     * @param deadline Epoch millis
+     */
+    synchronized void schedule(@NotNull final UUID owner, final long deadline) {
+        final Long previous = this.deadlines.put(owner, deadline);
+        if (previous != null) {
+            this.queue.remove(new Deadline(owner, previous));
+        }
+        this.queue.add(new Deadline(owner, deadline));
+    }
+
+    /**
+     * Set the time at which the plots of an owner should be checked,
+     * unless the owner already has a deadline
+     *
+     * @param owner    Owner UUID
+     * @param deadline Epoch millis
+     */
+    synchronized void scheduleIfAbsent(@NotNull final UUID owner, final long deadline) {
+        if (!this.deadlines.containsKey(owner)) {
+            this.schedule(owner, deadline);
+        }
+    }
+
+    /**
+     * Remove the owners whose deadline has passed
+     *
+     * @param now   Current epoch millis
+     * @param limit Maximum amount of owners to remove
+     * @return Removed owners, earliest deadline first
+     */
+    @NotNull synchronized List<UUID> pollDue(final long now, final int limit) {
+        final List<UUID> due = new ArrayList<>();
+        final Iterator<Deadline> iterator = this.queue.iterator();
+        while (due.size() < limit && iterator.hasNext()) {
+            final Deadline deadline = iterator.next();
+            if (deadline.time > now) {
+                break;
+            }
+            iterator.remove();
+            this.deadlines.remove(deadline.owner);
+            due.add(deadline.owner);
+        }
+        return due;
+    }
+
+    /**
+     * Get the earliest deadline
+     *
+     * @return Epoch millis, or {@link Long#MAX_VALUE} if no owner is scheduled
+     */
+    synchronized long getNextDeadline() {
+        return this.queue.isEmpty() ? Long.MAX_VALUE : this.queue.first().time;
+    }
+
+    /**
+     * Get the number of scheduled owners
+     *
+     * @return Owner count
+     */
+    synchronized int size() {
+        return this.deadlines.size();
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+
+        private final UUID owner;
+        private final long time;
+
+        private Deadline(@NotNull final UUID owner, final long time) {
+            this.owner = owner;
+            this.time = time;
+        }
+
+        @Override public int compareTo(@NotNull final Deadline other) {
+            final int comparison = Long.compare(this.time, other.time);
+            return comparison != 0 ? comparison : this.owner.compareTo(other.owner);
+        }
+
+    }
+
+}
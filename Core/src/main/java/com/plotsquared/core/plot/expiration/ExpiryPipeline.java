@@ -0,0 +1,380 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot.expiration;
+
+import com.plotsquared.core.PlotSquared;
+import com.plotsquared.core.configuration.Settings;
+import com.plotsquared.core.events.PlotFlagAddEvent;
+import com.plotsquared.core.events.Result;
+import com.plotsquared.core.generator.HybridUtils;
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.flag.GlobalFlagContainer;
+import com.plotsquared.core.plot.flag.PlotFlag;
+import com.plotsquared.core.plot.flag.implementations.AnalysisFlag;
+import com.plotsquared.core.util.task.RunnableVal;
+import com.plotsquared.core.util.task.RunnableVal3;
+import com.plotsquared.core.util.task.TaskManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Expiry evaluation split into stages that are connected by bounded queues:
+ * <ol>
+ *     <li>candidate selection, from the supplied plot batches</li>
+ *     <li>cheap checks, i.e. the owner age, flags and cached analysis</li>
+ *     <li>plot analysis, with {@link Settings.Expiry#ANALYSIS_PARALLELISM} analyses at a time</li>
+ *     <li>deletion or confirmation, one plot at a time</li>
+ * </ol>
+ * The stages are driven by a single asynchronous pump that runs whenever
+ * a stage has made progress. A stage stops accepting plots while the
+ * queue of the next stage is full.
+ * <p>
+ * A dry run goes through the same stages, but neither stores analyses
+ * nor hands expired plots to the expired task.
+ */
+final class ExpiryPipeline {
+
+    /**
+     * Analyses that have not completed within this time are reported, but
+     * keep their slot until they complete
+     */
+    private static final long ANALYSIS_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    private final ExpireManager manager;
+    private final Supplier<Collection<Plot>> source;
+    private final RunnableVal3<Plot, Runnable, Boolean> expiredTask;
+    private final int parallelism;
+    private final int capacity;
+    private final boolean dryRun;
+
+    private final ArrayDeque<Plot> candidates = new ArrayDeque<>();
+    private final ArrayDeque<Candidate> analysisQueue = new ArrayDeque<>();
+    private final ArrayDeque<Candidate> deletionQueue = new ArrayDeque<>();
+    private final AtomicBoolean pumpScheduled = new AtomicBoolean();
+    private final Object pumpLock = new Object();
+    private int analysing;
+    private boolean deleting;
+    private boolean exhausted;
+    private boolean idle;
+    private boolean stopped;
+    private volatile boolean cancelled;
+    private Runnable onIdle;
+    private Runnable onStopped;
+
+    private long startTime;
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong analysed = new AtomicLong();
+    private final AtomicLong analysisTime = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong confirmations = new AtomicLong();
+
+    /**
+     * @param manager     Expire manager that decides whether plots have expired
+     * @param source      Supplies batches of plots to check, an empty batch means that no plots are left
+     * @param expiredTask Handles expired plots: (plot, whenDone, requiresConfirmation)
+     * @param dryRun      Whether plots should only be evaluated, without storing analyses
+     *                    or running the expired task
+     */
+    ExpiryPipeline(@NotNull final ExpireManager manager,
+        @NotNull final Supplier<Collection<Plot>> source,
+        @NotNull final RunnableVal3<Plot, Runnable, Boolean> expiredTask, final boolean dryRun) {
+        this.manager = manager;
+        this.dryRun = dryRun;
+        this.source = source;
+        this.expiredTask = expiredTask;
+        this.parallelism = Math.max(1, Settings.Expiry.ANALYSIS_PARALLELISM);
+        this.capacity = Math.max(1, Settings.Expiry.QUEUE_CAPACITY);
+    }
+
+    /**
+     * Start processing plots
+     *
+     * @param onIdle    Called once the source is exhausted and all stages are empty
+     * @param onStopped Called once the pipeline has been cancelled and all running stages completed
+     */
+    void start(@NotNull final Runnable onIdle, @NotNull final Runnable onStopped) {
+        this.onIdle = onIdle;
+        this.onStopped = onStopped;
+        this.startTime = System.currentTimeMillis();
+        this.schedulePump();
+    }
+
+    /**
+     * Ask the source for more plots after the pipeline became idle
+     */
+    void wake() {
+        synchronized (this) {
+            this.exhausted = false;
+            this.idle = false;
+        }
+        this.schedulePump();
+    }
+
+    /**
+     * Stop accepting plots. Running analyses and deletions are allowed to complete
+     */
+    void cancel() {
+        this.cancelled = true;
+        this.schedulePump();
+    }
+
+    /**
+     * Get a summary of the work done by the pipeline so far
+     *
+     * @return Throughput report
+     */
+    @NotNull String getReport() {
+        final long elapsed = Math.max(1L, System.currentTimeMillis() - this.startTime);
+        final long analysed = this.analysed.get();
+        return String.format("Checked %d plots in %.1fs (%.1f plots/min). Kept: %d, analysed: %d "
+                + "(avg. %dms, parallelism %d), expired: %d (%d require confirmation)",
+            this.checked.get(), elapsed / 1000D, this.checked.get() * 60000D / elapsed,
+            this.kept.get(), analysed, analysed == 0 ? 0 : this.analysisTime.get() / analysed,
+            this.parallelism, this.expired.get(), this.confirmations.get());
+    }
+
+    private void schedulePump() {
+        if (this.pumpScheduled.compareAndSet(false, true)) {
+            TaskManager.runTaskAsync(this::pump);
+        }
+    }
+
+    private void pump() {
+        synchronized (this.pumpLock) {
+            this.pumpScheduled.set(false);
+            if (this.cancelled) {
+                synchronized (this) {
+                    this.candidates.clear();
+                    this.analysisQueue.clear();
+                    this.deletionQueue.clear();
+                    if (this.stopped || this.analysing > 0 || this.deleting) {
+                        return;
+                    }
+                    this.stopped = true;
+                }
+                this.onStopped.run();
+                return;
+            }
+            this.startDeletion();
+            this.startAnalyses();
+            while (this.hasCapacity()) {
+                final Plot plot = this.nextCandidate();
+                if (plot == null) {
+                    break;
+                }
+                this.check(plot);
+            }
+            this.startDeletion();
+            this.startAnalyses();
+            if (this.becameIdle()) {
+                this.onIdle.run();
+            }
+        }
+    }
+
+    private synchronized boolean hasCapacity() {
+        return this.analysisQueue.size() < this.capacity
+            && this.deletionQueue.size() < this.capacity;
+    }
+
+    private synchronized boolean becameIdle() {
+        if (this.idle || !this.exhausted || !this.candidates.isEmpty()
+            || !this.analysisQueue.isEmpty() || !this.deletionQueue.isEmpty()
+            || this.analysing > 0 || this.deleting) {
+            return false;
+        }
+        this.idle = true;
+        return true;
+    }
+
+    private Plot nextCandidate() {
+        if (this.candidates.isEmpty() && !this.exhausted) {
+            final Collection<Plot> batch = this.source.get();
+            if (batch.isEmpty()) {
+                this.exhausted = true;
+            } else {
+                this.candidates.addAll(batch);
+            }
+        }
+        return this.candidates.poll();
+    }
+
+    /**
+     * Run the checks that do not require the plot to be analysed
+     *
+     * @param plot Candidate plot
+     */
+    private void check(@NotNull final Plot plot) {
+        this.checked.incrementAndGet();
+        final Plot current = plot.getArea().getPlot(plot.getId());
+        final Collection<ExpiryTask> tasks = this.manager.isExpired(this.manager.copyTasks(), current);
+        if (tasks.isEmpty()) {
+            this.kept.incrementAndGet();
+            return;
+        }
+        for (final ExpiryTask task : tasks) {
+            if (!task.needsAnalysis()) {
+                this.enqueueDeletion(new Candidate(current, tasks, task.requiresConfirmation()));
+                return;
+            }
+        }
+        // Only analyse the plot again if the previous analysis would let it expire
+        final PlotAnalysis analysis = current.getComplexity(null);
+        if (analysis != null) {
+            final boolean[] passes = new boolean[1];
+            this.manager.passesComplexity(analysis, tasks, new RunnableVal<Boolean>() {
+                @Override public void run(Boolean confirmation) {
+                    passes[0] = true;
+                }
+            }, () -> {
+            });
+            if (!passes[0]) {
+                this.kept.incrementAndGet();
+                return;
+            }
+        }
+        synchronized (this) {
+            this.analysisQueue.add(new Candidate(current, tasks, false));
+        }
+    }
+
+    private void startAnalyses() {
+        while (true) {
+            final Candidate candidate;
+            synchronized (this) {
+                if (this.analysing >= this.parallelism || this.analysisQueue.isEmpty()
+                    || this.deletionQueue.size() >= this.capacity) {
+                    return;
+                }
+                candidate = this.analysisQueue.poll();
+                this.analysing++;
+            }
+            final long start = System.currentTimeMillis();
+            final AtomicBoolean completed = new AtomicBoolean();
+            // The analysis keeps its slot until it completes, so that slow
+            // plots cannot push the number of running analyses past the limit
+            TaskManager.runTaskLaterAsync(() -> {
+                if (!completed.get()) {
+                    PlotSquared.debug(String.format("Expiry analysis of plot %s has been running "
+                        + "for more than %d minutes", candidate.plot,
+                        TimeUnit.MILLISECONDS.toMinutes(ANALYSIS_TIMEOUT)));
+                }
+            }, (int) (ANALYSIS_TIMEOUT / 50));
+            HybridUtils.manager.analyzePlot(candidate.plot, new RunnableVal<PlotAnalysis>() {
+                @Override public void run(PlotAnalysis changed) {
+                    if (completed.compareAndSet(false, true)) {
+                        finishAnalysis(candidate, changed, start);
+                    }
+                }
+            }, !this.dryRun);
+        }
+    }
+
+    private void finishAnalysis(@NotNull final Candidate candidate, final PlotAnalysis changed,
+        final long start) {
+        synchronized (this) {
+            this.analysing--;
+        }
+        this.analysed.incrementAndGet();
+        this.analysisTime.addAndGet(System.currentTimeMillis() - start);
+        if (changed == null) {
+            this.kept.incrementAndGet();
+        } else {
+            this.manager.passesComplexity(changed, candidate.tasks, new RunnableVal<Boolean>() {
+                @Override public void run(Boolean confirmation) {
+                    enqueueDeletion(new Candidate(candidate.plot, candidate.tasks, confirmation));
+                }
+            }, () -> {
+                this.kept.incrementAndGet();
+                if (this.dryRun) {
+                    return;
+                }
+                PlotFlag<?, ?> plotFlag = GlobalFlagContainer.getInstance().getFlag(AnalysisFlag.class)
+                    .createFlagInstance(changed.asList());
+                PlotFlagAddEvent event = new PlotFlagAddEvent(plotFlag, candidate.plot);
+                if (event.getEventResult() != Result.DENY) {
+                    candidate.plot.setFlag(event.getFlag());
+                }
+            });
+        }
+        this.schedulePump();
+    }
+
+    private synchronized void enqueueDeletion(@NotNull final Candidate candidate) {
+        this.deletionQueue.add(candidate);
+    }
+
+    private void startDeletion() {
+        final Candidate candidate;
+        synchronized (this) {
+            if (this.deleting || this.deletionQueue.isEmpty()) {
+                return;
+            }
+            candidate = this.deletionQueue.poll();
+            this.deleting = true;
+        }
+        this.expired.incrementAndGet();
+        if (candidate.confirmation) {
+            this.confirmations.incrementAndGet();
+        }
+        if (this.dryRun) {
+            synchronized (this) {
+                this.deleting = false;
+            }
+            this.schedulePump();
+            return;
+        }
+        this.expiredTask.run(candidate.plot, () -> {
+            synchronized (this) {
+                this.deleting = false;
+            }
+            this.schedulePump();
+        }, candidate.confirmation);
+    }
+
+    private static final class Candidate {
+
+        private final Plot plot;
+        private final Collection<ExpiryTask> tasks;
+        private final boolean confirmation;
+
+        private Candidate(@NotNull final Plot plot, @NotNull final Collection<ExpiryTask> tasks,
+            final boolean confirmation) {
+            this.plot = plot;
+            this.tasks = tasks;
+            this.confirmation = confirmation;
+        }
+
+    }
+
+}
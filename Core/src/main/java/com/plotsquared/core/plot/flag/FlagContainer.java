@@ -38,12 +38,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Container type for {@link PlotFlag plot flags}.
  */
 @EqualsAndHashCode(of = "flagMap") public class FlagContainer {
 
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+
     private final Map<String, String> unknownFlags = new HashMap<>();
     private final Map<Class<?>, PlotFlag<?, ?>> flagMap = new HashMap<>();
     private final PlotFlagUpdateHandler plotFlagUpdateHandler;
@@ -85,6 +88,16 @@ import java.util.Map;
         this(parentContainer, null);
     }
 
+    /**
+     * Get the number of flag changes across all flag containers. Callers
+     * that cache flag dependent results can compare this to detect changes
+     *
+     * @return Modification count
+     */
+    public static long getModificationCount() {
+        return MODIFICATIONS.get();
+    }
+
     /**
      * Cast a plot flag with wildcard parameters into a parametrisized
      * PlotFlag. This is an unsafe operation, and should only be performed
@@ -133,6 +146,7 @@ import java.util.Map;
             Preconditions.checkState(flag.getName().length() <= 64,
                 "flag name may not be more than 64 characters. Check: " + flag.getName());
             final PlotFlag<?, ?> oldInstance = this.flagMap.put(flag.getClass(), flag);
+            MODIFICATIONS.incrementAndGet();
             final PlotFlagUpdateType plotFlagUpdateType;
             if (oldInstance != null) {
                 plotFlagUpdateType = PlotFlagUpdateType.FLAG_UPDATED;
@@ -161,6 +175,7 @@ import java.util.Map;
      */
     public <V, T extends PlotFlag<V, ?>> V removeFlag(final T flag) {
         final Object value = this.flagMap.remove(flag.getClass());
+        MODIFICATIONS.incrementAndGet();
         if (this.plotFlagUpdateHandler != null) {
             this.plotFlagUpdateHandler.handle(flag, PlotFlagUpdateType.FLAG_REMOVED);
         }
@@ -194,6 +209,7 @@ import java.util.Map;
      */
     public void clearLocal() {
         this.flagMap.clear();
+        MODIFICATIONS.incrementAndGet();
     }
 
     /**
@@ -25,21 +25,17 @@
  */
 package com.plotsquared.core.plot.world;
 
+import com.plotsquared.core.collection.RectangleIndex;
 import com.plotsquared.core.location.Location;
 import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.PlotWorld;
-import com.plotsquared.core.util.PlotAreaConverter;
 import com.plotsquared.core.util.RegionUtil;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.khelekore.prtree.MBR;
-import org.khelekore.prtree.PRTree;
-import org.khelekore.prtree.SimpleMBR;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -48,12 +44,7 @@ import java.util.List;
  */
 public class ScatteredPlotWorld extends PlotWorld {
 
-    private static final PlotAreaConverter MBR_CONVERTER = new PlotAreaConverter();
-    private static final int BRANCH_FACTOR = 30;
-
-    private final List<PlotArea> areas = new LinkedList<>();
-    private final Object treeLock = new Object();
-    private PRTree<PlotArea> areaTree;
+    private volatile RectangleIndex<PlotArea> areas = RectangleIndex.empty(PlotArea::getRegion);
 
     /**
      * Create a new plot world with a given world name
@@ -65,62 +56,31 @@ public class ScatteredPlotWorld extends PlotWorld {
     }
 
     @Override @Nullable public PlotArea getArea(@NotNull final Location location) {
-        if (this.areas.isEmpty()) {
-            return null;
-        }
-        synchronized (this.treeLock) {
-            for (final PlotArea area : this.areaTree.find(location.toMBR())) {
-                if (area.contains(location)) {
-                    return area;
-                }
-            }
-        }
-        return null;
+        return this.areas.get(location.getX(), location.getZ());
     }
 
     @Override @NotNull public Collection<PlotArea> getAreas() {
-        return Collections.unmodifiableCollection(this.areas);
+        return this.areas.values();
     }
 
-    @Override public void addArea(@NotNull final PlotArea area) {
-        this.areas.add(area);
-        this.buildTree();
+    @Override public synchronized void addArea(@NotNull final PlotArea area) {
+        this.areas = this.areas.with(area);
     }
 
-    @Override public void removeArea(@NotNull final PlotArea area) {
-        this.areas.remove(area);
-        this.buildTree();
+    @Override public synchronized void removeArea(@NotNull final PlotArea area) {
+        this.areas = this.areas.without(area);
     }
 
     @Override @NotNull public Collection<PlotArea> getAreasInRegion(@NotNull final CuboidRegion region) {
-        if (this.areas.isEmpty()) {
-            return Collections.emptyList();
-        }
-        synchronized (this.treeLock) {
-            final List<PlotArea> areas = new LinkedList<>();
-
-            final BlockVector3 min = region.getMinimumPoint();
-            final BlockVector3 max = region.getMaximumPoint();
-            final MBR mbr = new SimpleMBR(min.getX(), max.getX(), min.getY(), max.getY(), min.getZ(), max.getZ());
-
-            for (final PlotArea area : this.areaTree.find(mbr)) {
-                if (RegionUtil.intersects(area.getRegion(), region)) {
-                    areas.add(area);
-                }
+        final List<PlotArea> areas = new LinkedList<>();
+        final BlockVector3 min = region.getMinimumPoint();
+        final BlockVector3 max = region.getMaximumPoint();
+        this.areas.forEachIntersecting(min.getX(), min.getZ(), max.getX(), max.getZ(), area -> {
+            if (RegionUtil.intersects(area.getRegion(), region)) {
+                areas.add(area);
             }
-
-            return areas;
-        }
-    }
-
-    /**
-     * Rebuild the area tree
-     */
-    private void buildTree() {
-        synchronized (this.treeLock) {
-            this.areaTree = new PRTree<>(MBR_CONVERTER, BRANCH_FACTOR);
-            this.areaTree.load(this.areas);
-        }
+        });
+        return areas;
     }
 
 }
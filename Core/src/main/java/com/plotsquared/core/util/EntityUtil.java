@@ -88,20 +88,10 @@ public class EntityUtil {
                 mobs = plot.countEntities();
             }
             if (mobs[i] >= cap) {
-                plot.setMeta("EntityCount", mobs);
-                plot.setMeta("EntityCountTime", System.currentTimeMillis());
                 plot.debug("Prevented spawning of mob because it would exceed " + flag.getName());
                 return true;
             }
         }
-        if (mobs != null) {
-            for (PlotFlag<Integer, ?> flag : flags) {
-                final int i = capNumeral(flag.getName());
-                mobs[i]++;
-            }
-            plot.setMeta("EntityCount", mobs);
-            plot.setMeta("EntityCountTime", System.currentTimeMillis());
-        }
         return false;
     }
 
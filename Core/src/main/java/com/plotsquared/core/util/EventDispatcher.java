@@ -25,7 +25,6 @@
  */
 package com.plotsquared.core.util;
 
-import com.google.common.eventbus.EventBus;
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.configuration.CaptionUtility;
 import com.plotsquared.core.configuration.Captions;
@@ -74,38 +73,58 @@ import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 public class EventDispatcher {
 
-    private final EventBus eventBus = new EventBus("PlotSquaredEvents");
-
-    private final List<Object> listeners = new ArrayList<>();
+    // Returned instead of a new event when nobody subscribes to its type. Callers of these
+    // helpers only read the result, which stays unset without a listener to change it
+    private static final PlayerTeleportToPlotEvent NO_TELEPORT =
+        new PlayerTeleportToPlotEvent(null, null, null);
+    private static final PlotClearEvent NO_CLEAR = new PlotClearEvent(null);
+    private static final PlotDeleteEvent NO_DELETE = new PlotDeleteEvent(null);
+    private static final PlayerEnterPlotEvent NO_ENTRY = new PlayerEnterPlotEvent(null, null);
+    private static final PlayerLeavePlotEvent NO_LEAVE = new PlayerLeavePlotEvent(null, null);
+    private static final PlayerPlotDeniedEvent NO_DENIED =
+        new PlayerPlotDeniedEvent(null, null, null, false);
+    private static final PlayerPlotTrustedEvent NO_TRUSTED =
+        new PlayerPlotTrustedEvent(null, null, null, false);
+    private static final PlayerPlotHelperEvent NO_MEMBER =
+        new PlayerPlotHelperEvent(null, null, null, false);
+    private static final PlotDoneEvent NO_DONE = new PlotDoneEvent(null);
+
+    private final SubscriberRegistry subscribers = new SubscriberRegistry();
 
     public void registerListener(Object listener) {
-        eventBus.register(listener);
-        listeners.add(listener);
+        subscribers.register(listener);
     }
 
     public void unregisterListener(Object listener) {
-        eventBus.unregister(listener);
-        listeners.remove(listener);
+        subscribers.unregister(listener);
     }
 
     public void unregisterAll() {
-        for (Object listener : listeners) {
-            eventBus.unregister(listener);
-        }
+        subscribers.clear();
+    }
+
+    /**
+     * Check whether any registered listener would receive an event of the given type.
+     * Callers can use this to skip building expensive events that nobody listens to
+     *
+     * @param eventType Event class
+     * @return True if the event has at least one subscriber
+     */
+    public boolean hasListeners(@NotNull final Class<?> eventType) {
+        return subscribers.hasSubscribers(eventType);
     }
 
     public void callGenericEvent(@NotNull final Object event) {
-        eventBus.post(event);
+        subscribers.post(event);
     }
 
     public void callEvent(@NotNull final PlotEvent event) {
-        eventBus.post(event);
+        subscribers.post(event);
     }
 
     public PlayerClaimPlotEvent callClaim(PlotPlayer player, Plot plot, String schematic) {
@@ -123,6 +142,9 @@ public class EventDispatcher {
     }
 
     public PlayerTeleportToPlotEvent callTeleport(PlotPlayer player, Location from, Plot plot) {
+        if (!hasListeners(PlayerTeleportToPlotEvent.class)) {
+            return NO_TELEPORT;
+        }
         PlayerTeleportToPlotEvent event = new PlayerTeleportToPlotEvent(player, from, plot);
         callEvent(event);
         return event;
@@ -135,12 +157,18 @@ public class EventDispatcher {
     }
 
     public PlotClearEvent callClear(Plot plot) {
+        if (!hasListeners(PlotClearEvent.class)) {
+            return NO_CLEAR;
+        }
         PlotClearEvent event = new PlotClearEvent(plot);
         callEvent(event);
         return event;
     }
 
     public PlotDeleteEvent callDelete(Plot plot) {
+        if (!hasListeners(PlotDeleteEvent.class)) {
+            return NO_DELETE;
+        }
         PlotDeleteEvent event = new PlotDeleteEvent(plot);
         callEvent(event);
         return event;
@@ -178,12 +206,18 @@ public class EventDispatcher {
     }
 
     public PlayerEnterPlotEvent callEntry(PlotPlayer player, Plot plot) {
+        if (!hasListeners(PlayerEnterPlotEvent.class)) {
+            return NO_ENTRY;
+        }
         PlayerEnterPlotEvent event = new PlayerEnterPlotEvent(player, plot);
         callEvent(event);
         return event;
     }
 
     public PlayerLeavePlotEvent callLeave(PlotPlayer player, Plot plot) {
+        if (!hasListeners(PlayerLeavePlotEvent.class)) {
+            return NO_LEAVE;
+        }
         PlayerLeavePlotEvent event = new PlayerLeavePlotEvent(player, plot);
         callEvent(event);
         return event;
@@ -191,6 +225,9 @@ public class EventDispatcher {
 
     public PlayerPlotDeniedEvent callDenied(PlotPlayer initiator, Plot plot, UUID player,
         boolean added) {
+        if (!hasListeners(PlayerPlotDeniedEvent.class)) {
+            return NO_DENIED;
+        }
         PlayerPlotDeniedEvent event = new PlayerPlotDeniedEvent(initiator, plot, player, added);
         callEvent(event);
         return event;
@@ -198,6 +235,9 @@ public class EventDispatcher {
 
     public PlayerPlotTrustedEvent callTrusted(PlotPlayer initiator, Plot plot, UUID player,
         boolean added) {
+        if (!hasListeners(PlayerPlotTrustedEvent.class)) {
+            return NO_TRUSTED;
+        }
         PlayerPlotTrustedEvent event = new PlayerPlotTrustedEvent(initiator, plot, player, added);
         callEvent(event);
         return event;
@@ -205,6 +245,9 @@ public class EventDispatcher {
 
     public PlayerPlotHelperEvent callMember(PlotPlayer initiator, Plot plot, UUID player,
         boolean added) {
+        if (!hasListeners(PlayerPlotHelperEvent.class)) {
+            return NO_MEMBER;
+        }
         PlayerPlotHelperEvent event = new PlayerPlotHelperEvent(initiator, plot, player, added);
         callEvent(event);
         return event;
@@ -220,11 +263,14 @@ public class EventDispatcher {
 
     public PlotRateEvent callRating(PlotPlayer player, Plot plot, Rating rating) {
         PlotRateEvent event = new PlotRateEvent(player, rating, plot);
-        eventBus.post(event);
+        callEvent(event);
         return event;
     }
 
     public PlotDoneEvent callDone(Plot plot) {
+        if (!hasListeners(PlotDoneEvent.class)) {
+            return NO_DONE;
+        }
         PlotDoneEvent event = new PlotDoneEvent(plot);
         callEvent(event);
         return event;
@@ -41,6 +41,7 @@ import com.plotsquared.core.plot.PlotArea;
 import com.plotsquared.core.plot.PlotAreaTerrainType;
 import com.plotsquared.core.plot.PlotAreaType;
 import com.plotsquared.core.plot.PlotId;
+import com.plotsquared.core.plot.PlotIndex;
 import com.plotsquared.core.plot.expiration.ExpireManager;
 import com.plotsquared.core.plot.flag.PlotFlag;
 import com.plotsquared.core.plot.flag.implementations.DescriptionFlag;
@@ -70,10 +71,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -83,14 +87,15 @@ import java.util.Optional;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * plot functions
@@ -463,69 +468,119 @@ public class MainUtil {
 
     /**
      * Fuzzy plot search with spaces separating terms.
-     * - Terms: type, alias, world, owner, trusted, member
+     * - Terms: plot id, alias (words), owner, trusted, member
+     * <p>
+     * Player names that cannot be resolved within the blocking timeout are
+     * ignored. Use {@link #getPlotsBySearch(String, Consumer)} to resolve
+     * them asynchronously instead.
      *
-     * @param search
-     * @return
+     * @param search Search query
+     * @return Matching plots, most relevant first
      */
     public static List<Plot> getPlotsBySearch(String search) {
-        String[] split = search.split(" ");
-        int size = split.length * 2;
-
-        List<UUID> uuids = new ArrayList<>();
-        PlotId id = null;
-
-        for (String term : split) {
+        String[] terms = getSearchTerms(search);
+        Map<String, UUID> uuids = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<UUID>> entry : resolveSearchTerms(terms,
+            Settings.UUID.BLOCKING_TIMEOUT).entrySet()) {
             try {
-                UUID uuid = PlotSquared.get().getImpromptuUUIDPipeline().getSingle(term, Settings.UUID.BLOCKING_TIMEOUT);
-                if (uuid == null) {
-                    uuid = UUID.fromString(term);
+                UUID uuid = entry.getValue().get();
+                if (uuid != null) {
+                    uuids.put(entry.getKey(), uuid);
                 }
-                uuids.add(uuid);
-            } catch (Exception ignored) {
-                id = PlotId.fromString(term);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ignored) {
             }
         }
+        return getPlotsBySearch(terms, uuids);
+    }
 
-        ArrayList<ArrayList<Plot>> plotList =
-            IntStream.range(0, size).mapToObj(i -> new ArrayList<Plot>())
-                .collect(Collectors.toCollection(() -> new ArrayList<>(size)));
-
-        PlotArea area = null;
-        String alias = null;
-        for (Plot plot : PlotSquared.get().getPlots()) {
-            int count = 0;
-            if (!uuids.isEmpty()) {
-                for (UUID uuid : uuids) {
-                    if (plot.isOwner(uuid)) {
-                        count += 2;
-                    } else if (plot.isAdded(uuid)) {
-                        count++;
+    /**
+     * Fuzzy plot search with spaces separating terms, see {@link #getPlotsBySearch(String)}.
+     * Player names are resolved asynchronously, and the consumer may be
+     * called from another thread.
+     *
+     * @param search   Search query
+     * @param consumer Consumer that accepts the matching plots, most relevant first
+     */
+    public static void getPlotsBySearch(String search, Consumer<List<Plot>> consumer) {
+        String[] terms = getSearchTerms(search);
+        Map<String, CompletableFuture<UUID>> futures =
+            resolveSearchTerms(terms, Settings.UUID.NON_BLOCKING_TIMEOUT);
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+            .whenComplete((ignored, throwable) -> {
+                Map<String, UUID> uuids = new HashMap<>();
+                futures.forEach((term, future) -> {
+                    if (future.isCompletedExceptionally()) {
+                        return;
                     }
-                }
-            }
-            if (id != null) {
-                if (plot.getId().equals(id)) {
-                    count++;
-                }
-            }
-            if (area != null && plot.getArea().equals(area)) {
-                count++;
-            }
-            if (alias != null && alias.equals(plot.getAlias())) {
-                count += 2;
+                    UUID uuid = future.getNow(null);
+                    if (uuid != null) {
+                        uuids.put(term, uuid);
+                    }
+                });
+                consumer.accept(getPlotsBySearch(terms, uuids));
+            });
+    }
+
+    private static String[] getSearchTerms(String search) {
+        return Arrays.stream(search.split(" ")).filter(term -> !term.isEmpty()).toArray(String[]::new);
+    }
+
+    private static Map<String, CompletableFuture<UUID>> resolveSearchTerms(String[] terms,
+        long timeout) {
+        Map<String, CompletableFuture<UUID>> futures = new HashMap<>();
+        for (String term : terms) {
+            if (futures.containsKey(term) || PlotId.fromStringOrNull(term) != null) {
+                continue;
             }
-            if (count != 0) {
-                plotList.get(count - 1).add(plot);
+            try {
+                futures.put(term, CompletableFuture.completedFuture(UUID.fromString(term)));
+                continue;
+            } catch (IllegalArgumentException ignored) {
             }
+            // Names are requested separately, as one unknown name fails the entire batch
+            futures.put(term, PlotSquared.get().getImpromptuUUIDPipeline()
+                .getUUIDs(Collections.singletonList(term), timeout)
+                .thenApply(mappings -> mappings.isEmpty() ? null : mappings.get(0).getUuid()));
         }
+        return futures;
+    }
 
-        List<Plot> plots = new ArrayList<>();
-        for (int i = plotList.size() - 1; i >= 0; i--) {
-            if (!plotList.get(i).isEmpty()) {
-                plots.addAll(plotList.get(i));
+    private static List<Plot> getPlotsBySearch(String[] terms, Map<String, UUID> uuids) {
+        Map<Plot, Integer> scores = new LinkedHashMap<>();
+        for (PlotArea area : PlotSquared.get().getPlotAreas()) {
+            PlotIndex index = area.getPlotIndex();
+            for (String term : terms) {
+                UUID uuid = uuids.get(term);
+                if (uuid != null) {
+                    for (Plot plot : index.getAddedCandidates(uuid)) {
+                        if (plot.isOwner(uuid)) {
+                            scores.merge(plot, 2, Integer::sum);
+                        } else if (plot.isAdded(uuid)) {
+                            scores.merge(plot, 1, Integer::sum);
+                        }
+                    }
+                } else {
+                    PlotId id = PlotId.fromStringOrNull(term);
+                    Plot plot = id == null ? null : area.getOwnedPlotAbs(id);
+                    if (plot != null) {
+                        scores.merge(plot, 1, Integer::sum);
+                    }
+                }
+                Set<Plot> aliased = new HashSet<>();
+                for (String token : PlotIndex.tokenizeAlias(term)) {
+                    aliased.addAll(index.getWithAliasToken(token));
+                }
+                for (Plot plot : aliased) {
+                    // Exact alias matches rank above plots that merely share a word
+                    scores.merge(plot, term.equalsIgnoreCase(plot.getAlias()) ? 2 : 1, Integer::sum);
+                }
             }
         }
+        List<Plot> plots = new ArrayList<>(scores.keySet());
+        plots.sort(Comparator.comparingInt(plot -> -scores.get(plot)));
         return plots;
     }
 
@@ -0,0 +1,169 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util;
+
+import com.plotsquared.core.configuration.Settings;
+import com.plotsquared.core.player.PlotPlayer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-player cache of permission checks. Caption nodes are indexed by
+ * {@link PermissionNode} id, other nodes by permission, up to
+ * {@link #MAX_DYNAMIC} entries. Cached results expire after
+ * {@link Settings.Permission_Cache#CACHE_EXPIRATION} seconds, and are dropped
+ * when the player changes world, runs a command, or when all caches are
+ * invalidated (e.g. on reload)
+ */
+public final class PermissionCache {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte DENIED = 1;
+    private static final byte GRANTED = 2;
+    /**
+     * Upper bound on the number of cached results for permissions that are
+     * not captions. The results are dropped once it is reached
+     */
+    private static final int MAX_DYNAMIC = 256;
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+
+    private final byte[] states = new byte[PermissionNode.getIdCount()];
+    private final Map<String, Boolean> dynamic = new HashMap<>();
+    private final Map<String, int[]> ranges = new HashMap<>();
+    private long expiry;
+    private int epoch;
+    /**
+     * Incremented whenever the results are dropped, so that checks which
+     * started before are not stored afterwards
+     */
+    private int generation;
+
+    /**
+     * Invalidate the caches of all players
+     */
+    public static void invalidateAll() {
+        EPOCH.incrementAndGet();
+    }
+
+    /**
+     * Check if a player has a permission, using the cached result if present
+     *
+     * @param player Player to check
+     * @param node   Compiled permission node
+     * @return True if the player has the permission
+     */
+    public boolean hasPermission(@NotNull final PlotPlayer<?> player,
+        @NotNull final PermissionNode node) {
+        final int id = node.getId();
+        final int generation;
+        synchronized (this) {
+            expire();
+            if (id >= 0) {
+                if (this.states[id] != UNKNOWN) {
+                    return this.states[id] == GRANTED;
+                }
+            } else {
+                final Boolean cached = this.dynamic.get(node.getNode());
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            generation = this.generation;
+        }
+        final boolean result = node.test(player);
+        synchronized (this) {
+            if (!this.isCurrent(generation)) {
+                return result;
+            }
+            if (id >= 0) {
+                this.states[id] = result ? GRANTED : DENIED;
+            } else {
+                if (this.dynamic.size() >= MAX_DYNAMIC) {
+                    this.dynamic.clear();
+                }
+                this.dynamic.put(node.getNode(), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the highest numeric permission a player has for a stub, using
+     * the cached result if present
+     *
+     * @param player Player to check
+     * @param stub   Permission stub, e.g. {@code plots.plot}
+     * @param range  Highest value to check
+     * @return Highest numeric permission, see {@link PlotPlayer#hasPermissionRange(String, int)}
+     */
+    public int hasPermissionRange(@NotNull final PlotPlayer<?> player, @NotNull final String stub,
+        final int range) {
+        final int generation;
+        synchronized (this) {
+            expire();
+            final int[] cached = this.ranges.get(stub);
+            if (cached != null && cached[0] == range) {
+                return cached[1];
+            }
+            generation = this.generation;
+        }
+        final int result = player.hasPermissionRange(stub, range);
+        synchronized (this) {
+            if (this.isCurrent(generation)) {
+                this.ranges.put(stub, new int[] {range, result});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop all cached results
+     */
+    public synchronized void invalidate() {
+        Arrays.fill(this.states, UNKNOWN);
+        this.dynamic.clear();
+        this.ranges.clear();
+        this.generation++;
+        this.expiry = System.currentTimeMillis()
+            + Settings.Permission_Cache.CACHE_EXPIRATION * 1000L;
+        this.epoch = EPOCH.get();
+    }
+
+    private boolean isCurrent(final int generation) {
+        return this.generation == generation && this.epoch == EPOCH.get();
+    }
+
+    private void expire() {
+        if (this.epoch != EPOCH.get() || System.currentTimeMillis() >= this.expiry) {
+            invalidate();
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.plotsquared.core.command.CommandCaller;
+import com.plotsquared.core.configuration.Captions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A permission node with its wildcard parents resolved ahead of time.
+ * <p>
+ * Every {@link Captions} constant has one node, whose id is the ordinal
+ * of the caption. The id can be used to index per-player caches, see
+ * {@link PermissionCache}. Other permissions may contain user input (flag
+ * values, numbers), so their nodes have no id and are only kept in a
+ * bounded cache. All nodes are recompiled after {@link #reload()}, as they
+ * depend on the translated captions
+ */
+public final class PermissionNode {
+
+    /**
+     * Upper bound on the number of cached nodes for permissions that are not
+     * captions. The least recently used node is dropped once it is reached
+     */
+    static final int MAX_DYNAMIC = 1024;
+
+    private static final int CAPTIONS = Captions.values().length;
+
+    private static volatile PermissionNode[] captionNodes = new PermissionNode[CAPTIONS];
+    private static volatile Cache<String, PermissionNode> dynamicNodes = createDynamicNodes();
+
+    private final int id;
+    private final String node;
+    private final String[] wildcards;
+
+    private PermissionNode(final int id, @NotNull final String node) {
+        this.id = id;
+        this.node = node;
+        final String normalized = node.toLowerCase().replaceAll("^[^a-z|0-9|\\.|_|-]", "");
+        final String star = Captions.PERMISSION_STAR.getTranslated();
+        final List<String> wildcards = new ArrayList<>();
+        final StringBuilder builder = new StringBuilder();
+        for (final String part : normalized.split("\\.")) {
+            builder.append(part).append('.');
+            final String combined = builder + star;
+            if (!normalized.equals(combined)) {
+                wildcards.add(combined);
+            }
+        }
+        this.wildcards = wildcards.toArray(new String[0]);
+    }
+
+    @NotNull private static Cache<String, PermissionNode> createDynamicNodes() {
+        return CacheBuilder.newBuilder().maximumSize(MAX_DYNAMIC).build();
+    }
+
+    /**
+     * Get the compiled node for a permission
+     *
+     * @param permission Permission node
+     * @return Compiled node
+     */
+    @NotNull public static PermissionNode of(@NotNull final String permission) {
+        final Cache<String, PermissionNode> nodes = dynamicNodes;
+        PermissionNode node = nodes.getIfPresent(permission);
+        if (node == null) {
+            node = new PermissionNode(-1, permission);
+            nodes.put(permission, node);
+        }
+        return node;
+    }
+
+    /**
+     * Get the compiled node for a permission caption
+     *
+     * @param caption Permission caption
+     * @return Compiled node
+     */
+    @NotNull public static PermissionNode of(@NotNull final Captions caption) {
+        final PermissionNode[] nodes = captionNodes;
+        PermissionNode node = nodes[caption.ordinal()];
+        if (node == null) {
+            // Concurrent callers compile equal nodes, so either one may win
+            node = new PermissionNode(caption.ordinal(), caption.getTranslated());
+            nodes[caption.ordinal()] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Discard all compiled nodes. This must be called after the captions
+     * have been reloaded
+     */
+    public static void reload() {
+        captionNodes = new PermissionNode[CAPTIONS];
+        dynamicNodes = createDynamicNodes();
+    }
+
+    /**
+     * Get the number of node ids
+     *
+     * @return Upper bound (exclusive) of the node ids
+     */
+    static int getIdCount() {
+        return CAPTIONS;
+    }
+
+    /**
+     * Get the id of the node, or -1 if the node is not compiled from a caption
+     *
+     * @return Node id
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the permission this node was compiled from
+     *
+     * @return Permission node
+     */
+    @NotNull public String getNode() {
+        return this.node;
+    }
+
+    /**
+     * Check if a caller has this permission, taking plots.admin and
+     * wildcard parents into account
+     *
+     * @param caller Caller to check
+     * @return True if the caller has the permission
+     */
+    public boolean test(@NotNull final CommandCaller caller) {
+        if (caller.hasPermission(this.node)) {
+            return true;
+        } else if (caller.isPermissionSet(this.node)) {
+            return false;
+        }
+        if (caller.hasPermission(Captions.PERMISSION_ADMIN.getTranslated())) {
+            return true;
+        }
+        for (final String wildcard : this.wildcards) {
+            if (caller.hasPermission(wildcard)) {
+                return true;
+            } else if (caller.isPermissionSet(wildcard)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override public String toString() {
+        return this.node;
+    }
+
+}
@@ -30,8 +30,6 @@ import com.plotsquared.core.configuration.Captions;
 import com.plotsquared.core.configuration.Settings;
 import com.plotsquared.core.player.PlotPlayer;
 
-import java.util.HashMap;
-
 /**
  * The Permissions class handles checking user permissions.<br>
  * - This will respect * nodes and plots.admin and can be used to check permission ranges (e.g. plots.plot.5)<br>
@@ -51,7 +49,7 @@ public class Permissions {
      * @return
      */
     public static boolean hasPermission(PlotPlayer player, Captions caption) {
-        return hasPermission(player, caption.getTranslated());
+        return hasPermission(player, PermissionNode.of(caption));
     }
 
     /**
@@ -62,22 +60,21 @@ public class Permissions {
      * @return
      */
     public static boolean hasPermission(PlotPlayer<?> player, String permission) {
+        return hasPermission(player, PermissionNode.of(permission));
+    }
+
+    /**
+     * Check if a {@link PlotPlayer} has a compiled permission node.
+     *
+     * @param player
+     * @param node
+     * @return
+     */
+    public static boolean hasPermission(PlotPlayer<?> player, PermissionNode node) {
         if (!Settings.Enabled_Components.PERMISSION_CACHE) {
-            return hasPermission((CommandCaller) player, permission);
+            return node.test(player);
         }
-        HashMap<String, Boolean> map = player.getMeta("perm");
-        if (map != null) {
-            Boolean result = map.get(permission);
-            if (result != null) {
-                return result;
-            }
-        } else {
-            map = new HashMap<>();
-            player.setMeta("perm", map);
-        }
-        boolean result = hasPermission((CommandCaller) player, permission);
-        map.put(permission, result);
-        return result;
+        return player.getPermissionCache().hasPermission(player, node);
     }
 
     /**
@@ -88,29 +85,7 @@ public class Permissions {
      * @return
      */
     public static boolean hasPermission(CommandCaller caller, String permission) {
-        if (caller.hasPermission(permission)) {
-            return true;
-        } else if (caller.isPermissionSet(permission)) {
-            return false;
-        }
-        if (caller.hasPermission(Captions.PERMISSION_ADMIN.getTranslated())) {
-            return true;
-        }
-        permission = permission.toLowerCase().replaceAll("^[^a-z|0-9|\\.|_|-]", "");
-        String[] nodes = permission.split("\\.");
-        StringBuilder n = new StringBuilder();
-        for (int i = 0; i <= (nodes.length - 1); i++) {
-            n.append(nodes[i] + ".");
-            String combined = n + Captions.PERMISSION_STAR.getTranslated();
-            if (!permission.equals(combined)) {
-                if (caller.hasPermission(combined)) {
-                    return true;
-                } else if (caller.isPermissionSet(combined)) {
-                    return false;
-                }
-            }
-        }
-        return false;
+        return PermissionNode.of(permission).test(caller);
     }
 
     /**
@@ -145,7 +120,10 @@ public class Permissions {
      * @param range  The range to check
      * @return The highest permission they have within that range
      */
-    public static int hasPermissionRange(PlotPlayer player, String stub, int range) {
-        return player.hasPermissionRange(stub, range);
+    public static int hasPermissionRange(PlotPlayer<?> player, String stub, int range) {
+        if (!Settings.Enabled_Components.PERMISSION_CACHE) {
+            return player.hasPermissionRange(stub, range);
+        }
+        return player.getPermissionCache().hasPermissionRange(player, stub, range);
     }
 }
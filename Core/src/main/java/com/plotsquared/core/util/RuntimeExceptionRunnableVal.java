@@ -30,7 +30,11 @@ import lombok.RequiredArgsConstructor;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
-@RequiredArgsConstructor
+/**
+ * @deprecated No longer used by {@link com.plotsquared.core.util.task.TaskManager#sync(RunnableVal)},
+ * which now waits on a future. Kept for API compatibility and will be removed
+ */
+@Deprecated @RequiredArgsConstructor
 public class RuntimeExceptionRunnableVal<T> extends RunnableVal<RuntimeException> {
 
     private final RunnableVal<T> function;
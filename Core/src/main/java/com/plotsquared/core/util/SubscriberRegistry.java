@@ -0,0 +1,306 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.plotsquared.core.PlotSquared;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Registry of the {@link Subscribe} methods of event listeners, replacing
+ * the reflective dispatch of Guava's EventBus. Subscribers are resolved once
+ * per concrete event class, so posting an event that nobody listens to costs
+ * a single map lookup, and subscribers are called through generated invokers
+ * instead of {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Like the EventBus, listeners receive events of subtypes of their parameter
+ * type, invocations are serialized per subscriber unless the method is
+ * annotated with {@link AllowConcurrentEvents}, and exceptions thrown by
+ * subscribers are logged rather than propagated. Registering a listener
+ * that is already registered has no effect, as subscribers are identified by
+ * their listener instance and method.
+ */
+final class SubscriberRegistry {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Subscriber[] NONE = new Subscriber[0];
+
+    private final Map<Class<?>, Set<Subscriber>> subscribers = new HashMap<>();
+    private final Map<Class<?>, Subscriber[]> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Register all {@link Subscribe} methods of a listener
+     *
+     * @param listener Listener
+     */
+    synchronized void register(@NotNull final Object listener) {
+        for (final Method method : findSubscriberMethods(listener.getClass())) {
+            this.subscribers
+                .computeIfAbsent(method.getParameterTypes()[0], type -> new LinkedHashSet<>())
+                .add(new Subscriber(listener, method));
+        }
+        this.resolved.clear();
+    }
+
+    /**
+     * Unregister all {@link Subscribe} methods of a listener
+     *
+     * @param listener Listener
+     * @throws IllegalArgumentException if the listener wasn't registered
+     */
+    synchronized void unregister(@NotNull final Object listener) {
+        for (final Method method : findSubscriberMethods(listener.getClass())) {
+            final Set<Subscriber> registered =
+                this.subscribers.get(method.getParameterTypes()[0]);
+            if (registered == null || !registered.removeIf(
+                subscriber -> subscriber.listener == listener && subscriber.method
+                    .equals(method))) {
+                throw new IllegalArgumentException(
+                    "missing event subscriber for an annotated method. Is " + listener
+                        + " registered?");
+            }
+            if (registered.isEmpty()) {
+                this.subscribers.remove(method.getParameterTypes()[0]);
+            }
+        }
+        this.resolved.clear();
+    }
+
+    /**
+     * Unregister every listener
+     */
+    synchronized void clear() {
+        this.subscribers.clear();
+        this.resolved.clear();
+    }
+
+    /**
+     * Check whether an event of the given type would reach any subscriber
+     *
+     * @param eventType Event class
+     * @return True if at least one subscriber accepts the event type
+     */
+    boolean hasSubscribers(@NotNull final Class<?> eventType) {
+        return getSubscribers(eventType).length != 0;
+    }
+
+    /**
+     * Post an event to all subscribers of its type and its supertypes
+     *
+     * @param event Event
+     */
+    void post(@NotNull final Object event) {
+        for (final Subscriber subscriber : getSubscribers(event.getClass())) {
+            subscriber.dispatch(event);
+        }
+    }
+
+    @NotNull private Subscriber[] getSubscribers(@NotNull final Class<?> eventType) {
+        final Subscriber[] cached = this.resolved.get(eventType);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (this) {
+            return this.resolved.computeIfAbsent(eventType, this::resolve);
+        }
+    }
+
+    @NotNull private Subscriber[] resolve(@NotNull final Class<?> eventType) {
+        if (this.subscribers.isEmpty()) {
+            return NONE;
+        }
+        final List<Subscriber> result = new ArrayList<>();
+        for (final Class<?> type : flattenHierarchy(eventType)) {
+            final Set<Subscriber> registered = this.subscribers.get(type);
+            if (registered != null) {
+                result.addAll(registered);
+            }
+        }
+        return result.isEmpty() ? NONE : result.toArray(NONE);
+    }
+
+    @NotNull private static Set<Class<?>> flattenHierarchy(@NotNull final Class<?> type) {
+        final Set<Class<?>> types = new LinkedHashSet<>();
+        final Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            final Class<?> current = queue.poll();
+            if (types.add(current)) {
+                if (current.getSuperclass() != null) {
+                    queue.add(current.getSuperclass());
+                }
+                queue.addAll(Arrays.asList(current.getInterfaces()));
+            }
+        }
+        return types;
+    }
+
+    @NotNull private static List<Method> findSubscriberMethods(@NotNull final Class<?> clazz) {
+        final List<Method> methods = new ArrayList<>();
+        final Set<String> signatures = new HashSet<>();
+        for (final Class<?> type : flattenHierarchy(clazz)) {
+            for (final Method method : type.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isSynthetic()) {
+                    continue;
+                }
+                if (method.getParameterCount() != 1) {
+                    throw new IllegalArgumentException(
+                        "Method " + method + " has @Subscribe annotation but has " + method
+                            .getParameterCount()
+                            + " parameters. Subscriber methods must have exactly 1 parameter.");
+                }
+                // Overridden methods are only registered once, as the most specific override
+                if (signatures
+                    .add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+
+
+    private interface Invoker {
+
+        void invoke(Object event) throws Throwable;
+
+    }
+
+
+    private static final class Subscriber {
+
+        private final Object listener;
+        private final Method method;
+        private final boolean concurrent;
+        private final Invoker invoker;
+
+        private Subscriber(@NotNull final Object listener, @NotNull final Method method) {
+            this.listener = listener;
+            this.method = method;
+            this.concurrent = method.isAnnotationPresent(AllowConcurrentEvents.class);
+            this.invoker = createInvoker(listener, method);
+        }
+
+        /**
+         * Listeners loaded by PlotSquared itself get an invoker generated by the
+         * {@link LambdaMetafactory}, which the JIT can inline like a direct call.
+         * The generated class is defined next to this class, so listeners from
+         * other class loaders use a bound method handle instead
+         */
+        @NotNull private static Invoker createInvoker(@NotNull final Object listener,
+            @NotNull final Method method) {
+            final MethodHandle handle;
+            try {
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+            } catch (final IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access subscriber " + method, e);
+            }
+            final Class<?> declaringClass = method.getDeclaringClass();
+            if (!Modifier.isStatic(method.getModifiers()) && Modifier
+                .isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers())
+                && declaringClass.getClassLoader() == SubscriberRegistry.class.getClassLoader()) {
+                try {
+                    final CallSite site = LambdaMetafactory
+                        .metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class), handle,
+                            MethodType.methodType(void.class, declaringClass,
+                                method.getParameterTypes()[0]));
+                    @SuppressWarnings("unchecked") final BiConsumer<Object, Object> consumer =
+                        (BiConsumer<Object, Object>) site.getTarget().invoke();
+                    return event -> consumer.accept(listener, event);
+                } catch (final Throwable ignored) {
+                    // Fall back to the method handle
+                }
+            }
+            final MethodHandle bound = (Modifier.isStatic(method.getModifiers()) ?
+                handle :
+                handle.bindTo(listener)).asType(MethodType.methodType(void.class, Object.class));
+            return event -> {
+                bound.invokeExact(event);
+            };
+        }
+
+        /**
+         * Subscribers are equal if they call the same method on the same listener
+         * instance, regardless of whether the listeners themselves are equal
+         */
+        @Override public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Subscriber)) {
+                return false;
+            }
+            final Subscriber other = (Subscriber) obj;
+            return this.listener == other.listener && this.method.equals(other.method);
+        }
+
+        @Override public int hashCode() {
+            return 31 * System.identityHashCode(this.listener) + this.method.hashCode();
+        }
+
+        private void dispatch(@NotNull final Object event) {
+            try {
+                if (this.concurrent) {
+                    this.invoker.invoke(event);
+                } else {
+                    synchronized (this) {
+                        this.invoker.invoke(event);
+                    }
+                }
+            } catch (final Throwable throwable) {
+                PlotSquared.log(
+                    "&cException thrown by subscriber method " + this.method + " on " + this.listener
+                        + " when dispatching " + event);
+                throwable.printStackTrace();
+            }
+        }
+
+    }
+
+}
@@ -222,4 +222,6 @@ public abstract class WorldUtil {
 
     public abstract int getTileEntityCount(String world, BlockVector2 chunk);
 
+    public abstract boolean isChunkLoaded(String world, int chunkX, int chunkZ);
+
 }
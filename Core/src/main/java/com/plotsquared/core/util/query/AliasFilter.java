@@ -26,9 +26,12 @@
 package com.plotsquared.core.util.query;
 
 import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotIndex;
 import org.jetbrains.annotations.NotNull;
 
-class AliasFilter implements PlotFilter {
+import java.util.Collection;
+
+class AliasFilter implements IndexedPlotFilter {
 
     private final String alias;
 
@@ -40,4 +43,13 @@ class AliasFilter implements PlotFilter {
         return this.alias.equalsIgnoreCase(plot.getAlias());
     }
 
+    @Override public boolean isIndexable() {
+        // Plots without an alias aren't indexed
+        return !this.alias.isEmpty();
+    }
+
+    @Override @NotNull public Collection<Plot> getCandidates(@NotNull final PlotIndex index) {
+        return index.getWithAlias(this.alias);
+    }
+
 }
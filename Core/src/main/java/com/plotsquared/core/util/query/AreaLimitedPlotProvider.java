@@ -27,12 +27,13 @@ package com.plotsquared.core.util.query;
 
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
-class AreaLimitedPlotProvider implements PlotProvider {
+class AreaLimitedPlotProvider implements AreaPlotProvider {
 
     private final Collection<PlotArea> areas;
 
@@ -41,11 +42,19 @@ class AreaLimitedPlotProvider implements PlotProvider {
     }
 
     @Override public Collection<Plot> getPlots() {
-        final List<Plot> plots = new LinkedList<>();
+        int size = 0;
+        for (final PlotArea area : areas) {
+            size += area.getPlotCount();
+        }
+        final List<Plot> plots = new ArrayList<>(size);
         for (final PlotArea area : areas) {
             plots.addAll(area.getPlots());
         }
         return plots;
     }
 
+    @Override @NotNull public Collection<PlotArea> getAreas() {
+        return this.areas;
+    }
+
 }
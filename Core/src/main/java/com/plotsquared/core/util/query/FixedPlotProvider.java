@@ -33,14 +33,18 @@ import java.util.Collections;
 
 class FixedPlotProvider implements PlotProvider {
 
-    private final Plot plot;
+    private final Collection<Plot> plots;
 
     FixedPlotProvider(@NotNull final Plot plot) {
-        this.plot = plot;
+        this(Collections.singleton(plot));
+    }
+
+    FixedPlotProvider(@NotNull final Collection<Plot> plots) {
+        this.plots = plots;
     }
 
     @Override public Collection<Plot> getPlots() {
-        return Collections.singleton(plot);
+        return this.plots;
     }
 
 }
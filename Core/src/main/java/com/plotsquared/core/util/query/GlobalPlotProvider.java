@@ -27,13 +27,27 @@ package com.plotsquared.core.util.query;
 
 import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotArea;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
-class GlobalPlotProvider implements PlotProvider {
+class GlobalPlotProvider implements AreaPlotProvider {
 
     @Override public Collection<Plot> getPlots() {
-        return PlotSquared.get().getPlots();
+        final PlotArea[] areas = PlotSquared.get().getPlotAreaManager().getAllPlotAreas();
+        final List<Plot> plots = new ArrayList<>(PlotSquared.get().getPlotCount());
+        for (final PlotArea area : areas) {
+            plots.addAll(area.getPlots());
+        }
+        return plots;
+    }
+
+    @Override @NotNull public Collection<PlotArea> getAreas() {
+        return Arrays.asList(PlotSquared.get().getPlotAreaManager().getAllPlotAreas());
     }
 
 }
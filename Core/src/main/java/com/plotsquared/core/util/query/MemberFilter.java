@@ -26,11 +26,13 @@
 package com.plotsquared.core.util.query;
 
 import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotIndex;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
 import java.util.UUID;
 
-class MemberFilter implements PlotFilter {
+class MemberFilter implements IndexedPlotFilter {
 
     @NotNull private final UUID uuid;
 
@@ -42,4 +44,8 @@ class MemberFilter implements PlotFilter {
         return plot.isAdded(uuid);
     }
 
+    @Override @NotNull public Collection<Plot> getCandidates(@NotNull final PlotIndex index) {
+        return index.getAddedCandidates(this.uuid);
+    }
+
 }
@@ -27,21 +27,35 @@ package com.plotsquared.core.util.query;
 
 import com.google.common.base.Preconditions;
 import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.PlotIndex;
+import com.plotsquared.core.plot.PlotSettings;
+import com.plotsquared.core.plot.flag.FlagContainer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Paginated collection of plots as a result of a {@link PlotQuery query}
+ * Paginated collection of plots as a result of a {@link PlotQuery query}.
+ * <p>
+ * Pages are sorted lazily: requesting a page only orders the plots up to
+ * the end of that page, and the ordered plots are kept for subsequent
+ * requests. The query is evaluated again once the plot set, any flag or
+ * any rating has changed. Results sorted by a custom comparator are never
+ * cached, as the comparator may depend on any plot data.
  */
 public final class PaginatedPlotResult {
 
-    private final List<Plot> plots;
+    private final PlotQuery query;
     private final int pageSize;
+    private long modificationCount = -1;
+    private long flagModificationCount = -1;
+    private long ratingModificationCount = -1;
+    private List<Plot> plots = Collections.emptyList();
+    private PlotRanking ranking;
 
-    PaginatedPlotResult(@NotNull final List<Plot> plots, final int pageSize) {
-        this.plots = plots;
+    PaginatedPlotResult(@NotNull final PlotQuery query, final int pageSize) {
+        this.query = query.copy();
         this.pageSize = pageSize;
     }
 
@@ -51,14 +65,17 @@ public final class PaginatedPlotResult {
      * @param page Positive page number. Indexed from 1
      * @return Plots that belong to the specified page
      */
-    public List<Plot> getPage(final int page) {
-        Preconditions.checkState(page >= 0, "Page must be positive");
-        final int from = (page - 1) * this.pageSize;
-        if (this.plots.size() < from) {
+    public synchronized List<Plot> getPage(final int page) {
+        Preconditions.checkState(page > 0, "Page must be positive");
+        this.refresh();
+        final int size = this.plots.size();
+        final long from = (long) (page - 1) * this.pageSize;
+        if (from >= size) {
             return Collections.emptyList();
         }
-        final int to = Math.max(from + pageSize, this.plots.size());
-        return this.plots.subList(from, to);
+        final int to = (int) Math.min(from + this.pageSize, size);
+        final List<Plot> sorted = this.ranking == null ? this.plots : this.ranking.getTop(to);
+        return sorted.subList((int) from, to);
     }
 
     /**
@@ -66,8 +83,27 @@ public final class PaginatedPlotResult {
      *
      * @return Available pages
      */
-    public int getPages() {
-        return (int) Math.ceil((double) plots.size() / (double) pageSize);
+    public synchronized int getPages() {
+        this.refresh();
+        return (int) Math.ceil((double) this.plots.size() / (double) this.pageSize);
+    }
+
+    private void refresh() {
+        final long modificationCount = PlotIndex.getModificationCount();
+        final long flagModificationCount = FlagContainer.getModificationCount();
+        final long ratingModificationCount = PlotSettings.getRatingModificationCount();
+        if (modificationCount == this.modificationCount
+            && flagModificationCount == this.flagModificationCount
+            && ratingModificationCount == this.ratingModificationCount
+            && this.query.getSortingStrategy() != SortingStrategy.COMPARATOR) {
+            return;
+        }
+        this.modificationCount = modificationCount;
+        this.flagModificationCount = flagModificationCount;
+        this.ratingModificationCount = ratingModificationCount;
+        final List<Plot> matches = this.query.collect();
+        this.ranking = this.query.rank(matches);
+        this.plots = this.ranking == null ? this.query.sort(matches) : matches;
     }
 
 }
@@ -30,16 +30,15 @@ import com.plotsquared.core.PlotSquared;
 import com.plotsquared.core.player.PlotPlayer;
 import com.plotsquared.core.plot.Plot;
 import com.plotsquared.core.plot.PlotArea;
-import com.plotsquared.core.plot.Rating;
-import com.plotsquared.core.plot.flag.implementations.DoneFlag;
-import com.plotsquared.core.util.MathMan;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -164,6 +163,18 @@ public final class PlotQuery {
         return this;
     }
 
+    /**
+     * Query with a pre-defined collection of plots
+     *
+     * @param plots Plots
+     * @return The query instance
+     */
+    @NotNull public PlotQuery withPlots(@NotNull final Collection<Plot> plots) {
+        Preconditions.checkNotNull(plots, "Plots may not be null");
+        this.plotProvider = new FixedPlotProvider(Collections.unmodifiableCollection(plots));
+        return this;
+    }
+
     /**
      * Query for base plots only
      *
@@ -282,68 +293,79 @@ public final class PlotQuery {
      * @return Matching plots as a mutable
      */
     @NotNull public List<Plot> asList() {
-        final List<Plot> result;
-        if (this.filters.isEmpty()) {
-            result = new ArrayList<>(this.plotProvider.getPlots());
-        } else {
-            final Collection<Plot> plots = this.plotProvider.getPlots();
-            result = new ArrayList<>(plots.size());
-            outer: for (final Plot plot : plots) {
-                for (final PlotFilter filter : this.filters) {
-                    if (!filter.accepts(plot)) {
-                        continue outer;
-                    }
-                }
-                result.add(plot);
-            }
-        }
+        return this.sort(this.collect());
+    }
+
+    /**
+     * Collect all matching plots, without sorting them
+     *
+     * @return Matching plots in encounter order
+     */
+    @NotNull List<Plot> collect() {
+        final List<Plot> result = new ArrayList<>();
+        this.forEachMatch(result::add);
+        return result;
+    }
+
+    /**
+     * Sort plots according to the sorting strategy of this query
+     *
+     * @param result Plots to sort
+     * @return Sorted plots as a mutable list
+     */
+    @NotNull List<Plot> sort(@NotNull final List<Plot> result) {
         if (this.sortingStrategy == SortingStrategy.NO_SORTING) {
             return result;
         } else if (this.sortingStrategy == SortingStrategy.SORT_BY_TEMP) {
             return PlotSquared.get().sortPlotsByTemp(result);
-        } else if (this.sortingStrategy == SortingStrategy.SORT_BY_DONE) {
-            result.sort((a, b) -> {
-                String va = a.getFlag(DoneFlag.class);
-                String vb = b.getFlag(DoneFlag.class);
-                if (MathMan.isInteger(va)) {
-                    if (MathMan.isInteger(vb)) {
-                        return Integer.parseInt(vb) - Integer.parseInt(va);
-                    }
-                    return -1;
-                }
-                return 1;
-            });
-        } else if (this.sortingStrategy == SortingStrategy.SORT_BY_RATING) {
-            result.sort((p1, p2) -> {
-                double v1 = 0;
-                int p1s = p1.getSettings().getRatings().size();
-                int p2s = p2.getRatings().size();
-                if (!p1.getSettings().getRatings().isEmpty()) {
-                    v1 = p1.getRatings().values().stream().mapToDouble(Rating::getAverageRating)
-                        .map(av -> av * av).sum();
-                    v1 /= p1s;
-                    v1 += p1s;
-                }
-                double v2 = 0;
-                if (!p2.getSettings().getRatings().isEmpty()) {
-                    for (Map.Entry<UUID, Rating> entry : p2.getRatings().entrySet()) {
-                        double av = entry.getValue().getAverageRating();
-                        v2 += av * av;
-                    }
-                    v2 /= p2s;
-                    v2 += p2s;
-                }
-                if (v2 == v1 && v2 != 0) {
-                    return p2s - p1s;
-                }
-                return (int) Math.signum(v2 - v1);
-            });
         } else if (this.sortingStrategy == SortingStrategy.SORT_BY_CREATION) {
             return PlotSquared.get().sortPlots(result, PlotSquared.SortType.CREATION_DATE, this.priorityArea);
-        } else if (this.sortingStrategy == SortingStrategy.COMPARATOR) {
-            result.sort(this.plotComparator);
         }
-        return result;
+        return new ArrayList<>(this.rank(result).getAll());
+    }
+
+    /**
+     * Create a lazy ranking of plots for the strategies that can be
+     * ranked by per plot sort keys
+     *
+     * @param result Plots to rank
+     * @return Ranking, or null if the strategy requires the entire list to be sorted at once
+     */
+    @Nullable PlotRanking rank(@NotNull final List<Plot> result) {
+        switch (this.sortingStrategy) {
+            case SORT_BY_DONE:
+                return PlotRanking.byDone(result);
+            case SORT_BY_RATING:
+                return PlotRanking.byRating(result);
+            case COMPARATOR:
+                return PlotRanking.byComparator(result, this.plotComparator);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Copy this query, so that later changes to it don't affect the copy
+     *
+     * @return Copy of the query
+     */
+    @NotNull PlotQuery copy() {
+        final PlotQuery copy = new PlotQuery();
+        copy.filters.addAll(this.filters);
+        copy.plotProvider = this.plotProvider;
+        copy.sortingStrategy = this.sortingStrategy;
+        copy.priorityArea = this.priorityArea;
+        copy.plotComparator = this.plotComparator;
+        return copy;
+    }
+
+    /**
+     * Get the sorting strategy of this query
+     *
+     * @return Sorting strategy
+     */
+    @NotNull SortingStrategy getSortingStrategy() {
+        return this.sortingStrategy;
     }
 
     /**
@@ -357,14 +379,17 @@ public final class PlotQuery {
 
     /**
      * Get all plots that match the given criteria
-     * in the form of a {@link PaginatedPlotResult}
+     * in the form of a {@link PaginatedPlotResult}. Pages
+     * are sorted on demand, and the result is refreshed when
+     * plots are claimed, removed or modified. Later changes to
+     * this query do not affect the result
      *
      * @param pageSize The size of the pages. Must be positive.
      * @return Paginated plot result
      */
     @NotNull public PaginatedPlotResult getPaginated(final int pageSize) {
         Preconditions.checkState(pageSize > 0, "Page size must be greater than 0");
-        return new PaginatedPlotResult(this.asList(), pageSize);
+        return new PaginatedPlotResult(this, pageSize);
     }
 
     /**
@@ -383,21 +408,72 @@ public final class PlotQuery {
      * @return true if any provided plot matches the filters.
      */
     public boolean anyMatch() {
-        if (this.filters.isEmpty()) {
-            return !this.plotProvider.getPlots().isEmpty();
-        } else {
-            final Collection<Plot> plots = this.plotProvider.getPlots();
-            outer: for (final Plot plot : plots) {
-                // a plot must pass all filters to match the criteria
-                for (final PlotFilter filter : this.filters) {
-                    if (!filter.accepts(plot)) {
-                        continue outer;
-                    }
+        // the consumer stops the iteration as soon as a plot passed all filters
+        return !this.forEachMatch(plot -> false);
+    }
+
+    /**
+     * Plan and execute the query. If the provider is backed by plot areas, the
+     * most selective indexed filter is used to look up candidate plots in the
+     * area indexes instead of scanning every plot. The remaining filters are
+     * evaluated in order of their estimated selectivity.
+     *
+     * @param consumer Consumer that receives every matching plot. Returning
+     *                 false stops the iteration
+     * @return false if the iteration was stopped by the consumer
+     */
+    private boolean forEachMatch(@NotNull final Predicate<Plot> consumer) {
+        if (!(this.plotProvider instanceof AreaPlotProvider)) {
+            return this.forEachMatch(this.plotProvider.getPlots(), new ArrayList<>(this.filters), consumer);
+        }
+        final Collection<PlotArea> areas = ((AreaPlotProvider) this.plotProvider).getAreas();
+        final List<PlotFilter> filters = new ArrayList<>(this.filters);
+        final Map<PlotFilter, Integer> estimates = new IdentityHashMap<>();
+        IndexedPlotFilter mostSelective = null;
+        for (final PlotFilter filter : filters) {
+            if (!(filter instanceof IndexedPlotFilter) || !((IndexedPlotFilter) filter).isIndexable()) {
+                continue;
+            }
+            int estimate = 0;
+            for (final PlotArea area : areas) {
+                estimate += ((IndexedPlotFilter) filter).getCandidates(area.getPlotIndex()).size();
+            }
+            if (estimate == 0) {
+                // nothing can pass this filter
+                return true;
+            }
+            estimates.put(filter, estimate);
+            if (mostSelective == null || estimate < estimates.get(mostSelective)) {
+                mostSelective = (IndexedPlotFilter) filter;
+            }
+        }
+        // cheap, selective filters first. Unindexed filters keep their order
+        filters.sort(Comparator.comparingInt(filter -> estimates.getOrDefault(filter, Integer.MAX_VALUE)));
+        for (final PlotArea area : areas) {
+            final Collection<Plot> candidates = mostSelective == null ?
+                area.getPlots() :
+                mostSelective.getCandidates(area.getPlotIndex());
+            if (!this.forEachMatch(candidates, filters, consumer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean forEachMatch(@NotNull final Collection<Plot> plots,
+        @NotNull final List<PlotFilter> filters, @NotNull final Predicate<Plot> consumer) {
+        outer: for (final Plot plot : plots) {
+            // a plot must pass all filters to match the criteria
+            for (final PlotFilter filter : filters) {
+                if (!filter.accepts(plot)) {
+                    continue outer;
                 }
-                return true; // a plot passed all filters, so we have a match
             }
-            return false;
+            if (!consumer.test(plot)) {
+                return false;
+            }
         }
+        return true;
     }
 
     @NotNull private PlotQuery addFilter(@NotNull final PlotFilter filter) {
@@ -0,0 +1,205 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util.query;
+
+import com.plotsquared.core.plot.Plot;
+import com.plotsquared.core.plot.Rating;
+import com.plotsquared.core.plot.flag.implementations.DoneFlag;
+import com.plotsquared.core.util.MathMan;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ranking of a fixed set of plots. Sort keys are computed once per plot
+ * when the ranking is created, and the best plots are selected lazily:
+ * asking for the first {@code n} plots only partially orders the set,
+ * and the sorted prefix is kept for later requests.
+ */
+final class PlotRanking {
+
+    private final Entry[] entries;
+    private final Comparator<Entry> comparator;
+    private List<Plot> sorted = Collections.emptyList();
+
+    private PlotRanking(@NotNull final Entry[] entries, @NotNull final Comparator<Entry> comparator) {
+        this.entries = entries;
+        // Ties keep the original encounter order, like a stable sort would
+        this.comparator = comparator.thenComparingInt(entry -> entry.index);
+    }
+
+    /**
+     * Rank plots by the time at which they were marked as done, most recent
+     * first. Plots without a numeric done flag are placed last.
+     *
+     * @param plots Plots to rank
+     * @return Ranking
+     */
+    @NotNull static PlotRanking byDone(@NotNull final List<Plot> plots) {
+        final Entry[] entries = new Entry[plots.size()];
+        for (int i = 0; i < entries.length; i++) {
+            final Plot plot = plots.get(i);
+            final String value = plot.getFlag(DoneFlag.class);
+            final double key = MathMan.isInteger(value) ? Integer.parseInt(value) : Double.NEGATIVE_INFINITY;
+            entries[i] = new Entry(plot, i, key, 0);
+        }
+        return new PlotRanking(entries, Entry.DESCENDING);
+    }
+
+    /**
+     * Rank plots by their ratings, best rated first. Plots with equal
+     * scores are ordered by the amount of ratings.
+     *
+     * @param plots Plots to rank
+     * @return Ranking
+     */
+    @NotNull static PlotRanking byRating(@NotNull final List<Plot> plots) {
+        final Entry[] entries = new Entry[plots.size()];
+        for (int i = 0; i < entries.length; i++) {
+            final Plot plot = plots.get(i);
+            double score = 0;
+            int count = 0;
+            if (!plot.getSettings().getRatings().isEmpty()) {
+                for (final Rating rating : plot.getRatings().values()) {
+                    final double average = rating.getAverageRating();
+                    score += average * average;
+                }
+                count = plot.getSettings().getRatings().size();
+                score /= count;
+                score += count;
+            }
+            entries[i] = new Entry(plot, i, score, score == 0 ? 0 : count);
+        }
+        return new PlotRanking(entries, Entry.DESCENDING);
+    }
+
+    /**
+     * Rank plots using a custom comparator
+     *
+     * @param plots      Plots to rank
+     * @param comparator Comparator
+     * @return Ranking
+     */
+    @NotNull static PlotRanking byComparator(@NotNull final List<Plot> plots,
+        @NotNull final Comparator<Plot> comparator) {
+        final Entry[] entries = new Entry[plots.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(plots.get(i), i, 0, 0);
+        }
+        return new PlotRanking(entries, (a, b) -> comparator.compare(a.plot, b.plot));
+    }
+
+    /**
+     * Get the number of ranked plots
+     *
+     * @return Number of plots
+     */
+    int size() {
+        return this.entries.length;
+    }
+
+    /**
+     * Get the best ranked plots, in order
+     *
+     * @param amount Maximum number of plots
+     * @return Immutable list containing at most {@code amount} plots
+     */
+    @NotNull List<Plot> getTop(final int amount) {
+        final int limit = Math.min(amount, this.entries.length);
+        if (limit > this.sorted.size()) {
+            final Entry[] top;
+            // Selection only pays off while the prefix is small compared to the set
+            if (limit > this.entries.length / 2) {
+                top = this.entries.clone();
+                Arrays.sort(top, this.comparator);
+            } else {
+                top = this.select(limit);
+            }
+            final List<Plot> plots = new ArrayList<>(top.length);
+            for (final Entry entry : top) {
+                plots.add(entry.plot);
+            }
+            this.sorted = Collections.unmodifiableList(plots);
+        }
+        return this.sorted.subList(0, limit);
+    }
+
+    /**
+     * Get all plots, in order
+     *
+     * @return Immutable sorted list
+     */
+    @NotNull List<Plot> getAll() {
+        return this.getTop(this.entries.length);
+    }
+
+    @NotNull private Entry[] select(final int limit) {
+        // Bounded heap with the worst of the current best plots at its head
+        final PriorityQueue<Entry> heap = new PriorityQueue<>(limit + 1, this.comparator.reversed());
+        for (final Entry entry : this.entries) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (this.comparator.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        final Entry[] top = heap.toArray(new Entry[0]);
+        Arrays.sort(top, this.comparator);
+        return top;
+    }
+
+    private static final class Entry {
+
+        private static final Comparator<Entry> DESCENDING = (a, b) -> {
+            final int primary = Double.compare(b.primary, a.primary);
+            if (primary != 0) {
+                return primary;
+            }
+            return Double.compare(b.secondary, a.secondary);
+        };
+
+        private final Plot plot;
+        private final int index;
+        private final double primary;
+        private final double secondary;
+
+        private Entry(@NotNull final Plot plot, final int index, final double primary,
+            final double secondary) {
+            this.plot = plot;
+            this.index = index;
+            this.primary = primary;
+            this.secondary = secondary;
+        }
+
+    }
+
+}
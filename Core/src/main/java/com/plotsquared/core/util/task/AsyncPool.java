@@ -0,0 +1,283 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util.task;
+
+import com.plotsquared.core.PlotSquared;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded thread pool for one type of asynchronous work. Each pool has a
+ * fixed number of threads and a bounded queue, so a burst of background
+ * work can't spawn an unbounded number of threads. Work that doesn't fit
+ * in the queue runs in the submitting thread, which slows down the
+ * producer instead of growing the backlog. The main thread must never wait
+ * for background work, so submissions from it fail with a
+ * {@link RejectedExecutionException} instead. Both are counted as rejected.
+ * <p>
+ * Tasks that run for the lifetime of the plugin must not be submitted to a
+ * pool, as they would occupy one of its threads forever.
+ */
+public final class AsyncPool {
+
+    /**
+     * File and network access, schematics, backups and player callbacks
+     */
+    public static final AsyncPool IO = new AsyncPool("IO", 8, 4096);
+    /**
+     * CPU heavy work such as plot analysis
+     */
+    public static final AsyncPool CPU =
+        new AsyncPool("CPU", Math.max(2, Runtime.getRuntime().availableProcessors() - 1), 1024);
+    /**
+     * Database queries that bypass the batched database queue
+     */
+    public static final AsyncPool DATABASE = new AsyncPool("Database", 2, 8192);
+
+    private static final AsyncPool[] POOLS = {IO, CPU, DATABASE};
+
+    private final String name;
+    private final int threads;
+    private final int capacity;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder runTime = new LongAdder();
+    private volatile ThreadPoolExecutor executor;
+    private volatile boolean shutdown;
+
+    private AsyncPool(@NotNull final String name, final int threads, final int capacity) {
+        this.name = name;
+        this.threads = threads;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get all pools
+     *
+     * @return Pools
+     */
+    @NotNull public static AsyncPool[] values() {
+        return POOLS.clone();
+    }
+
+    /**
+     * Stop accepting new work and wait for queued work to finish. Work that
+     * is still running once the timeout has passed is interrupted, e.g. tasks
+     * waiting for the main thread, which can't run them while it waits here.
+     * Work submitted afterwards runs in the submitting thread
+     *
+     * @param timeout Time to wait for all pools together
+     * @param unit    Time unit
+     */
+    public static void shutdownAll(final long timeout, @NotNull final TimeUnit unit) {
+        for (final AsyncPool pool : POOLS) {
+            pool.shutdown = true;
+            final ThreadPoolExecutor executor = pool.executor;
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (final AsyncPool pool : POOLS) {
+                final ThreadPoolExecutor executor = pool.executor;
+                if (executor == null) {
+                    continue;
+                }
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final AsyncPool pool : POOLS) {
+            final ThreadPoolExecutor executor = pool.executor;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Run a task in this pool. If the queue is full, the task runs in the
+     * calling thread instead
+     *
+     * @param task Task to run
+     * @throws RejectedExecutionException If the queue is full and this is
+     *                                    called from the main thread
+     */
+    public void execute(@NotNull final Runnable task) {
+        this.submitted.increment();
+        final MeasuredTask measured = new MeasuredTask(task);
+        if (!this.shutdown) {
+            try {
+                getExecutor().execute(measured);
+                return;
+            } catch (final RejectedExecutionException e) {
+                this.rejected.increment();
+                // The pool may also have shut down concurrently
+                final PlotSquared plotSquared = PlotSquared.get();
+                if (!this.shutdown && plotSquared != null && plotSquared
+                    .isMainThread(Thread.currentThread())) {
+                    throw new RejectedExecutionException(
+                        "The " + this.name + " pool is saturated (" + this.capacity
+                            + " queued tasks)", e);
+                }
+                measured.run();
+                return;
+            }
+        }
+        this.rejected.increment();
+        measured.run();
+    }
+
+    @NotNull private ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.executor;
+                if (executor == null) {
+                    final AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(this.threads, this.threads, 60L,
+                        TimeUnit.SECONDS, new LinkedBlockingQueue<>(this.capacity), runnable -> {
+                        final Thread thread = new Thread(runnable,
+                            "PlotSquared " + this.name + " #" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @NotNull public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the number of tasks waiting for a thread
+     *
+     * @return Queue depth
+     */
+    public int getQueueDepth() {
+        final ThreadPoolExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Get the number of threads that are currently running a task
+     *
+     * @return Active threads
+     */
+    public int getActiveCount() {
+        final ThreadPoolExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    public long getSubmittedCount() {
+        return this.submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return this.completed.sum();
+    }
+
+    /**
+     * Get the number of tasks that didn't fit in the pool and ran in the
+     * submitting thread or were refused
+     *
+     * @return Rejected tasks
+     */
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Get the average time tasks spent in the queue
+     *
+     * @return Average wait time in milliseconds
+     */
+    public double getAverageWaitTime() {
+        final long completed = this.completed.sum();
+        return completed == 0 ? 0 : this.waitTime.sum() / (completed * 1_000_000D);
+    }
+
+    /**
+     * Get the average time tasks took to run
+     *
+     * @return Average run time in milliseconds
+     */
+    public double getAverageRunTime() {
+        final long completed = this.completed.sum();
+        return completed == 0 ? 0 : this.runTime.sum() / (completed * 1_000_000D);
+    }
+
+    @Override public String toString() {
+        return String.format(
+            "%s: %d/%d threads active, %d queued, %d completed, %d rejected, avg wait %.2fms, avg run %.2fms",
+            this.name, getActiveCount(), this.threads, getQueueDepth(), getCompletedCount(),
+            getRejectedCount(), getAverageWaitTime(), getAverageRunTime());
+    }
+
+
+    private final class MeasuredTask implements Runnable {
+
+        private final Runnable task;
+        private final long queued = System.nanoTime();
+
+        private MeasuredTask(@NotNull final Runnable task) {
+            this.task = task;
+        }
+
+        @Override public void run() {
+            final long start = System.nanoTime();
+            waitTime.add(start - this.queued);
+            try {
+                this.task.run();
+            } catch (final Throwable throwable) {
+                throwable.printStackTrace();
+            } finally {
+                runTime.add(System.nanoTime() - start);
+                completed.increment();
+            }
+        }
+
+    }
+
+}
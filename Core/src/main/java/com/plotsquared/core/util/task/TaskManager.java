@@ -26,19 +26,22 @@
 package com.plotsquared.core.util.task;
 
 import com.plotsquared.core.PlotSquared;
-import com.plotsquared.core.util.RuntimeExceptionRunnableVal;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class TaskManager {
 
     public static final HashSet<String> TELEPORT_QUEUE = new HashSet<>();
-    public static final HashMap<Integer, Integer> tasks = new HashMap<>();
+    public static final Map<Integer, Integer> tasks = new ConcurrentHashMap<>();
     public static TaskManager IMP;
     public static AtomicInteger index = new AtomicInteger(0);
 
@@ -63,12 +66,22 @@ public abstract class TaskManager {
     }
 
     public static void runTaskAsync(Runnable runnable) {
+        runTaskAsync(runnable, AsyncPool.IO);
+    }
+
+    /**
+     * Run a task in one of PlotSquared's bounded thread pools.
+     *
+     * @param runnable The task
+     * @param pool     The pool matching the type of work
+     */
+    public static void runTaskAsync(Runnable runnable, AsyncPool pool) {
         if (runnable != null) {
             if (IMP == null) {
                 runnable.run();
                 return;
             }
-            IMP.taskAsync(runnable);
+            pool.execute(runnable);
         }
     }
 
@@ -104,7 +117,7 @@ public abstract class TaskManager {
                 runnable.run();
                 return;
             }
-            IMP.taskLaterAsync(runnable, delay);
+            IMP.taskLater(() -> AsyncPool.IO.execute(runnable), delay);
         }
     }
 
@@ -125,30 +138,63 @@ public abstract class TaskManager {
         return sync(function, Integer.MAX_VALUE);
     }
 
+    /**
+     * Run a function on the main thread and wait for its result.
+     *
+     * @param function The function
+     * @param timeout  Maximum time to wait in milliseconds
+     * @return The value of the function
+     * @throws IllegalStateException if the main thread didn't run the function in time
+     */
     public <T> T sync(final RunnableVal<T> function, int timeout) {
         if (PlotSquared.get().isMainThread(Thread.currentThread())) {
             function.run();
             return function.value;
         }
-        final AtomicBoolean running = new AtomicBoolean(true);
-        final RuntimeExceptionRunnableVal<T> run =
-            new RuntimeExceptionRunnableVal<>(function, running);
-        TaskManager.IMP.task(run);
         try {
-            synchronized (function) {
-                while (running.get()) {
-                    function.wait(timeout);
-                }
+            return syncFuture(function).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(
+                "Timed out after " + timeout + "ms waiting for the main thread", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
             }
+            throw new RuntimeException(e.getCause());
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             e.printStackTrace();
         }
-        if (run.value != null) {
-            throw run.value;
-        }
         return function.value;
     }
 
+    /**
+     * Run a function on the main thread without blocking the caller.
+     *
+     * @param function The function
+     * @return Future completed with the value of the function
+     */
+    public <T> CompletableFuture<T> syncFuture(final RunnableVal<T> function) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Runnable run = () -> {
+            try {
+                function.run();
+                future.complete(function.value);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        };
+        if (PlotSquared.get().isMainThread(Thread.currentThread())) {
+            run.run();
+        } else {
+            TaskManager.IMP.task(run);
+        }
+        return future;
+    }
+
     public abstract int taskRepeat(Runnable runnable, int interval);
 
     public abstract int taskRepeatAsync(Runnable runnable, int interval);
@@ -0,0 +1,210 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util.task;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel for recurring per-player and per-plot effects.
+ * Tasks are stored in the slot of the tick they are due in, so scheduling
+ * and cancelling are O(1) and each {@link #tick()} only visits the tasks of
+ * a single slot. Delays longer than the wheel wrap around and carry the
+ * number of remaining rotations.
+ * <p>
+ * The wheel does not schedule itself; {@link #tick()} must be called once
+ * per server tick, and due tasks are run on the calling thread.
+ */
+public final class TimingWheel {
+
+    private final Timeout[] slots;
+    private final int mask;
+    private final List<Timeout> due = new ArrayList<>();
+    private long tick;
+    private int size;
+
+    /**
+     * Create a new timing wheel
+     *
+     * @param slots Number of slots, rounded up to a power of two
+     */
+    public TimingWheel(final int slots) {
+        int capacity = 1;
+        while (capacity < slots) {
+            capacity <<= 1;
+        }
+        this.slots = new Timeout[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Schedule a task
+     *
+     * @param task   Task to run
+     * @param delay  Delay in ticks before the first run, at least 1
+     * @param period Period in ticks between runs, or 0 to only run once
+     * @return Handle that can be used to cancel the task
+     */
+    @NotNull public synchronized Timeout schedule(@NotNull final Runnable task, final int delay,
+        final int period) {
+        final Timeout timeout = new Timeout(task, Math.max(0, period));
+        insert(timeout, delay);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * Get the number of scheduled tasks
+     *
+     * @return Scheduled tasks
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Advance the wheel by one tick and run every task that is due
+     */
+    public void tick() {
+        synchronized (this) {
+            this.tick++;
+            Timeout timeout = this.slots[(int) (this.tick & this.mask)];
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                } else {
+                    unlink(timeout);
+                    this.due.add(timeout);
+                }
+                timeout = next;
+            }
+        }
+        if (this.due.isEmpty()) {
+            return;
+        }
+        for (final Timeout timeout : this.due) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            try {
+                timeout.task.run();
+            } catch (final Throwable throwable) {
+                throwable.printStackTrace();
+            }
+            synchronized (this) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                if (timeout.period > 0) {
+                    insert(timeout, timeout.period);
+                } else {
+                    timeout.cancelled = true;
+                    this.size--;
+                }
+            }
+        }
+        this.due.clear();
+    }
+
+    private void insert(@NotNull final Timeout timeout, final int delay) {
+        final int ticks = Math.max(1, delay);
+        final int slot = (int) ((this.tick + ticks) & this.mask);
+        timeout.rounds = (ticks - 1) / this.slots.length;
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = this.slots[slot];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        this.slots[slot] = timeout;
+    }
+
+    private void unlink(@NotNull final Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            this.slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.slot = -1;
+    }
+
+
+    /**
+     * Handle of a task scheduled in a {@link TimingWheel}
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final int period;
+        private Timeout previous;
+        private Timeout next;
+        private int slot = -1;
+        private int rounds;
+        private boolean cancelled;
+
+        private Timeout(@NotNull final Runnable task, final int period) {
+            this.task = task;
+            this.period = period;
+        }
+
+        /**
+         * Cancel the task. Cancelling a task that already finished has no effect
+         */
+        public void cancel() {
+            synchronized (TimingWheel.this) {
+                if (this.cancelled) {
+                    return;
+                }
+                this.cancelled = true;
+                if (this.slot >= 0) {
+                    unlink(this);
+                }
+                TimingWheel.this.size--;
+            }
+        }
+
+        /**
+         * Check whether the task was cancelled or has finished
+         *
+         * @return True if the task will not run again
+         */
+        public boolean isCancelled() {
+            synchronized (TimingWheel.this) {
+                return this.cancelled;
+            }
+        }
+
+    }
+
+}
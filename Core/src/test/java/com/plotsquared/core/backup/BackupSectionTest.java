@@ -0,0 +1,104 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.backup;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class BackupSectionTest {
+
+    private static CompoundTag chest() {
+        final Map<String, Tag> values =
+            Collections.singletonMap("id", new StringTag("minecraft:chest"));
+        return new CompoundTag(values);
+    }
+
+    @Test public void captureOrderDoesNotMatter() throws IOException {
+        final BackupSection.Builder forward = new BackupSection.Builder();
+        final BackupSection.Builder backward = new BackupSection.Builder();
+        for (int i = 0; i < 256; i++) {
+            final int j = 255 - i;
+            forward.setBlock(i & 15, 0, i >> 4, i % 3 == 0 ? "minecraft:stone" : "minecraft:dirt",
+                null);
+            backward.setBlock(j & 15, 0, j >> 4, j % 3 == 0 ? "minecraft:stone" : "minecraft:dirt",
+                null);
+            forward.setBiome(i & 15, i >> 4, i < 128 ? "minecraft:plains" : "minecraft:desert");
+            backward.setBiome(j & 15, j >> 4, j < 128 ? "minecraft:plains" : "minecraft:desert");
+        }
+        forward.setBlock(1, 2, 3, "minecraft:chest", chest());
+        backward.setBlock(1, 2, 3, "minecraft:chest", chest());
+        final byte[] data = forward.build().serialize();
+        assertArrayEquals(data, backward.build().serialize());
+        assertEquals(BackupSection.hash(data), BackupSection.hash(backward.build().serialize()));
+    }
+
+    @Test public void serializationRoundTrip() throws IOException {
+        final BackupSection section = new BackupSection.Builder()
+            .setBlock(0, 0, 0, "minecraft:stone", null)
+            .setBlock(1, 2, 3, "minecraft:chest", chest())
+            .setBiome(5, 5, "minecraft:desert")
+            .build();
+        final byte[] data = section.serialize();
+        final BackupSection copy = BackupSection.deserialize(data);
+        assertArrayEquals(data, copy.serialize());
+        assertEquals("minecraft:stone", copy.getBlock(BackupSection.index(0, 0, 0)));
+        assertEquals("minecraft:chest", copy.getBlock(BackupSection.index(1, 2, 3)));
+        assertEquals(BackupSection.AIR, copy.getBlock(BackupSection.index(15, 15, 15)));
+        assertNotNull(copy.getTile(BackupSection.index(1, 2, 3)));
+        assertEquals("minecraft:desert", copy.getBiome(5, 5));
+    }
+
+    @Test public void hashDependsOnContent() throws IOException {
+        final byte[] stone =
+            new BackupSection.Builder().setBlock(0, 0, 0, "minecraft:stone", null).build()
+                .serialize();
+        final byte[] dirt =
+            new BackupSection.Builder().setBlock(0, 0, 0, "minecraft:dirt", null).build()
+                .serialize();
+        assertEquals(BackupSection.hash(stone), BackupSection.hash(stone.clone()));
+        assertNotEquals(BackupSection.hash(stone), BackupSection.hash(dirt));
+    }
+
+    @Test public void empty() {
+        assertTrue(new BackupSection.Builder().build().isEmpty());
+        assertFalse(new BackupSection.Builder().setBiome(0, 0, "minecraft:plains").build()
+            .isEmpty());
+    }
+
+}
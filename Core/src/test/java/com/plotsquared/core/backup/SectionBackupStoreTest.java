@@ -0,0 +1,127 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.backup;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SectionBackupStoreTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static BackupSection section(String block) {
+        return new BackupSection.Builder().setBlock(0, 0, 0, block, null).build();
+    }
+
+    private static BackupManifest manifest(String hash) {
+        return new BackupManifest("world", System.currentTimeMillis(), Collections.emptyList(),
+            Collections.singletonList(new BackupManifest.Entry(0, 0, 0, hash)));
+    }
+
+    private static void age(Path file) throws IOException {
+        Files.setLastModifiedTime(file,
+            FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+    }
+
+    @Test public void manifestRoundTrip() throws IOException {
+        SectionBackupStore store = new SectionBackupStore(folder.getRoot().toPath());
+        CuboidRegion region =
+            new CuboidRegion(BlockVector3.at(-5, 0, 3), BlockVector3.at(20, 255, 40));
+        BackupManifest manifest =
+            new BackupManifest("world", 1234L, Collections.singletonList(region), Arrays
+                .asList(new BackupManifest.Entry(-1, 0, 2, "abc"),
+                    new BackupManifest.Entry(3, 15, -4, BackupSection.EMPTY)));
+        Path file = folder.getRoot().toPath().resolve("1" + SectionBackupStore.MANIFEST_EXTENSION);
+        store.writeManifest(file, manifest);
+        BackupManifest read = store.readManifest(file);
+        assertEquals("world", read.getWorld());
+        assertEquals(1234L, read.getCreationTime());
+        assertEquals(1, read.getRegions().size());
+        assertEquals(region.getMinimumPoint(), read.getRegions().get(0).getMinimumPoint());
+        assertEquals(region.getMaximumPoint(), read.getRegions().get(0).getMaximumPoint());
+        assertEquals(2, read.getEntries().size());
+        for (int i = 0; i < 2; i++) {
+            BackupManifest.Entry expected = manifest.getEntries().get(i);
+            BackupManifest.Entry entry = read.getEntries().get(i);
+            assertEquals(expected.getChunkX(), entry.getChunkX());
+            assertEquals(expected.getSectionY(), entry.getSectionY());
+            assertEquals(expected.getChunkZ(), entry.getChunkZ());
+            assertEquals(expected.getHash(), entry.getHash());
+        }
+        assertTrue(read.getEntries().get(1).isEmpty());
+    }
+
+    @Test public void sectionsAreStoredOnce() throws IOException {
+        SectionBackupStore store = new SectionBackupStore(folder.getRoot().toPath());
+        String hash = store.storeSection(section("minecraft:stone"));
+        assertEquals(hash, store.storeSection(section("minecraft:stone")));
+        assertEquals("minecraft:stone",
+            store.loadSection(hash).getBlock(BackupSection.index(0, 0, 0)));
+        assertEquals(BackupSection.EMPTY, store.storeSection(new BackupSection.Builder().build()));
+    }
+
+    @Test public void collectGarbage() throws IOException {
+        Path root = folder.getRoot().toPath();
+        SectionBackupStore store = new SectionBackupStore(root);
+        String live = store.storeSection(section("minecraft:stone"));
+        String dead = store.storeSection(section("minecraft:dirt"));
+        Path plot = Files.createDirectories(root.resolve("area").resolve("1;1"));
+        store.writeManifest(plot.resolve("1" + SectionBackupStore.MANIFEST_EXTENSION),
+            manifest(live));
+        // Manifests inside of the section tree are not read
+        store.writeManifest(
+            store.getSectionPath().resolve("stray" + SectionBackupStore.MANIFEST_EXTENSION),
+            manifest(dead));
+        age(store.getSectionFile(live));
+        age(store.getSectionFile(dead));
+        assertEquals(1, store.collectGarbage());
+        assertTrue(Files.exists(store.getSectionFile(live)));
+        assertFalse(Files.exists(store.getSectionFile(dead)));
+    }
+
+    @Test public void recentSectionsAreKept() throws IOException {
+        SectionBackupStore store = new SectionBackupStore(folder.getRoot().toPath());
+        String hash = store.storeSection(section("minecraft:stone"));
+        assertEquals(0, store.collectGarbage());
+        assertTrue(Files.exists(store.getSectionFile(hash)));
+    }
+
+}
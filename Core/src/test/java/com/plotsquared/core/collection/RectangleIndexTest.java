@@ -0,0 +1,103 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.collection;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RectangleIndexTest {
+
+    private static CuboidRegion region(int minX, int minZ, int maxX, int maxZ) {
+        return new CuboidRegion(BlockVector3.at(minX, 0, minZ), BlockVector3.at(maxX, 255, maxZ));
+    }
+
+    @Test public void pointQueries() {
+        CuboidRegion a = region(0, 0, 99, 99);
+        CuboidRegion b = region(200, -50, 299, 49);
+        CuboidRegion c = region(-10000, -10000, 10000, 10000);
+        RectangleIndex<CuboidRegion> index =
+            RectangleIndex.of(region -> region, Arrays.asList(a, b));
+        assertSame(a, index.get(0, 0));
+        assertSame(a, index.get(99, 99));
+        assertSame(b, index.get(250, -50));
+        assertNull(index.get(150, 0));
+        assertNull(index.get(100, 0));
+        index = index.with(c);
+        assertSame(a, index.get(50, 50));
+        assertSame(c, index.get(150, 0));
+        index = index.without(a);
+        assertSame(c, index.get(50, 50));
+        assertNull(index.get(20000, 0));
+    }
+
+    @Test public void rangeQueriesMatchLinearScan() {
+        Random random = new Random(42);
+        List<CuboidRegion> regions = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int x = random.nextInt(20000) - 10000;
+            int z = random.nextInt(20000) - 10000;
+            int size = random.nextInt(10) == 0 ? 5000 : random.nextInt(300);
+            regions.add(region(x, z, x + size, z + random.nextInt(300)));
+        }
+        RectangleIndex<CuboidRegion> index = RectangleIndex.of(region -> region, regions);
+        for (int i = 0; i < 200; i++) {
+            int minX = random.nextInt(24000) - 12000;
+            int minZ = random.nextInt(24000) - 12000;
+            int maxX = minX + random.nextInt(2000);
+            int maxZ = minZ + random.nextInt(2000);
+            Set<CuboidRegion> expected = new HashSet<>();
+            CuboidRegion first = null;
+            for (CuboidRegion region : regions) {
+                if (minX <= region.getMaximumPoint().getX() && maxX >= region.getMinimumPoint()
+                    .getX() && minZ <= region.getMaximumPoint().getZ() && maxZ >= region
+                    .getMinimumPoint().getZ()) {
+                    expected.add(region);
+                    if (first == null) {
+                        first = region;
+                    }
+                }
+            }
+            List<CuboidRegion> found = new ArrayList<>();
+            index.forEachIntersecting(minX, minZ, maxX, maxZ, found::add);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+            assertSame(first, index.getFirstIntersecting(minX, minZ, maxX, maxZ));
+        }
+    }
+
+}
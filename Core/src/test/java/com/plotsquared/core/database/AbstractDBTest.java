@@ -34,6 +34,7 @@ import com.plotsquared.core.plot.flag.PlotFlag;
 import com.plotsquared.core.util.task.RunnableVal;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -88,6 +89,13 @@ public class AbstractDBTest implements AbstractDB {
     @Override public void getPersistentMeta(UUID uuid, RunnableVal<Map<String, byte[]>> result) {
     }
 
+    @Override public void getPersistentMeta(Collection<UUID> uuids,
+        RunnableVal<Map<UUID, Map<String, byte[]>>> result) {
+    }
+
+    @Override public void updatePersistentMeta(Map<UUID, Map<String, byte[]>> changes) {
+    }
+
     @Override public void createPlotSettings(int id, Plot plot) {
     }
 
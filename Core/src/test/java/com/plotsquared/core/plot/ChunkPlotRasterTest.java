@@ -0,0 +1,226 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.configuration.ConfigurationNode;
+import com.plotsquared.core.generator.SquarePlotManager;
+import com.plotsquared.core.generator.SquarePlotWorld;
+import com.plotsquared.core.location.Location;
+import com.plotsquared.core.plot.ChunkPlotRaster.WorldRasters;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plots are 40 blocks wide with 8 block roads, so plot 1 covers the block
+ * columns 4 to 43 and the road between plot 1 and 2 the columns 44 to 51
+ */
+public class ChunkPlotRasterTest {
+
+    private static WorldRasters rasters(PlotArea area, boolean loaded) {
+        return new WorldRasters("world", new ChunkPlotRaster.Source() {
+            @Override public PlotArea getPlotArea(@NotNull Location location) {
+                return area;
+            }
+
+            @Override public boolean isChunkLoaded(@NotNull String world, int chunkX, int chunkZ) {
+                return loaded;
+            }
+        });
+    }
+
+    private static Plot claim(TestArea area, int x, int y) {
+        Plot plot = new Plot(area, new PlotId(x, y), UUID.randomUUID());
+        area.plots.put(plot.getId(), plot);
+        return plot;
+    }
+
+    @Test public void uniformChunk() {
+        TestArea area = new TestArea(null, null);
+        ChunkPlotRaster raster = rasters(area, true).get(20, 20);
+        assertTrue(raster.isUniform());
+        assertSame(area, raster.getPlotArea(31, 16));
+        assertEquals(new PlotId(1, 1), raster.getPlotId(16, 31));
+        assertFalse(raster.isPlotRoad(20, 20));
+        assertFalse(raster.hasOwnedPlot());
+    }
+
+    @Test public void palette() {
+        TestArea area = new TestArea(null, null);
+        Plot plot = claim(area, 1, 1);
+        ChunkPlotRaster raster = rasters(area, true).get(0, 20);
+        assertFalse(raster.isUniform());
+        assertTrue(raster.isPlotRoad(3, 20));
+        assertNull(raster.getPlotId(3, 20));
+        assertNull(raster.getOwnedPlotAbs(3, 20));
+        assertEquals(new PlotId(1, 1), raster.getPlotId(4, 20));
+        assertSame(plot, raster.getOwnedPlotAbs(15, 20));
+        assertTrue(raster.hasOwnedPlot());
+    }
+
+    @Test public void mergedRoad() {
+        TestArea area = new TestArea(null, null);
+        Plot west = claim(area, 1, 1);
+        Plot east = claim(area, 2, 1);
+        west.getSettings().setMerged(new boolean[] {false, true, false, false});
+        east.getSettings().setMerged(new boolean[] {false, false, false, true});
+        ChunkPlotRaster raster = rasters(area, true).get(40, 20);
+        assertFalse(raster.isPlotRoad(45, 20));
+        assertSame(west, raster.getOwnedPlotAbs(45, 20));
+        assertSame(west, raster.getOwnedPlotAbs(43, 20));
+    }
+
+    @Test public void partialArea() {
+        TestArea area = new TestArea(new PlotId(1, 1), new PlotId(1, 1));
+        WorldRasters rasters = rasters(area, true);
+        assertEquals(new PlotId(1, 1), rasters.get(20, 20).getPlotId(20, 20));
+        ChunkPlotRaster outside = rasters.get(70, 20);
+        assertSame(area, outside.getPlotArea(70, 20));
+        assertNull(outside.getPlotId(70, 20));
+        assertTrue(outside.isPlotRoad(70, 20));
+    }
+
+    @Test public void onlyLoadedChunksAreStored() {
+        TestArea area = new TestArea(null, null);
+        WorldRasters loaded = rasters(area, true);
+        ChunkPlotRaster raster = loaded.get(20, 20);
+        loaded.get(200, 200);
+        assertSame(raster, loaded.get(30, 30));
+        WorldRasters unloaded = rasters(area, false);
+        assertNotSame(unloaded.get(20, 20), unloaded.get(30, 30));
+    }
+
+    @Test public void invalidatePlot() {
+        TestArea area = new TestArea(null, null);
+        Plot plot = claim(area, 1, 1);
+        WorldRasters rasters = rasters(area, true);
+        ChunkPlotRaster inside = rasters.get(20, 20);
+        ChunkPlotRaster road = rasters.get(50, 20);
+        ChunkPlotRaster far = rasters.get(200, 200);
+        rasters.invalidate(plot);
+        assertNotSame(inside, rasters.get(20, 20));
+        assertNotSame(road, rasters.get(50, 20));
+        assertSame(far, rasters.get(200, 200));
+    }
+
+    private static final class TestArea extends SquarePlotWorld {
+
+        private TestArea(PlotId min, PlotId max) {
+            super("world", null, null, min, max);
+            this.PLOT_WIDTH = 40;
+            this.ROAD_WIDTH = 8;
+            this.SIZE = 48;
+        }
+
+        @NotNull @Override protected PlotManager createManager() {
+            return new TestManager(this);
+        }
+
+        @Override public ConfigurationNode[] getSettingNodes() {
+            return new ConfigurationNode[0];
+        }
+
+    }
+
+    private static final class TestManager extends SquarePlotManager {
+
+        private TestManager(SquarePlotWorld area) {
+            super(area);
+        }
+
+        @Override public boolean claimPlot(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean unClaimPlot(Plot plot, Runnable whenDone) {
+            return false;
+        }
+
+        @Override public Location getSignLoc(Plot plot) {
+            return null;
+        }
+
+        @Override public String[] getPlotComponents(PlotId plotId) {
+            return new String[0];
+        }
+
+        @Override public boolean setComponent(PlotId plotId, String component, Pattern blocks) {
+            return false;
+        }
+
+        @Override public boolean createRoadEast(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean createRoadSouth(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean createRoadSouthEast(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean removeRoadEast(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean removeRoadSouth(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean removeRoadSouthEast(Plot plot) {
+            return false;
+        }
+
+        @Override public boolean startPlotMerge(List<PlotId> plotIds) {
+            return false;
+        }
+
+        @Override public boolean startPlotUnlink(List<PlotId> plotIds) {
+            return false;
+        }
+
+        @Override public boolean finishPlotMerge(List<PlotId> plotIds) {
+            return false;
+        }
+
+        @Override public boolean finishPlotUnlink(List<PlotId> plotIds) {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FreePlotIndexTest {
+
+    /**
+     * The spiral scan used before the index existed
+     */
+    private static PlotId scan(Set<PlotId> occupied, PlotId center, PlotId start,
+        boolean inclusive, int maxRing) {
+        PlotId current = inclusive ? start : start.getNextId(1);
+        while (FreePlotIndex.getRing(current.x, current.y) <= maxRing) {
+            if (!occupied.contains(new PlotId(center.x + current.x, center.y + current.y))) {
+                return current;
+            }
+            current = current.getNextId(1);
+        }
+        return null;
+    }
+
+    /**
+     * The block search used before the index existed
+     */
+    private static PlotId scanBlock(Set<PlotId> occupied, PlotId start, int sizeX, int sizeY) {
+        PlotId current = start;
+        while (true) {
+            current = current.getNextId(1);
+            boolean free = true;
+            for (int x = current.x; free && x < current.x + sizeX; x++) {
+                for (int y = current.y; free && y < current.y + sizeY; y++) {
+                    free = !occupied.contains(new PlotId(x, y));
+                }
+            }
+            if (free) {
+                return current;
+            }
+        }
+    }
+
+    private static void claim(FreePlotIndex index, Set<PlotId> occupied, PlotId id) {
+        index.set(id, true);
+        occupied.add(id);
+    }
+
+    private static void unclaim(FreePlotIndex index, Set<PlotId> occupied, PlotId id) {
+        index.remove(id);
+        occupied.remove(id);
+    }
+
+    @Test public void skipsFullRings() {
+        FreePlotIndex index = new FreePlotIndex();
+        Set<PlotId> occupied = new HashSet<>();
+        PlotId center = new PlotId(0, 0);
+        for (int x = -2; x <= 2; x++) {
+            for (int y = -2; y <= 2; y++) {
+                claim(index, occupied, new PlotId(x, y));
+            }
+        }
+        // Rings 0 to 2 are full, so the next free id is the start of ring 3
+        assertEquals(FreePlotIndex.getRingStart(3),
+            index.nextFree(center, new PlotId(0, 0), true, Integer.MAX_VALUE));
+        assertNull(index.nextFree(center, new PlotId(0, 0), true, 2));
+        // The last id of ring 2 is followed by the first id of ring 3
+        assertEquals(FreePlotIndex.getRingStart(3),
+            index.nextFree(center, new PlotId(2, 2), false, 3));
+        unclaim(index, occupied, new PlotId(2, 2));
+        assertEquals(new PlotId(2, 2), index.nextFree(center, new PlotId(0, 0), true, 2));
+        unclaim(index, occupied, FreePlotIndex.getRingStart(2));
+        assertEquals(FreePlotIndex.getRingStart(2),
+            index.nextFree(center, new PlotId(1, 1), false, 2));
+    }
+
+    @Test public void matchesSpiralScan() {
+        Random random = new Random(7);
+        FreePlotIndex index = new FreePlotIndex();
+        Set<PlotId> occupied = new HashSet<>();
+        PlotId[] centers = {new PlotId(0, 0), new PlotId(5, -3), new PlotId(-17, 9)};
+        for (int round = 0; round < 2000; round++) {
+            // Claim densely around the origin so that whole rings fill up
+            int radius = 1 + random.nextInt(round < 1000 ? 4 : 12);
+            PlotId id = new PlotId(random.nextInt(2 * radius + 1) - radius,
+                random.nextInt(2 * radius + 1) - radius);
+            if (random.nextInt(4) == 0) {
+                unclaim(index, occupied, id);
+            } else {
+                claim(index, occupied, id);
+            }
+            PlotId center = centers[random.nextInt(centers.length)];
+            int ring = random.nextInt(14);
+            PlotId start;
+            switch (random.nextInt(3)) {
+                case 0:
+                    start = FreePlotIndex.getRingStart(ring);
+                    break;
+                case 1:
+                    // Last id of the ring
+                    start = new PlotId(ring, ring);
+                    break;
+                default:
+                    start = new PlotId(random.nextInt(2 * ring + 1) - ring,
+                        random.nextBoolean() ? ring : -ring);
+                    break;
+            }
+            boolean inclusive = random.nextBoolean();
+            int maxRing = random.nextBoolean() ? Integer.MAX_VALUE : ring + random.nextInt(3);
+            assertEquals(scan(occupied, center, start, inclusive, maxRing),
+                index.nextFree(center, start, inclusive, maxRing));
+        }
+    }
+
+    @Test public void freeBlocks() {
+        FreePlotIndex index = new FreePlotIndex();
+        Set<PlotId> occupied = new HashSet<>();
+        for (int x = -3; x <= 3; x++) {
+            for (int y = -3; y <= 3; y++) {
+                claim(index, occupied, new PlotId(x, y));
+            }
+        }
+        // Rings 0 to 3 are full, so the first corner of ring 4 is free
+        assertEquals(FreePlotIndex.getRingStart(4), index.nextFreeBlock(new PlotId(0, 0), 1, 1));
+        assertEquals(FreePlotIndex.getRingStart(4), index.nextFreeBlock(new PlotId(0, 0), 2, 2));
+        // The claimed corner (3, 4) is skipped, and so is (2, 4) whose block covers it
+        claim(index, occupied, FreePlotIndex.getRingStart(4));
+        assertEquals(new PlotId(1, 4), index.nextFreeBlock(new PlotId(0, 0), 2, 1));
+        unclaim(index, occupied, new PlotId(2, 2));
+        unclaim(index, occupied, new PlotId(3, 2));
+        unclaim(index, occupied, new PlotId(3, 3));
+        assertEquals(new PlotId(3, 2), index.nextFreeBlock(new PlotId(0, 0), 1, 2));
+        assertEquals(new PlotId(2, 2), index.nextFreeBlock(new PlotId(0, 0), 1, 1));
+    }
+
+    @Test public void freeBlocksMatchSpiralScan() {
+        Random random = new Random(11);
+        FreePlotIndex index = new FreePlotIndex();
+        Set<PlotId> occupied = new HashSet<>();
+        for (int round = 0; round < 2000; round++) {
+            int radius = 1 + random.nextInt(round < 1000 ? 5 : 14);
+            PlotId id = new PlotId(random.nextInt(2 * radius + 1) - radius,
+                random.nextInt(2 * radius + 1) - radius);
+            if (random.nextInt(4) == 0) {
+                unclaim(index, occupied, id);
+            } else {
+                claim(index, occupied, id);
+            }
+            int ring = random.nextInt(10);
+            PlotId start = new PlotId(random.nextInt(2 * ring + 1) - ring,
+                random.nextBoolean() ? ring : -ring);
+            int sizeX = 1 + random.nextInt(4);
+            int sizeY = 1 + random.nextInt(4);
+            assertEquals(scanBlock(occupied, start, sizeX, sizeY),
+                index.nextFreeBlock(start, sizeX, sizeY));
+        }
+    }
+
+    @Test public void freeRectangles() {
+        FreePlotIndex index = new FreePlotIndex();
+        index.set(new PlotId(7, 7), true);
+        index.set(new PlotId(-9, 3), true);
+        assertFalse(index.isFree(new PlotId(0, 0), new PlotId(8, 8)));
+        assertTrue(index.isFree(new PlotId(8, 0), new PlotId(20, 20)));
+        assertTrue(index.isFree(new PlotId(-8, 0), new PlotId(6, 6)));
+        assertFalse(index.isFree(new PlotId(-9, 3), new PlotId(-9, 3)));
+        index.remove(new PlotId(7, 7));
+        assertTrue(index.isFree(new PlotId(0, 0), new PlotId(8, 8)));
+    }
+
+}
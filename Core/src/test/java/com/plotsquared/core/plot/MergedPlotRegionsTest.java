@@ -0,0 +1,222 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.plot;
+
+import com.plotsquared.core.location.Direction;
+import com.plotsquared.core.location.Location;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MergedPlotRegionsTest {
+
+    private static final int PLOT_WIDTH = 5;
+    private static final int ROAD_WIDTH = 2;
+    private static final int SIZE = PLOT_WIDTH + ROAD_WIDTH;
+
+    private static long key(int x, int z) {
+        return (long) x << 32 | z & 0xFFFFFFFFL;
+    }
+
+    private static void mark(Map<Long, Integer> cells, int x1, int z1, int x2, int z2) {
+        for (int x = x1; x <= x2; x++) {
+            for (int z = z1; z <= z2; z++) {
+                cells.merge(key(x, z), 1, Integer::sum);
+            }
+        }
+    }
+
+    @Test public void regionsCoverMergedAreaOnce() {
+        Random random = new Random(13);
+        for (int round = 0; round < 2000; round++) {
+            int width = 1 + random.nextInt(7);
+            int height = 1 + random.nextInt(7);
+            int offsetX = random.nextInt(21) - 10;
+            int offsetY = random.nextInt(21) - 10;
+            Shape shape = new Shape(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    shape.member[y][x] = random.nextInt(10) < 7;
+                }
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    shape.west[y][x] = x > 0 && shape.member[y][x] && shape.member[y][x - 1]
+                        && random.nextInt(5) != 0;
+                    shape.north[y][x] = y > 0 && shape.member[y][x] && shape.member[y - 1][x]
+                        && random.nextInt(5) != 0;
+                }
+            }
+            Set<Plot> plots = new HashSet<>();
+            Map<Long, Integer> expected = new HashMap<>();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (!shape.member[y][x]) {
+                        continue;
+                    }
+                    TestPlot plot = new TestPlot(shape, offsetX, offsetY, x, y);
+                    plots.add(plot);
+                    Location bottom = plot.getBottomAbs();
+                    Location top = plot.getTopAbs();
+                    mark(expected, bottom.getX(), bottom.getZ(), top.getX(), top.getZ());
+                    if (plot.getMerged(Direction.EAST)) {
+                        mark(expected, top.getX() + 1, bottom.getZ(), top.getX() + ROAD_WIDTH,
+                            top.getZ());
+                    }
+                    if (plot.getMerged(Direction.SOUTH)) {
+                        mark(expected, bottom.getX(), top.getZ() + 1, top.getX(),
+                            top.getZ() + ROAD_WIDTH);
+                    }
+                    if (plot.getMerged(Direction.SOUTHEAST)) {
+                        mark(expected, top.getX() + 1, top.getZ() + 1, top.getX() + ROAD_WIDTH,
+                            top.getZ() + ROAD_WIDTH);
+                    }
+                }
+            }
+            if (plots.isEmpty()) {
+                continue;
+            }
+            Map<Long, Integer> covered = new HashMap<>();
+            for (CuboidRegion region : MergedPlotRegions.decompose(plots)) {
+                BlockVector3 min = region.getMinimumPoint();
+                BlockVector3 max = region.getMaximumPoint();
+                mark(covered, min.getX(), min.getZ(), max.getX(), max.getZ());
+            }
+            for (Map.Entry<Long, Integer> entry : covered.entrySet()) {
+                assertEquals("Overlapping regions in round " + round, 1,
+                    (int) entry.getValue());
+            }
+            assertEquals("Regions differ from merged area in round " + round,
+                expected.keySet(), covered.keySet());
+        }
+    }
+
+    @Test public void singlePlot() {
+        Shape shape = new Shape(1, 1);
+        shape.member[0][0] = true;
+        Set<Plot> plots = new HashSet<>();
+        plots.add(new TestPlot(shape, 3, -2, 0, 0));
+        Set<CuboidRegion> regions = MergedPlotRegions.decompose(plots);
+        assertEquals(1, regions.size());
+        CuboidRegion region = regions.iterator().next();
+        assertTrue(region.getMinimumPoint().getX() == 3 * SIZE
+            && region.getMaximumPoint().getZ() == -2 * SIZE + PLOT_WIDTH - 1);
+    }
+
+    /**
+     * Plot ids on a grid, with the merge state of every plot with its west
+     * and north neighbours
+     */
+    private static final class Shape {
+
+        private final boolean[][] member;
+        private final boolean[][] west;
+        private final boolean[][] north;
+        private final int width;
+        private final int height;
+
+        private Shape(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.member = new boolean[height][width];
+            this.west = new boolean[height][width];
+            this.north = new boolean[height][width];
+        }
+
+        private boolean merged(int x, int y, Direction direction) {
+            switch (direction) {
+                case NORTH:
+                    return this.north[y][x];
+                case WEST:
+                    return this.west[y][x];
+                case EAST:
+                    return x + 1 < this.width && this.west[y][x + 1];
+                case SOUTH:
+                    return y + 1 < this.height && this.north[y + 1][x];
+                case SOUTHEAST:
+                    return merged(x, y, Direction.EAST) && merged(x, y, Direction.SOUTH)
+                        && merged(x + 1, y, Direction.SOUTH) && merged(x, y + 1,
+                        Direction.EAST);
+                default:
+                    throw new IllegalArgumentException(direction.toString());
+            }
+        }
+
+    }
+
+    /**
+     * Plot on a square grid of plots and roads, without an area
+     */
+    private static final class TestPlot extends Plot {
+
+        private final Shape shape;
+        private final int x;
+        private final int y;
+
+        private TestPlot(Shape shape, int offsetX, int offsetY, int x, int y) {
+            super(new PlotId(offsetX + x, offsetY + y), null, null, null, null, null, null,
+                null, null, new boolean[4], 0, 0);
+            this.shape = shape;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override public boolean getMerged(Direction direction) {
+            return this.shape.merged(this.x, this.y, direction);
+        }
+
+        @Override public Location getBottomAbs() {
+            return new Location("world", getId().x * SIZE, 0, getId().y * SIZE);
+        }
+
+        @Override public Location getTopAbs() {
+            return new Location("world", getId().x * SIZE + PLOT_WIDTH - 1, MAX_HEIGHT - 1,
+                getId().y * SIZE + PLOT_WIDTH - 1);
+        }
+
+        @Override public Location getExtendedTopAbs() {
+            Location top = getTopAbs();
+            if (getMerged(Direction.EAST)) {
+                top.setX(top.getX() + ROAD_WIDTH);
+            }
+            if (getMerged(Direction.SOUTH)) {
+                top.setZ(top.getZ() + ROAD_WIDTH);
+            }
+            return top;
+        }
+
+    }
+
+}
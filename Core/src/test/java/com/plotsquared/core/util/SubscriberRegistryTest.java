@@ -0,0 +1,156 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util;
+
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriberRegistryTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    public static class BaseEvent {
+    }
+
+
+    public static class ChildEvent extends BaseEvent {
+    }
+
+
+    public class Listener {
+
+        private final String name;
+
+        Listener(String name) {
+            this.name = name;
+        }
+
+        @Subscribe public void onChild(ChildEvent event) {
+            calls.add(this.name + ":child");
+        }
+
+        @Subscribe public void onBase(BaseEvent event) {
+            calls.add(this.name + ":base");
+        }
+
+    }
+
+
+    /**
+     * Non-public listeners are called through a method handle rather than
+     * a generated invoker
+     */
+    private class HiddenListener {
+
+        @Subscribe private void onBase(BaseEvent event) {
+            calls.add("hidden:base");
+        }
+
+    }
+
+
+    /**
+     * Listener that is equal to every other instance of its class
+     */
+    public class EqualListener extends Listener {
+
+        EqualListener(String name) {
+            super(name);
+        }
+
+        @Override public boolean equals(Object obj) {
+            return obj instanceof EqualListener;
+        }
+
+        @Override public int hashCode() {
+            return 0;
+        }
+
+    }
+
+    @Test public void dispatchOrder() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        registry.register(new Listener("a"));
+        registry.register(new HiddenListener());
+        registry.register(new Listener("b"));
+        registry.post(new ChildEvent());
+        // Subscribers of the event class itself come before subscribers of its
+        // supertypes, and subscribers of the same type are called in registration order
+        assertEquals(Arrays.asList("a:child", "b:child", "a:base", "hidden:base", "b:base"),
+            this.calls);
+        this.calls.clear();
+        registry.post(new BaseEvent());
+        assertEquals(Arrays.asList("a:base", "hidden:base", "b:base"), this.calls);
+    }
+
+    @Test public void duplicateRegistration() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Listener listener = new Listener("a");
+        registry.register(listener);
+        registry.register(listener);
+        registry.post(new ChildEvent());
+        assertEquals(Arrays.asList("a:child", "a:base"), this.calls);
+        // Equal listeners are still separate instances
+        this.calls.clear();
+        registry.register(new EqualListener("x"));
+        registry.register(new EqualListener("y"));
+        registry.post(new BaseEvent());
+        assertEquals(Arrays.asList("a:base", "x:base", "y:base"), this.calls);
+    }
+
+    @Test public void unregister() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Listener first = new EqualListener("x");
+        Listener second = new EqualListener("y");
+        registry.register(first);
+        registry.register(second);
+        assertTrue(registry.hasSubscribers(ChildEvent.class));
+        registry.unregister(first);
+        registry.post(new ChildEvent());
+        assertEquals(Arrays.asList("y:child", "y:base"), this.calls);
+        registry.unregister(second);
+        assertFalse(registry.hasSubscribers(ChildEvent.class));
+        assertFalse(registry.hasSubscribers(BaseEvent.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void unregisterTwice() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Listener listener = new Listener("a");
+        registry.register(listener);
+        registry.register(listener);
+        registry.unregister(listener);
+        registry.unregister(listener);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *       _____  _       _    _____                                _
+ *      |  __ \| |     | |  / ____|                              | |
+ *      | |__) | | ___ | |_| (___   __ _ _   _  __ _ _ __ ___  __| |
+ *      |  ___/| |/ _ \| __|\___ \ / _` | | | |/ _` | '__/ _ \/ _` |
+ *      | |    | | (_) | |_ ____) | (_| | |_| | (_| | | |  __/ (_| |
+ *      |_|    |_|\___/ \__|_____/ \__, |\__,_|\__,_|_|  \___|\__,_|
+ *                                    | |
+ *                                    |_|
+ *            PlotSquared plot management system for Minecraft
+ *                  Copyright (C) 2020 IntellectualSites
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.plotsquared.core.util.task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    private int now;
+
+    private void advance(TimingWheel wheel, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            this.now++;
+            wheel.tick();
+        }
+    }
+
+    @Test public void delaysLongerThanTheWheel() {
+        TimingWheel wheel = new TimingWheel(8);
+        List<Integer> runs = new ArrayList<>();
+        int[] delays = {1, 7, 8, 9, 16, 17, 20, 100};
+        for (int delay : delays) {
+            wheel.schedule(() -> runs.add(this.now), delay, 0);
+        }
+        // Tasks are not due before the wheel has started turning
+        advance(wheel, 3);
+        wheel.schedule(() -> runs.add(this.now), 13, 0);
+        advance(wheel, 100);
+        assertEquals(Arrays.asList(1, 7, 8, 9, 16, 16, 17, 20, 100), runs);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test public void cancelBeforeFiring() {
+        TimingWheel wheel = new TimingWheel(8);
+        List<String> runs = new ArrayList<>();
+        TimingWheel.Timeout once = wheel.schedule(() -> runs.add("once"), 20, 0);
+        TimingWheel.Timeout periodic = wheel.schedule(() -> runs.add("periodic"), 5, 5);
+        // Tasks due in the same tick run newest first, so the second task cancels the first
+        TimingWheel.Timeout later = wheel.schedule(() -> runs.add("later"), 3, 0);
+        wheel.schedule(later::cancel, 3, 0);
+        assertEquals(4, wheel.size());
+        advance(wheel, 4);
+        once.cancel();
+        periodic.cancel();
+        assertTrue(once.isCancelled());
+        assertTrue(later.isCancelled());
+        assertEquals(0, wheel.size());
+        // Cancelling again has no effect on the size
+        once.cancel();
+        assertEquals(0, wheel.size());
+        advance(wheel, 40);
+        assertTrue(runs.isEmpty());
+    }
+
+    @Test public void periodicTasksAreReinserted() {
+        TimingWheel wheel = new TimingWheel(8);
+        List<Integer> heal = new ArrayList<>();
+        List<Integer> feed = new ArrayList<>();
+        // Like the heal and feed effects, with periods longer than and equal to the wheel
+        TimingWheel.Timeout healTimeout = wheel.schedule(() -> heal.add(this.now), 20, 20);
+        wheel.schedule(() -> feed.add(this.now), 8, 8);
+        advance(wheel, 60);
+        assertEquals(Arrays.asList(20, 40, 60), heal);
+        assertEquals(Arrays.asList(8, 16, 24, 32, 40, 48, 56), feed);
+        assertEquals(2, wheel.size());
+        assertFalse(healTimeout.isCancelled());
+        healTimeout.cancel();
+        advance(wheel, 20);
+        assertEquals(Arrays.asList(20, 40, 60), heal);
+        assertEquals(1, wheel.size());
+        // A task that cancels itself while running is not reinserted
+        List<Integer> self = new ArrayList<>();
+        TimingWheel.Timeout[] timeout = new TimingWheel.Timeout[1];
+        timeout[0] = wheel.schedule(() -> {
+            self.add(this.now);
+            if (self.size() == 2) {
+                timeout[0].cancel();
+            }
+        }, 10, 10);
+        advance(wheel, 40);
+        assertEquals(Arrays.asList(90, 100), self);
+        assertEquals(1, wheel.size());
+    }
+
+}